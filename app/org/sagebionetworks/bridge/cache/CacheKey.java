@@ -1,8 +1,11 @@
 package org.sagebionetworks.bridge.cache;
 
+import static com.google.common.base.Preconditions.checkArgument;
+
 import java.util.List;
 import java.util.Objects;
 
+import org.sagebionetworks.bridge.models.GuidCreatedOnVersionHolder;
 import org.sagebionetworks.bridge.models.accounts.Phone;
 import org.sagebionetworks.bridge.models.accounts.SignIn;
 import org.sagebionetworks.bridge.models.studies.StudyIdentifier;
@@ -18,8 +21,12 @@ import com.google.common.collect.Lists;
  */
 public final class CacheKey {
     
+    private static final String VIEW_BYTES = "viewBytes";
+    
     private static final String[] PUBLIC_KEYS = new String[] { "emailVerificationStatus", "AppConfigList",
-            "channel-throttling", "lock", "study", "Subpopulation", "SubpopulationList", "view" };
+            "AppConfigStamp", "channel-throttling", "lock", "PublishedSurvey", "ResolvedReferences",
+            "SchedulePlanList", "study", "StudyStamp", "Subpopulation", "SubpopulationList", "Survey", "UploadSchema",
+            "UploadSchemaRevisions", "view", VIEW_BYTES };
     
     public final static boolean isPublic(String key) {
         for (String suffix : PUBLIC_KEYS) {
@@ -30,6 +37,13 @@ public final class CacheKey {
         return false;
     }
     
+    /**
+     * A version stamp for the sharing scope, external ID and data groups of an account, which upload validation 
+     * holds in memory. Not public, since it contains the health code.
+     */
+    public static final CacheKey accountRecordAttributes(String studyId, String healthCode) {
+        return new CacheKey(healthCode, studyId, "AccountRecordAttributes");
+    }
     public static final CacheKey shortenUrl(String token) {
         return new CacheKey(token, "ShortenedUrl");
     }
@@ -37,6 +51,13 @@ public final class CacheKey {
     public static final CacheKey appConfigList(StudyIdentifier studyId) {
         return new CacheKey(studyId.getIdentifier(), "AppConfigList");
     }
+    /**
+     * A version stamp for the in-memory list of a study's app configs. This is separate from appConfigList(),
+     * which is a Redis set of the study's cached app config views.
+     */
+    public static final CacheKey appConfigStamp(StudyIdentifier studyId) {
+        return new CacheKey(studyId.getIdentifier(), "AppConfigStamp");
+    }
     public static final CacheKey channelThrottling(String throttleType, String userId) {
         return new CacheKey(userId, throttleType, "channel-throttling");
     }
@@ -70,12 +91,28 @@ public final class CacheKey {
     public static final CacheKey requestInfo(String userId) {
         return new CacheKey(userId, "request-info");
     }
+    /** A version stamp for the most recently published version of a survey, held in memory without elements. */
+    public static final CacheKey publishedSurvey(StudyIdentifier studyId, String surveyGuid) {
+        return new CacheKey(studyId.getIdentifier(), surveyGuid, "PublishedSurvey");
+    }
+    /** A version stamp for the schema, survey and compound activity references resolved for a study. */
+    public static final CacheKey resolvedReferences(StudyIdentifier studyId) {
+        return new CacheKey(studyId.getIdentifier(), "ResolvedReferences");
+    }
+    /** A version stamp for the in-memory list of a study's schedule plans. */
+    public static final CacheKey schedulePlanList(StudyIdentifier studyId) {
+        return new CacheKey(studyId.getIdentifier(), "SchedulePlanList");
+    }
     public static final CacheKey session(String sessionToken) {
         return new CacheKey(sessionToken, "session");
     }
     public static final CacheKey study(String studyId) {
         return new CacheKey(studyId, "study");
     }    
+    /** A version stamp that changes whenever the cached study is replaced or removed. */
+    public static final CacheKey studyStamp(String studyId) {
+        return new CacheKey(studyId, "StudyStamp");
+    }
     public static final CacheKey subpop(SubpopulationGuid subpopGuid, StudyIdentifier studyId) {
         return new CacheKey(subpopGuid.getGuid(), studyId.getIdentifier(), "Subpopulation");
     }
@@ -85,15 +122,47 @@ public final class CacheKey {
     public static final CacheKey sessionByUserId(String userId) {
         return new CacheKey(userId, "session", "user");
     }
+    /** A version stamp for one version of a survey, held in memory without elements. */
+    public static final CacheKey survey(GuidCreatedOnVersionHolder keys) {
+        return new CacheKey(keys.getGuid(), Long.toString(keys.getCreatedOn()), "Survey");
+    }
+    /** A version stamp for one revision of an upload schema. */
+    public static final CacheKey uploadSchema(StudyIdentifier studyId, String schemaId, int revision) {
+        return new CacheKey(studyId.getIdentifier(), schemaId, Integer.toString(revision), "UploadSchema");
+    }
+    /** A version stamp for the in-memory list of all revisions of an upload schema. */
+    public static final CacheKey uploadSchemaRevisions(StudyIdentifier studyId, String schemaId) {
+        return new CacheKey(studyId.getIdentifier(), schemaId, "UploadSchemaRevisions");
+    }
+    /**
+     * A Redis set of the signed consents in a study that have been queued but not yet delivered. Members are 
+     * "userId:subpopGuid". Not public, since members are user IDs.
+     */
+    public static final CacheKey undeliveredConsents(StudyIdentifier studyId) {
+        return new CacheKey(studyId.getIdentifier(), "UndeliveredConsents");
+    }
     public static final CacheKey verificationToken(String sptoken) {
         return new CacheKey(sptoken); // no type, not great
     }
+    /**
+     * The key of a view's JSON, which ViewCache stores as raw (and possibly gzipped) bytes. This is not the key 
+     * that views were stored under as JSON strings, so servers that still read that format never read these bytes.
+     */
     public static final CacheKey viewKey(Class<?> clazz, String... elements) {
         List<String> list = Lists.newArrayList(elements);
         list.add(clazz.getSimpleName());
-        list.add("view");
+        list.add(VIEW_BYTES);
         return new CacheKey(COLON_JOINER.join(list));
     }
+    /**
+     * The key the same view was stored under as a JSON string, by servers running an earlier version. These are 
+     * removed along with the view, so those servers don't serve a stale view while both versions are running.
+     */
+    public static final CacheKey legacyViewKey(CacheKey viewKey) {
+        String key = viewKey.toString();
+        checkArgument(key.endsWith(":" + VIEW_BYTES));
+        return new CacheKey(key.substring(0, key.length() - VIEW_BYTES.length()) + "view");
+    }
     
     private static final Joiner COLON_JOINER = Joiner.on(":");
     
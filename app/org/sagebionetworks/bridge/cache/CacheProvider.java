@@ -8,6 +8,7 @@ import java.util.Set;
 import javax.annotation.Resource;
 
 import org.sagebionetworks.bridge.BridgeConstants;
+import org.sagebionetworks.bridge.BridgeUtils;
 import org.sagebionetworks.bridge.cache.CacheKey;
 import org.sagebionetworks.bridge.config.BridgeConfigFactory;
 import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
@@ -23,7 +24,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableSet;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.util.SafeEncoder;
 
 /**
  * A wrapper around whatever cache provider we ultimately decide to go with (probably Redis). 
@@ -31,8 +38,32 @@ import com.fasterxml.jackson.databind.ObjectMapper;
  */
 @Component
 public class CacheProvider {
+    /** Studies held in memory are trusted without checking Redis for this long. */
+    static final long LOCAL_STUDY_REVALIDATE_MILLIS = 5 * 1000;
+    /** Upper bound on how long a study is held in memory, regardless of revalidation. */
+    static final int LOCAL_STUDY_EXPIRE_IN_SECONDS = 5 * 60;
+    static final int LOCAL_STUDY_MAX_SIZE = 500;
+    /**
+     * Version stamps expire, so Redis doesn't hold one for every schema revision and survey version forever. 
+     * This is longer than values are held in memory, and an expired stamp only causes the value to be reloaded.
+     */
+    static final int STAMP_EXPIRE_IN_SECONDS = 2 * VersionedLocalCache.DEFAULT_EXPIRE_IN_SECONDS;
+
+    /**
+     * In-process cache of studies in front of Redis. Every authenticated request needs the study, and 
+     * reading it from Redis on each call costs a round trip (and an EXPIRE). Entries are kept under the 
+     * study's stamp key, which is replaced whenever a study is written to or removed from the cache, so 
+     * updates on one node are seen by the others within LOCAL_STUDY_REVALIDATE_MILLIS. Studies are held as 
+     * parsed JSON trees, and each call to getStudy() binds its own copy from the tree, so callers can modify 
+     * the study they get (for example, before passing it to StudyService.updateStudy()) without affecting 
+     * other requests.
+     */
+    private final VersionedLocalCache<JsonNode> localStudies = new VersionedLocalCache<>(this,
+            LOCAL_STUDY_MAX_SIZE, LOCAL_STUDY_EXPIRE_IN_SECONDS, LOCAL_STUDY_REVALIDATE_MILLIS);
+    
     private ObjectMapper bridgeObjectMapper;
     private JedisOps jedisOps;
+    private JedisPool jedisPool;
     private int sessionExpireInSeconds;
 
     @Autowired
@@ -45,6 +76,12 @@ public class CacheProvider {
         this.jedisOps = jedisOps;
     }
     
+    /** JedisOps only supports string values; binary values are read and written directly through the pool. */
+    @Autowired
+    final void setJedisPool(JedisPool jedisPool) {
+        this.jedisPool = jedisPool;
+    }
+    
     @Resource(name = "sessionExpireInSeconds")
     final void setSessionExpireInSeconds(int sessionExpireInSeconds) {
         this.sessionExpireInSeconds = sessionExpireInSeconds;
@@ -196,19 +233,86 @@ public class CacheProvider {
     public void setStudy(Study study) {
         checkNotNull(study);
         CacheKey redisKey = CacheKey.study(study.getIdentifier());
-        setObject(redisKey, study, BridgeConstants.BRIDGE_SESSION_EXPIRE_IN_SECONDS);
+        try {
+            String ser = bridgeObjectMapper.writeValueAsString(study);
+            String result = jedisOps.setex(redisKey.toString(), BridgeConstants.BRIDGE_SESSION_EXPIRE_IN_SECONDS, ser);
+            if (!"OK".equals(result)) {
+                throw new BridgeServiceException("Study storage error");
+            }
+        } catch (Throwable e) {
+            promptToStartRedisIfLocal(e);
+            throw new BridgeServiceException(e);
+        }
+        // Replacing the stamp after the study is written causes every node (including this one) to reload it
+        localStudies.invalidate(CacheKey.studyStamp(study.getIdentifier()));
     }
 
     public Study getStudy(String identifier) {
         checkNotNull(identifier);
+        
+        JsonNode node = localStudies.get(CacheKey.studyStamp(identifier), () -> readStudyNode(identifier));
+        if (node == null) {
+            return null;
+        }
+        try {
+            return bridgeObjectMapper.treeToValue(node, Study.class);
+        } catch (Throwable e) {
+            throw new BridgeServiceException(e);
+        }
+    }
+    
+    private JsonNode readStudyNode(String identifier) {
         CacheKey redisKey = CacheKey.study(identifier);
-        return getObject(redisKey, Study.class, BridgeConstants.BRIDGE_SESSION_EXPIRE_IN_SECONDS);
+        try {
+            String ser = jedisOps.get(redisKey.toString());
+            if (ser == null) {
+                return null;
+            }
+            jedisOps.expire(redisKey.toString(), BridgeConstants.BRIDGE_SESSION_EXPIRE_IN_SECONDS);
+            return bridgeObjectMapper.readTree(ser);
+        } catch (Throwable e) {
+            promptToStartRedisIfLocal(e);
+            throw new BridgeServiceException(e);
+        }
     }
 
     public void removeStudy(String identifier) {
         checkNotNull(identifier);
         CacheKey redisKey = CacheKey.study(identifier);
         removeObject(redisKey);
+        
+        // Replacing the stamp causes other nodes to discard their in-memory copy of the study
+        localStudies.invalidate(CacheKey.studyStamp(identifier));
+    }
+    
+    /**
+     * Get the version stamp stored under this key, or null if no stamp has been set. Stamps are opaque 
+     * values used to tell if a copy of some data held in memory is still current.
+     */
+    public String getStamp(CacheKey stampKey) {
+        checkNotNull(stampKey);
+        try {
+            return jedisOps.get(stampKey.toString());
+        } catch(Throwable e) {
+            promptToStartRedisIfLocal(e);
+            throw new BridgeServiceException(e);
+        }
+    }
+    
+    /**
+     * Replace the version stamp stored under this key with a new value, and return that value. The stamp 
+     * expires after STAMP_EXPIRE_IN_SECONDS.
+     */
+    public String updateStamp(CacheKey stampKey) {
+        checkNotNull(stampKey);
+        String stamp = BridgeUtils.generateGuid();
+        try {
+            jedisOps.setex(stampKey.toString(), STAMP_EXPIRE_IN_SECONDS, stamp);
+        } catch(Throwable e) {
+            promptToStartRedisIfLocal(e);
+            throw new BridgeServiceException(e);
+        }
+        return stamp;
     }
 
     public <T> T getObject(CacheKey cacheKey, Class<T> clazz) {
@@ -296,6 +400,37 @@ public class CacheProvider {
         }
     }
     
+    /**
+     * Get a value stored as raw bytes with {@link #setBytes}. Returns null if there is no value.
+     */
+    public byte[] getBytes(CacheKey cacheKey) {
+        checkNotNull(cacheKey);
+        try (Jedis jedis = jedisPool.getResource()) {
+            return jedis.get(SafeEncoder.encode(cacheKey.toString()));
+        } catch (Throwable e) {
+            promptToStartRedisIfLocal(e);
+            throw new BridgeServiceException(e);
+        }
+    }
+    
+    /**
+     * Set raw bytes in the cache with an expiration in seconds. Unlike setObject(), the value is stored as is, 
+     * without being serialized to JSON. Can be removed with removeObject().
+     */
+    public void setBytes(CacheKey cacheKey, byte[] value, int expireInSeconds) {
+        checkNotNull(cacheKey);
+        checkNotNull(value);
+        try (Jedis jedis = jedisPool.getResource()) {
+            String result = jedis.setex(SafeEncoder.encode(cacheKey.toString()), expireInSeconds, value);
+            if (!"OK".equals(result)) {
+                throw new BridgeServiceException("Cache storage error");
+            }
+        } catch (Throwable e) {
+            promptToStartRedisIfLocal(e);
+            throw new BridgeServiceException(e);
+        }
+    }
+    
     /**
      * Remove object from cache, if it exists.
      */
@@ -320,6 +455,48 @@ public class CacheProvider {
         }
     }
     
+    /**
+     * Add a value to the set stored under this key. The set has no expiration.
+     */
+    public void addToSet(CacheKey setKey, String value) {
+        checkNotNull(setKey);
+        checkNotNull(value);
+        try {
+            jedisOps.sadd(setKey.toString(), value);
+        } catch(Throwable e) {
+            promptToStartRedisIfLocal(e);
+            throw new BridgeServiceException(e);
+        }
+    }
+    
+    /**
+     * Remove a value from the set stored under this key, if it is there.
+     */
+    public void removeFromSet(CacheKey setKey, String value) {
+        checkNotNull(setKey);
+        checkNotNull(value);
+        try (Jedis jedis = jedisPool.getResource()) {
+            jedis.srem(setKey.toString(), value);
+        } catch(Throwable e) {
+            promptToStartRedisIfLocal(e);
+            throw new BridgeServiceException(e);
+        }
+    }
+    
+    /**
+     * Get the members of the set stored under this key. Returns an empty set if there is no set.
+     */
+    public Set<String> getSetMembers(CacheKey setKey) {
+        checkNotNull(setKey);
+        try {
+            Set<String> members = jedisOps.smembers(setKey.toString());
+            return (members != null) ? members : ImmutableSet.of();
+        } catch(Throwable e) {
+            promptToStartRedisIfLocal(e);
+            throw new BridgeServiceException(e);
+        }
+    }
+    
     public void removeSetOfCacheKeys(CacheKey cacheKeyOfSet) {
         checkNotNull(cacheKeyOfSet);
         
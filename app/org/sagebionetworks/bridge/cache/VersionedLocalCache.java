@@ -0,0 +1,98 @@
+package org.sagebionetworks.bridge.cache;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.joda.time.DateTimeUtils;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * An in-process cache of values that are expensive to load and rarely change, such as the configuration
+ * of a study. Each entry is tied to a version stamp held in Redis under the entry's cache key. When the
+ * underlying data changes, calling invalidate() replaces the stamp, and every server discards its copy
+ * the next time it revalidates (no more than revalidateMillis later). Values returned from this cache are
+ * shared between requests and must not be modified by callers.
+ */
+public class VersionedLocalCache<V> {
+    /** Values held in memory are trusted without checking Redis for this long. */
+    public static final long DEFAULT_REVALIDATE_MILLIS = 5 * 1000;
+    /** Upper bound on how long a value is held in memory, regardless of revalidation. */
+    public static final int DEFAULT_EXPIRE_IN_SECONDS = 5 * 60;
+
+    private final CacheProvider cacheProvider;
+    private final long revalidateMillis;
+    private final Cache<String, Entry<V>> cache;
+
+    public VersionedLocalCache(CacheProvider cacheProvider, int maxSize) {
+        this(cacheProvider, maxSize, DEFAULT_EXPIRE_IN_SECONDS, DEFAULT_REVALIDATE_MILLIS);
+    }
+
+    public VersionedLocalCache(CacheProvider cacheProvider, int maxSize, int expireInSeconds, long revalidateMillis) {
+        this.cacheProvider = checkNotNull(cacheProvider);
+        this.revalidateMillis = revalidateMillis;
+        this.cache = CacheBuilder.newBuilder().maximumSize(maxSize)
+                .expireAfterWrite(expireInSeconds, TimeUnit.SECONDS).build();
+    }
+
+    /**
+     * Get the value for this key, calling the loader if there is no current copy in memory. Null values
+     * are returned but not cached.
+     */
+    public V get(CacheKey cacheKey, Supplier<V> loader) {
+        checkNotNull(cacheKey);
+        checkNotNull(loader);
+
+        String key = cacheKey.toString();
+        long now = DateTimeUtils.currentTimeMillis();
+
+        Entry<V> entry = cache.getIfPresent(key);
+        if (entry != null) {
+            if (now - entry.validatedOn < revalidateMillis) {
+                return entry.value;
+            }
+            if (Objects.equals(entry.stamp, cacheProvider.getStamp(cacheKey))) {
+                entry.validatedOn = now;
+                return entry.value;
+            }
+            cache.invalidate(key);
+        }
+        // Read (or create) the stamp before loading, so a change made while we are loading will replace
+        // the stamp and cause this copy to be discarded at the next revalidation.
+        String stamp = cacheProvider.getStamp(cacheKey);
+        if (stamp == null) {
+            stamp = cacheProvider.updateStamp(cacheKey);
+        }
+        V value = loader.get();
+        if (value != null) {
+            cache.put(key, new Entry<>(value, stamp, now));
+        }
+        return value;
+    }
+
+    /**
+     * Discard the value for this key on this server, and replace its stamp so other servers discard
+     * their copies as well. Call this after the underlying data has been changed.
+     */
+    public void invalidate(CacheKey cacheKey) {
+        checkNotNull(cacheKey);
+        cacheProvider.updateStamp(cacheKey);
+        cache.invalidate(cacheKey.toString());
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final String stamp;
+        private volatile long validatedOn;
+
+        private Entry(V value, String stamp, long validatedOn) {
+            this.value = value;
+            this.stamp = stamp;
+            this.validatedOn = validatedOn;
+        }
+    }
+}
@@ -1,18 +1,38 @@
 package org.sagebionetworks.bridge.cache;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
 import org.sagebionetworks.bridge.cache.CacheKey;
 import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Supplier;
+import com.google.common.io.ByteStreams;
 
+/**
+ * Caches the JSON of views in Redis. The JSON is stored as raw UTF-8 bytes, rather than as a JSON string (which 
+ * would escape the JSON a second time and require it to be parsed again on every read). JSON larger than 
+ * COMPRESSION_THRESHOLD_BYTES is gzipped, which is detected when reading from its header. Views are stored under 
+ * a different key than views stored as JSON strings (see CacheKey.viewKey()), so the two formats never share a key.
+ */
 public class ViewCache {
     
     private static final Logger logger = LoggerFactory.getLogger(ViewCache.class);
     
+    static final int COMPRESSION_THRESHOLD_BYTES = 4096;
+    // The first two bytes of all gzip data.
+    private static final byte GZIP_MAGIC_1 = (byte) 0x1f;
+    private static final byte GZIP_MAGIC_2 = (byte) 0x8b;
+    
     private CacheProvider cache;
     private ObjectMapper objectMapper;
     private int cachePeriod;
@@ -38,25 +58,27 @@ public class ViewCache {
      */
     public <T> String getView(CacheKey key, Supplier<T> supplier) {
         try {
-            String value = cache.getObject(key, String.class);
+            String value = fromBytes(cache.getBytes(key));
             if (value == null) {
                 value = cacheView(key, supplier);
             } else {
                 logger.debug("Retrieving "+key+"' JSON from cache");
             }
             return value;
-        } catch(JsonProcessingException e) {
+        } catch(IOException e) {
             throw new BridgeServiceException(e);
         }
     }
 
     /**
-     * Remove the JSON for the view represented by the viewCacheKey.
+     * Remove the JSON for the view represented by the viewCacheKey. The view is also removed from the key where 
+     * servers running an earlier version cache it as a JSON string.
      * @param key
      */
     public <T> void removeView(CacheKey key) {
         logger.debug("Deleting JSON for '"+key+"'");
         cache.removeObject(key);
+        cache.removeObject(CacheKey.legacyViewKey(key));
     }
     
     /**
@@ -70,11 +92,35 @@ public class ViewCache {
         return CacheKey.viewKey(clazz, identifiers);
     }
     
-    private <T> String cacheView(CacheKey key, Supplier<T> supplier) throws JsonProcessingException {
+    private <T> String cacheView(CacheKey key, Supplier<T> supplier) throws IOException {
         logger.debug("Caching JSON for "+key+"'");
         T object = supplier.get();
-        String value = objectMapper.writeValueAsString(object);
-        cache.setObject(key, value, cachePeriod);
-        return value;
+        byte[] value = objectMapper.writeValueAsBytes(object);
+        cache.setBytes(key, toBytes(value), cachePeriod);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+    
+    private static byte[] toBytes(byte[] json) throws IOException {
+        if (json.length <= COMPRESSION_THRESHOLD_BYTES) {
+            return json;
+        }
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(json.length / 4);
+        try (OutputStream gzip = new GZIPOutputStream(baos)) {
+            gzip.write(json);
+        }
+        return baos.toByteArray();
+    }
+    
+    // Returns null if there's no value.
+    private static String fromBytes(byte[] value) throws IOException {
+        if (value == null || value.length == 0) {
+            return null;
+        }
+        if (value.length > 1 && value[0] == GZIP_MAGIC_1 && value[1] == GZIP_MAGIC_2) {
+            try (InputStream gzip = new GZIPInputStream(new ByteArrayInputStream(value))) {
+                return new String(ByteStreams.toByteArray(gzip), StandardCharsets.UTF_8);
+            }
+        }
+        return new String(value, StandardCharsets.UTF_8);
     }
 }
@@ -2,15 +2,26 @@ package org.sagebionetworks.bridge.config;
 
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import javax.annotation.Resource;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
 import redis.clients.jedis.JedisPool;
 import redis.clients.jedis.JedisPoolConfig;
 
 import org.sagebionetworks.bridge.BridgeUtils;
+import org.sagebionetworks.bridge.crypto.CmsEncryptor;
 import org.sagebionetworks.bridge.redis.JedisOps;
+import org.sagebionetworks.bridge.services.CmsEncryptorCachePreloader;
+import org.sagebionetworks.bridge.services.StudyService;
+
+import com.google.common.cache.LoadingCache;
 
 /**
  * Production-only Spring config. This includes things that we don't want in our unit tests for
@@ -22,6 +33,30 @@ public class BridgeProductionSpringConfig {
     @Autowired
     BridgeConfig bridgeConfig;
     
+    @Resource(name = "cmsEncryptorCache")
+    LoadingCache<String, CmsEncryptor> cmsEncryptorCache;
+    
+    @Autowired
+    StudyService studyService;
+    
+    @Resource(name = "asyncExecutorService")
+    ExecutorService asyncExecutorService;
+    
+    // Starts after the default studies (and their tables) have been created.
+    @Bean(name = "cmsEncryptorCachePreloader", initMethod = "start")
+    @DependsOn("defaultStudyBootstrapper")
+    public CmsEncryptorCachePreloader cmsEncryptorCachePreloader() {
+        return new CmsEncryptorCachePreloader(cmsEncryptorCache, studyService, asyncExecutorService,
+                cmsEncryptorCacheStatsExecutorService(),
+                bridgeConfig.getPropertyAsInt("upload.cms.encryptor.cache.stats.minutes"));
+    }
+    
+    // Logs the CMS encryptor cache's statistics on a schedule.
+    @Bean(name = "cmsEncryptorCacheStatsExecutorService")
+    public ScheduledExecutorService cmsEncryptorCacheStatsExecutorService() {
+        return Executors.newSingleThreadScheduledExecutor();
+    }
+    
     @Bean(name = "jedisOps")
     public JedisOps jedisOps() throws Exception {
         return new JedisOps(jedisPool());
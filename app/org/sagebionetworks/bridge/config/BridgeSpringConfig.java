@@ -6,8 +6,12 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import javax.annotation.Resource;
 
@@ -19,12 +23,15 @@ import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClient;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
 import com.amazonaws.services.s3.AmazonS3Client;
+import com.amazonaws.services.s3.transfer.TransferManager;
+import com.amazonaws.services.s3.transfer.TransferManagerBuilder;
 import com.amazonaws.services.securitytoken.AWSSecurityTokenServiceClient;
 import com.amazonaws.services.simpleemail.AmazonSimpleEmailServiceClient;
 import com.amazonaws.services.sns.AmazonSNSClient;
 import com.amazonaws.services.sqs.AmazonSQSClient;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableList;
 
@@ -83,11 +90,13 @@ import org.sagebionetworks.bridge.s3.S3Helper;
 import org.sagebionetworks.bridge.upload.DecryptHandler;
 import org.sagebionetworks.bridge.upload.InitRecordHandler;
 import org.sagebionetworks.bridge.upload.S3DownloadHandler;
+import org.sagebionetworks.bridge.upload.StreamingUnzipHandler;
 import org.sagebionetworks.bridge.upload.StrictValidationHandler;
 import org.sagebionetworks.bridge.upload.TranscribeConsentHandler;
 import org.sagebionetworks.bridge.upload.UnzipHandler;
 import org.sagebionetworks.bridge.upload.UploadArtifactsHandler;
 import org.sagebionetworks.bridge.upload.UploadFormatHandler;
+import org.sagebionetworks.bridge.upload.UploadUtil;
 import org.sagebionetworks.bridge.upload.UploadValidationHandler;
 
 /**
@@ -209,6 +218,15 @@ public class BridgeSpringConfig {
         return s3Helper;
     }
 
+    // Large upload attachments are written as multipart uploads. The transfer manager uploads the parts on its own
+    // threads, while the attachment upload executor waits for the upload to finish.
+    @Bean(name = "attachmentTransferManager")
+    @Resource(name = "s3Client")
+    public TransferManager attachmentTransferManager(AmazonS3Client s3Client) {
+        return TransferManagerBuilder.standard().withS3Client(s3Client)
+                .withMultipartUploadThreshold((long) UploadUtil.FILE_SIZE_THRESHOLD_MULTIPART_UPLOAD).build();
+    }
+
     @Bean(name = "s3ConsentsCredentials")
     @Resource(name = "bridgeConfig")
     public BasicAWSCredentials s3ConsentsCredentials(BridgeConfig bridgeConfig) {
@@ -248,16 +266,102 @@ public class BridgeSpringConfig {
         return Executors.newFixedThreadPool(bridgeConfig.getPropertyAsInt("async.worker.thread.count"));
     }
 
+    // Signed consents are rendered to PDF and delivered on their own pool, so a backlog of consents can't starve
+    // other async work. The queue is bounded. When it is full, ConsentService leaves the consent recorded as
+    // undelivered, to be resent later.
+    @Bean(name = "consentDeliveryExecutorService")
+    @Resource(name = "bridgeConfig")
+    public ThreadPoolExecutor consentDeliveryExecutorService(BridgeConfig bridgeConfig) {
+        int threadCount = bridgeConfig.getPropertyAsInt("consent.delivery.thread.count");
+        int queueSize = bridgeConfig.getPropertyAsInt("consent.delivery.queue.size");
+        return new ThreadPoolExecutor(threadCount, threadCount, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize));
+    }
+
+    // Used to schedule retries of failed consent deliveries, so waiting between retries doesn't hold a delivery
+    // thread.
+    @Bean(name = "consentRetryExecutorService")
+    @Resource(name = "bridgeConfig")
+    public ScheduledExecutorService consentRetryExecutorService(BridgeConfig bridgeConfig) {
+        return Executors.newScheduledThreadPool(bridgeConfig.getPropertyAsInt("consent.retry.thread.count"));
+    }
+
+    // Used to issue independent DynamoDB queries concurrently within a single request.
+    @Bean(name = "ddbQueryExecutorService")
+    @Resource(name = "bridgeConfig")
+    public ExecutorService ddbQueryExecutorService(BridgeConfig bridgeConfig) {
+        return Executors.newFixedThreadPool(bridgeConfig.getPropertyAsInt("ddb.query.thread.count"));
+    }
+
+    // Used to issue independent SNS calls (such as pushes to each of a participant's devices) concurrently within a
+    // single request. The queue is bounded. When it is full, the request thread makes the SNS call itself, which is
+    // slower but doesn't fail the request.
+    @Bean(name = "snsExecutorService")
+    @Resource(name = "bridgeConfig")
+    public ThreadPoolExecutor snsExecutorService(BridgeConfig bridgeConfig) {
+        int threadCount = bridgeConfig.getPropertyAsInt("sns.thread.count");
+        int queueSize = bridgeConfig.getPropertyAsInt("sns.queue.size");
+        return new ThreadPoolExecutor(threadCount, threadCount, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    // Upload validation gets its own pool, so bursts of uploads can't starve other async work. The queue is bounded,
+    // and UploadValidationService checks capacity before accepting an upload.
+    @Bean(name = "uploadValidationExecutor")
+    @Resource(name = "bridgeConfig")
+    public ThreadPoolExecutor uploadValidationExecutor(BridgeConfig bridgeConfig) {
+        int threadCount = bridgeConfig.getPropertyAsInt("upload.validation.thread.count");
+        int queueSize = bridgeConfig.getPropertyAsInt("upload.validation.queue.size");
+        return new ThreadPoolExecutor(threadCount, threadCount, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize));
+    }
+
+    // Upload attachments are written to S3 on their own pool, so an upload's attachments are written concurrently. The
+    // queue is bounded. When it is full, the upload validation thread writes the attachment itself, which slows down
+    // validation instead of failing the upload.
+    @Bean(name = "attachmentUploadExecutor")
+    @Resource(name = "bridgeConfig")
+    public ThreadPoolExecutor attachmentUploadExecutor(BridgeConfig bridgeConfig) {
+        int threadCount = bridgeConfig.getPropertyAsInt("upload.attachment.thread.count");
+        int queueSize = bridgeConfig.getPropertyAsInt("upload.attachment.queue.size");
+        return new ThreadPoolExecutor(threadCount, threadCount, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    // Credential hashing is CPU bound, so it runs on a pool sized to the number of cores (unless configured otherwise).
+    // The queue is bounded, and CredentialHasher rejects sign ins with a 503 when it is full.
+    @Bean(name = "credentialHashingExecutor")
+    @Resource(name = "bridgeConfig")
+    public ThreadPoolExecutor credentialHashingExecutor(BridgeConfig bridgeConfig) {
+        int threadCount = bridgeConfig.getPropertyAsInt("credential.hashing.thread.count");
+        if (threadCount <= 0) {
+            threadCount = Runtime.getRuntime().availableProcessors();
+        }
+        int queueSize = bridgeConfig.getPropertyAsInt("credential.hashing.queue.size");
+        return new ThreadPoolExecutor(threadCount, threadCount, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize));
+    }
+
     @Bean(name = "supportEmail")
     @Resource(name = "bridgeConfig")
     public String supportEmail(BridgeConfig bridgeConfig) {
         return bridgeConfig.getProperty("support.email");
     }
 
+    // Encryptors are refreshed on the async executor, so uploads keep using the current encryptor while its
+    // replacement is read from S3. Stats are recorded so the cache's hit rate and load times can be logged.
     @Bean(name = "cmsEncryptorCache")
     @Autowired
-    public LoadingCache<String, CmsEncryptor> cmsEncryptorCache(CmsEncryptorCacheLoader cacheLoader) {
-        return CacheBuilder.newBuilder().build(cacheLoader);
+    public LoadingCache<String, CmsEncryptor> cmsEncryptorCache(CmsEncryptorCacheLoader cacheLoader,
+            BridgeConfig bridgeConfig) {
+        return CacheBuilder.newBuilder()
+                .maximumSize(bridgeConfig.getPropertyAsInt("upload.cms.encryptor.cache.max.size"))
+                .refreshAfterWrite(bridgeConfig.getPropertyAsInt("upload.cms.encryptor.cache.refresh.minutes"),
+                        TimeUnit.MINUTES)
+                .expireAfterAccess(bridgeConfig.getPropertyAsInt("upload.cms.encryptor.cache.expire.hours"),
+                        TimeUnit.HOURS)
+                .recordStats()
+                .build(CacheLoader.asyncReloading(cacheLoader, asyncExecutorService(bridgeConfig)));
     }
 
     @Bean(name = "dynamoUtils")
@@ -448,10 +552,15 @@ public class BridgeSpringConfig {
     @Bean(name = "uploadValidationHandlerList")
     @Autowired
     public List<UploadValidationHandler> uploadValidationHandlerList(S3DownloadHandler s3DownloadHandler,
-            DecryptHandler decryptHandler, UnzipHandler unzipHandler,
+            DecryptHandler decryptHandler, UnzipHandler unzipHandler, StreamingUnzipHandler streamingUnzipHandler,
             InitRecordHandler initRecordHandler, UploadFormatHandler uploadFormatHandler,
             StrictValidationHandler strictValidationHandler, TranscribeConsentHandler transcribeConsentHandler,
             UploadArtifactsHandler uploadArtifactsHandler) {
+        // Streaming mode downloads, decrypts, and unzips in one pass, without intermediate temp files.
+        if (Boolean.parseBoolean(bridgeConfig().getProperty("upload.validation.streaming.enabled"))) {
+            return ImmutableList.of(streamingUnzipHandler, initRecordHandler, uploadFormatHandler,
+                    strictValidationHandler, transcribeConsentHandler, uploadArtifactsHandler);
+        }
         return ImmutableList.of(s3DownloadHandler, decryptHandler, unzipHandler,
                 initRecordHandler, uploadFormatHandler, strictValidationHandler, transcribeConsentHandler,
                 uploadArtifactsHandler);
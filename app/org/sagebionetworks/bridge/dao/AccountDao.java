@@ -4,9 +4,11 @@ import java.util.Iterator;
 import java.util.function.Consumer;
 
 import org.sagebionetworks.bridge.models.AccountSummarySearch;
+import org.sagebionetworks.bridge.models.ForwardCursorPagedResourceList;
 import org.sagebionetworks.bridge.models.PagedResourceList;
 import org.sagebionetworks.bridge.models.accounts.Account;
 import org.sagebionetworks.bridge.models.accounts.AccountId;
+import org.sagebionetworks.bridge.models.accounts.AccountRecordAttributes;
 import org.sagebionetworks.bridge.models.accounts.AccountSummary;
 import org.sagebionetworks.bridge.models.accounts.Phone;
 import org.sagebionetworks.bridge.models.accounts.SignIn;
@@ -96,6 +98,20 @@ public interface AccountDao {
      */
     Account getAccount(AccountId accountId);
     
+    /**
+     * Get the sharing scope, external ID and data groups of the account with this health code, without loading 
+     * the rest of the account. Returns null if there is no account.
+     */
+    default AccountRecordAttributes getAccountRecordAttributes(StudyIdentifier studyId, String healthCode) {
+        Account account = getAccount(AccountId.forHealthCode(studyId.getIdentifier(), healthCode));
+        if (account != null) {
+            return new AccountRecordAttributes(account.getSharingScope(), account.getExternalId(),
+                    account.getDataGroups());
+        } else {
+            return null;
+        }
+    }
+    
     /**
      * Delete an account along with the authentication credentials.
      */
@@ -122,6 +138,20 @@ public interface AccountDao {
      */
     PagedResourceList<AccountSummary> getPagedAccountSummaries(Study study, AccountSummarySearch search);
     
+    /**
+     * Get a page of lightweight account summaries, ordered by creation time, paging forward with the 
+     * offsetKey of the search rather than its offsetBy value. Retrieving a page does not become more 
+     * expensive as the caller pages deeper into the list, but the total number of matching accounts 
+     * is not calculated. 
+     * @param study
+     *      retrieve participants in this study
+     * @param search
+     *      all the parameters necessary to perform a filtered search of user account summaries, including
+     *      the offsetKey returned as the nextPageOffsetKey of the prior page (null for the first page).
+     */
+    ForwardCursorPagedResourceList<AccountSummary> getAccountSummariesByCursor(Study study,
+            AccountSummarySearch search);
+    
     /**
      * For MailChimp, and other external systems, we need a way to get a healthCode for a given email.
      */
@@ -2,6 +2,7 @@ package org.sagebionetworks.bridge.dao;
 
 import javax.annotation.Nonnull;
 import java.util.List;
+import java.util.Set;
 
 import org.sagebionetworks.bridge.models.healthdata.HealthDataRecord;
 
@@ -36,6 +37,16 @@ public interface HealthDataDao {
      */
     HealthDataRecord getRecordById(@Nonnull String id);
 
+    /**
+     * DAO method used to fetch many health data records at once, using batch reads. IDs that don't match a record are
+     * ignored.
+     *
+     * @param ids
+     *         record IDs
+     * @return health data records that exist for these IDs, in no particular order
+     */
+    List<HealthDataRecord> getRecordsByIds(@Nonnull Set<String> ids);
+
     /**
      * DAO method used by worker apps to query all health data records uploaded for a specific date, generally used for
      * export.
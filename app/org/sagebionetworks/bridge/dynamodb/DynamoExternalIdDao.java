@@ -11,6 +11,10 @@ import static com.amazonaws.services.dynamodbv2.model.ComparisonOperator.NULL;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 import javax.annotation.Resource;
@@ -27,6 +31,7 @@ import org.sagebionetworks.bridge.BridgeUtils;
 import org.sagebionetworks.bridge.config.Config;
 import org.sagebionetworks.bridge.dao.ExternalIdDao;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
+import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
 import org.sagebionetworks.bridge.exceptions.EntityAlreadyExistsException;
 import org.sagebionetworks.bridge.models.ForwardCursorPagedResourceList;
 import org.sagebionetworks.bridge.models.ResourceList;
@@ -45,12 +50,15 @@ import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
 import com.amazonaws.services.dynamodbv2.model.ExpectedAttributeValue;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 
 @Component
 public class DynamoExternalIdDao implements ExternalIdDao {
     
     static final String PAGE_SIZE_ERROR = "pageSize must be from 1-"+API_MAXIMUM_PAGE_SIZE+" records";
     static final int PAGE_SCAN_LIMIT = 200;
+    /** DynamoDB's limit on the number of keys in one batch get. */
+    static final int BATCH_LOAD_SIZE = 100;
 
     private static final Logger LOG = LoggerFactory.getLogger(DynamoExternalIdDao.class);
 
@@ -61,6 +69,7 @@ public class DynamoExternalIdDao implements ExternalIdDao {
     private int addLimit;
     private RateLimiter getExternalIdRateLimiter;
     private DynamoDBMapper mapper;
+    private ExecutorService ddbQueryExecutorService;
 
     /** Gets the add limit and lock duration from Config. */
     @Autowired
@@ -79,6 +88,11 @@ public class DynamoExternalIdDao implements ExternalIdDao {
         this.mapper = mapper;
     }
 
+    @Resource(name = "ddbQueryExecutorService")
+    final void setDdbQueryExecutorService(ExecutorService ddbQueryExecutorService) {
+        this.ddbQueryExecutorService = ddbQueryExecutorService;
+    }
+
     @Override
     public ExternalIdentifier getExternalId(StudyIdentifier studyId, String externalId) {
         checkNotNull(studyId);
@@ -166,10 +180,13 @@ public class DynamoExternalIdDao implements ExternalIdDao {
         if (externalIds.size() > addLimit) {
             throw new BadRequestException("List of externalIds is too large; size=" + externalIds.size() + ", limit=" + addLimit);
         }
-        List<DynamoExternalIdentifier> idsToSave = externalIds.stream().map(id -> {
+        List<DynamoExternalIdentifier> keys = externalIds.stream().map(id -> {
             return new DynamoExternalIdentifier(studyId, id);
-        }).filter(externalId -> {
-            return mapper.load(externalId) == null;
+        }).collect(Collectors.toList());
+        
+        Set<String> existingIds = loadExistingIdentifiers(keys);
+        List<DynamoExternalIdentifier> idsToSave = keys.stream().filter(externalId -> {
+            return !existingIds.contains(externalId.getIdentifier());
         }).collect(Collectors.toList());
         
         if (!idsToSave.isEmpty()) {
@@ -234,6 +251,44 @@ public class DynamoExternalIdDao implements ExternalIdDao {
         }
     }
 
+    /**
+     * Find which of these identifiers already exist, using batch gets of up to BATCH_LOAD_SIZE keys. Batches are 
+     * loaded concurrently, but each one must acquire read capacity from the same rate limiter as the list call.
+     */
+    private Set<String> loadExistingIdentifiers(List<DynamoExternalIdentifier> keys) {
+        List<Future<Map<String, List<Object>>>> futures = Lists.newArrayList();
+        for (List<DynamoExternalIdentifier> batch : Lists.partition(keys, BATCH_LOAD_SIZE)) {
+            futures.add(ddbQueryExecutorService.submit(() -> {
+                // Eventually consistent reads of these small items use half a capacity unit each.
+                getExternalIdRateLimiter.acquire(Math.max(1, (batch.size() + 1) / 2));
+                return mapper.batchLoad(batch);
+            }));
+        }
+        Set<String> existingIds = Sets.newHashSet();
+        try {
+            for (Future<Map<String, List<Object>>> future : futures) {
+                for (List<Object> items : future.get().values()) {
+                    for (Object item : items) {
+                        existingIds.add(((DynamoExternalIdentifier) item).getIdentifier());
+                    }
+                }
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException)e.getCause();
+            }
+            throw new BridgeServiceException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BridgeServiceException(e);
+        } finally {
+            for (Future<Map<String, List<Object>>> future : futures) {
+                future.cancel(true);
+            }
+        }
+        return existingIds;
+    }
+
     /**
      * Get the count query (applies filters) and then sets an offset key and the limit to a page of records, 
      * plus one, to determine if there are records beyond the current page. 
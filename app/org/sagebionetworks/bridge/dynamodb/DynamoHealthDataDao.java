@@ -3,6 +3,8 @@ package org.sagebionetworks.bridge.dynamodb;
 import javax.annotation.Nonnull;
 import javax.annotation.Resource;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
@@ -13,6 +15,7 @@ import com.amazonaws.services.dynamodbv2.document.Item;
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.amazonaws.services.dynamodbv2.model.ComparisonOperator;
 import com.amazonaws.services.dynamodbv2.model.Condition;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 
 import org.sagebionetworks.bridge.BridgeConstants;
@@ -101,6 +104,30 @@ public class DynamoHealthDataDao implements HealthDataDao {
         return mapper.load(DynamoHealthDataRecord.class, id);
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public List<HealthDataRecord> getRecordsByIds(@Nonnull Set<String> ids) {
+        if (ids.isEmpty()) {
+            return ImmutableList.of();
+        }
+        List<Object> keysToLoad = Lists.newArrayListWithCapacity(ids.size());
+        for (String id : ids) {
+            DynamoHealthDataRecord key = new DynamoHealthDataRecord();
+            key.setId(id);
+            keysToLoad.add(key);
+        }
+        // The mapper splits the keys into batches of 100 and retries unprocessed keys.
+        Map<String, List<Object>> resultMap = mapper.batchLoad(keysToLoad);
+
+        List<HealthDataRecord> results = Lists.newArrayListWithCapacity(ids.size());
+        for (List<Object> list : resultMap.values()) {
+            for (Object oneResult : list) {
+                results.add((HealthDataRecord) oneResult);
+            }
+        }
+        return results;
+    }
+
     /** {@inheritDoc} */
     @Override
     public List<HealthDataRecord> getRecordsForUploadDate(@Nonnull String uploadDate) {
@@ -1,7 +1,6 @@
 package org.sagebionetworks.bridge.dynamodb;
 
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import javax.annotation.Nonnull;
@@ -17,6 +16,7 @@ import com.amazonaws.services.dynamodbv2.document.QueryOutcome;
 import com.amazonaws.services.dynamodbv2.document.RangeKeyCondition;
 import com.amazonaws.services.dynamodbv2.document.Table;
 import com.amazonaws.services.dynamodbv2.document.spec.QuerySpec;
+import com.amazonaws.services.dynamodbv2.model.Select;
 
 import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
 import org.sagebionetworks.bridge.json.BridgeObjectMapper;
@@ -97,7 +97,8 @@ public class DynamoIndexHelper {
     }
     
     /**
-     * Query via a secondary index to return the count of matching items in the table.
+     * Query via a secondary index to return the count of matching items in the table. DynamoDB counts the items 
+     * and returns only the count for each page of results, rather than the items themselves.
      *  
      * @param indexKeyName
      *         index key name to query on
@@ -109,12 +110,19 @@ public class DynamoIndexHelper {
      */
     public int queryKeyCount(@Nonnull String indexKeyName, @Nonnull Object indexKeyValue,
                     RangeKeyCondition rangeKeyCondition) {
+        QuerySpec spec = new QuerySpec().withHashKey(indexKeyName, indexKeyValue).withSelect(Select.COUNT);
+        if (rangeKeyCondition != null) {
+            spec.withRangeKeyCondition(rangeKeyCondition);
+        }
         int count = 0;
-        Iterable<Item> itemIter = queryHelper(indexKeyName, indexKeyValue, rangeKeyCondition);
-        for(Iterator<Item> i = itemIter.iterator(); i.hasNext(); i.next()) {
-            count++;
+        Page<Item,QueryOutcome> page = index.query(spec).firstPage();
+        while (true) {
+            count += page.getLowLevelResult().getQueryResult().getCount();
+            if (!page.hasNextPage()) {
+                return count;
+            }
+            page = page.nextPage();
         }
-        return count;
     }
     
     /**
@@ -9,6 +9,10 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import javax.annotation.Resource;
 
@@ -16,6 +20,7 @@ import org.sagebionetworks.bridge.BridgeConstants;
 import org.sagebionetworks.bridge.BridgeUtils;
 import org.sagebionetworks.bridge.dao.ScheduledActivityDao;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
+import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
 import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
 import org.sagebionetworks.bridge.models.ForwardCursorPagedResourceList;
 import org.sagebionetworks.bridge.models.ResourceList;
@@ -57,6 +62,8 @@ public class DynamoScheduledActivityDao implements ScheduledActivityDao {
     
     private DynamoIndexHelper referentIndex;
     
+    private ExecutorService ddbQueryExecutorService;
+    
     @Resource(name = "activityDdbMapper")
     final void setDdbMapper(DynamoDBMapper mapper) {
         this.mapper = mapper;
@@ -67,6 +74,48 @@ public class DynamoScheduledActivityDao implements ScheduledActivityDao {
         this.referentIndex = index;
     }
     
+    @Resource(name = "ddbQueryExecutorService")
+    final void setDdbQueryExecutorService(ExecutorService ddbQueryExecutorService) {
+        this.ddbQueryExecutorService = ddbQueryExecutorService;
+    }
+    
+    /** {@inheritDoc} */
+    @Override
+    public List<ScheduledActivity> getActivityHistoriesV2(String healthCode, Set<String> activityGuids,
+            DateTime scheduledOnStart, DateTime scheduledOnEnd, int pageSize) {
+        checkNotNull(activityGuids);
+        
+        List<Future<ForwardCursorPagedResourceList<ScheduledActivity>>> futures = Lists
+                .newArrayListWithCapacity(activityGuids.size());
+        for (String activityGuid : activityGuids) {
+            futures.add(ddbQueryExecutorService.submit(() -> getActivityHistoryV2(healthCode, activityGuid,
+                    scheduledOnStart, scheduledOnEnd, null, pageSize)));
+        }
+        List<ScheduledActivity> results = Lists.newArrayList();
+        try {
+            for (Future<ForwardCursorPagedResourceList<ScheduledActivity>> future : futures) {
+                ForwardCursorPagedResourceList<ScheduledActivity> list = future.get();
+                if (list != null) {
+                    results.addAll(list.getItems());
+                }
+            }
+        } catch (ExecutionException e) {
+            // Surface the DAO's own exceptions (e.g. BadRequestException for page size) unchanged.
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException)e.getCause();
+            }
+            throw new BridgeServiceException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BridgeServiceException(e);
+        } finally {
+            for (Future<ForwardCursorPagedResourceList<ScheduledActivity>> future : futures) {
+                future.cancel(true);
+            }
+        }
+        return results;
+    }
+    
     @Override
     public ForwardCursorPagedResourceList<ScheduledActivity> getActivityHistoryV2(String healthCode,
             String activityGuid, DateTime scheduledOnStart, DateTime scheduledOnEnd, String offsetKey, int pageSize) {
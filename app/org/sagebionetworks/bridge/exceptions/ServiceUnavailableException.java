@@ -3,12 +3,26 @@ package org.sagebionetworks.bridge.exceptions;
 @SuppressWarnings("serial")
 public class ServiceUnavailableException extends BridgeServiceException {
 
+    private final Integer retryAfterSeconds;
+    
     public ServiceUnavailableException(String message) {
         super(message, 503);
+        this.retryAfterSeconds = null;
+    }
+    
+    /** The number of seconds is returned to the client in a Retry-After header. */
+    public ServiceUnavailableException(String message, int retryAfterSeconds) {
+        super(message, 503);
+        this.retryAfterSeconds = retryAfterSeconds;
     }
     
     public ServiceUnavailableException(Exception e) {
         super(e, 503);
+        this.retryAfterSeconds = null;
+    }
+    
+    public Integer getRetryAfterSeconds() {
+        return retryAfterSeconds;
     }
     
 }
@@ -0,0 +1,121 @@
+package org.sagebionetworks.bridge.hibernate;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.security.spec.InvalidKeySpecException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import org.sagebionetworks.bridge.BridgeUtils;
+import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
+import org.sagebionetworks.bridge.exceptions.ServiceUnavailableException;
+import org.sagebionetworks.bridge.models.Metrics;
+import org.sagebionetworks.bridge.models.accounts.PasswordAlgorithm;
+
+import play.cache.Cache;
+
+/**
+ * Runs credential hashing (which is deliberately expensive for passwords) on a dedicated pool sized to the number of
+ * cores, rather than on the request thread that asked for it. The pool's queue is bounded; when it is full, the
+ * request fails immediately with a 503 so the client can retry later, rather than tying up request threads that
+ * other, cheaper calls need. The time spent waiting in the queue and hashing is added to the request's metrics.
+ */
+@Component
+public class CredentialHasher {
+    private static final Logger LOG = LoggerFactory.getLogger(CredentialHasher.class);
+
+    static final int RETRY_AFTER_SECONDS = 5;
+    static final String CAPACITY_ERROR = "The server is handling too many sign ins. Please try again later.";
+
+    private ExecutorService credentialHashingExecutor;
+
+    @Resource(name = "credentialHashingExecutor")
+    final void setCredentialHashingExecutor(ExecutorService credentialHashingExecutor) {
+        this.credentialHashingExecutor = credentialHashingExecutor;
+    }
+
+    /** Fails startup if the pepper for hashing server-generated tokens is missing or too short. */
+    @PostConstruct
+    void checkServerPepper() {
+        PasswordAlgorithm.checkServerPepper();
+    }
+
+    /** Check the plaintext against the hash, as with {@link PasswordAlgorithm#checkHash}. */
+    public boolean checkHash(PasswordAlgorithm algorithm, String hash, String plaintext)
+            throws InvalidKeySpecException, InvalidKeyException, NoSuchAlgorithmException {
+        checkNotNull(algorithm);
+        return execute(() -> algorithm.checkHash(hash, plaintext));
+    }
+
+    /** Hash the plaintext, as with {@link PasswordAlgorithm#generateHash}. */
+    public String generateHash(PasswordAlgorithm algorithm, String plaintext)
+            throws InvalidKeySpecException, InvalidKeyException, NoSuchAlgorithmException {
+        checkNotNull(algorithm);
+        return execute(() -> algorithm.generateHash(plaintext));
+    }
+
+    private <T> T execute(Callable<T> hashTask)
+            throws InvalidKeySpecException, InvalidKeyException, NoSuchAlgorithmException {
+        long submittedNanos = System.nanoTime();
+        AtomicLong startedNanos = new AtomicLong();
+        Future<T> future;
+        try {
+            future = credentialHashingExecutor.submit(() -> {
+                startedNanos.set(System.nanoTime());
+                return hashTask.call();
+            });
+        } catch (RejectedExecutionException ex) {
+            LOG.warn("Credential hashing queue is full, rejecting request " + BridgeUtils.getRequestId());
+            throw new ServiceUnavailableException(CAPACITY_ERROR, RETRY_AFTER_SECONDS);
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new BridgeServiceException(ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof InvalidKeySpecException) {
+                throw (InvalidKeySpecException) cause;
+            } else if (cause instanceof InvalidKeyException) {
+                throw (InvalidKeyException) cause;
+            } else if (cause instanceof NoSuchAlgorithmException) {
+                throw (NoSuchAlgorithmException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new BridgeServiceException(cause);
+        } finally {
+            long finishedNanos = System.nanoTime();
+            if (startedNanos.get() != 0L) {
+                recordMetrics(TimeUnit.NANOSECONDS.toMillis(startedNanos.get() - submittedNanos),
+                        TimeUnit.NANOSECONDS.toMillis(finishedNanos - startedNanos.get()));
+            }
+        }
+    }
+
+    // Metrics are only available for requests (not, for example, for worker tasks or unit tests).
+    private void recordMetrics(long queueMillis, long hashMillis) {
+        String requestId = BridgeUtils.getRequestId();
+        if (requestId != null) {
+            Metrics metrics = (Metrics) Cache.get(Metrics.getCacheKey(requestId));
+            if (metrics != null) {
+                metrics.addCredentialHashTime(queueMillis, hashMillis);
+            }
+        }
+    }
+}
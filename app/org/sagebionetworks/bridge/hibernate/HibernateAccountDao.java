@@ -28,8 +28,11 @@ import org.springframework.stereotype.Component;
 
 import org.sagebionetworks.bridge.BridgeUtils;
 import org.sagebionetworks.bridge.SecureTokenGenerator;
+import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.dao.AccountDao;
 import org.sagebionetworks.bridge.exceptions.AccountDisabledException;
+import org.sagebionetworks.bridge.exceptions.BadRequestException;
 import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
 import org.sagebionetworks.bridge.exceptions.ConcurrentModificationException;
 import org.sagebionetworks.bridge.exceptions.EntityAlreadyExistsException;
@@ -38,10 +41,12 @@ import org.sagebionetworks.bridge.exceptions.UnauthorizedException;
 import org.sagebionetworks.bridge.json.BridgeObjectMapper;
 import org.sagebionetworks.bridge.time.DateUtils;
 import org.sagebionetworks.bridge.models.AccountSummarySearch;
+import org.sagebionetworks.bridge.models.ForwardCursorPagedResourceList;
 import org.sagebionetworks.bridge.models.PagedResourceList;
 import org.sagebionetworks.bridge.models.ResourceList;
 import org.sagebionetworks.bridge.models.accounts.Account;
 import org.sagebionetworks.bridge.models.accounts.AccountId;
+import org.sagebionetworks.bridge.models.accounts.AccountRecordAttributes;
 import org.sagebionetworks.bridge.models.accounts.AccountStatus;
 import org.sagebionetworks.bridge.models.accounts.AccountSummary;
 import org.sagebionetworks.bridge.models.accounts.GenericAccount;
@@ -61,6 +66,8 @@ import org.sagebionetworks.bridge.services.AuthenticationService.ChannelType;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.google.common.base.Joiner;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 
@@ -72,13 +79,21 @@ public class HibernateAccountDao implements AccountDao {
 
     static final String ACCOUNT_SUMMARY_QUERY_PREFIX = "select new " + HibernateAccount.class.getCanonicalName() +
             "(createdOn, studyId, firstName, lastName, email, phone, externalId, id, status) ";
+    // Accounts are iterated in pages of this size, ordered by ID, so only one page is held in memory at a time.
+    static final int ACCOUNT_ITERATOR_PAGE_SIZE = 250;
     static final String EMAIL_QUERY = "from HibernateAccount where studyId=:studyId and email=:email";
     static final String HEALTH_CODE_QUERY = "from HibernateAccount where studyId=:studyId and healthCode=:healthCode";
     static final String PHONE_QUERY = "from HibernateAccount where studyId=:studyId and phone.number=:number and phone.regionCode=:regionCode";
     static final String EXTID_QUERY = "from HibernateAccount where studyId=:studyId and externalId=:externalId";
+    // One row per data group (or a single row with a null data group), without loading the rest of the account.
+    static final String RECORD_ATTRIBUTES_QUERY = "select account.sharingScope, account.externalId, dataGroup " +
+            "from HibernateAccount as account left join account.dataGroups as dataGroup " +
+            "where account.studyId=:studyId and account.healthCode=:healthCode";
     
     private HealthCodeService healthCodeService;
     private HibernateHelper hibernateHelper;
+    private CredentialHasher credentialHasher;
+    private CacheProvider cacheProvider;
 
     /** Health code service, because this DAO is expected to generate health codes for new accounts. */
     @Autowired
@@ -92,6 +107,18 @@ public class HibernateAccountDao implements AccountDao {
         this.hibernateHelper = hibernateHelper;
     }
 
+    /** Hashes and checks passwords and reauth tokens off of the request thread, with a limit on queued work. */
+    @Autowired
+    public final void setCredentialHasher(CredentialHasher credentialHasher) {
+        this.credentialHasher = credentialHasher;
+    }
+
+    /** Cache provider, used to tell servers holding an account's record attributes in memory that they changed. */
+    @Autowired
+    public final void setCacheProvider(CacheProvider cacheProvider) {
+        this.cacheProvider = cacheProvider;
+    }
+
     /**
      * Mark the email address as verified and enable the account if it is in the unverified state. 
      * This method assumes some logic has executed that proves the user has control of the email 
@@ -251,7 +278,10 @@ public class HibernateAccountDao implements AccountDao {
         String reauthToken = SecureTokenGenerator.INSTANCE.nextToken();
         account.setReauthToken(reauthToken);
         
-        PasswordAlgorithm passwordAlgorithm = PasswordAlgorithm.DEFAULT_PASSWORD_ALGORITHM;
+        // The token is random and generated by us, so it's hashed with a fast keyed hash rather than a slow password
+        // hash. Tokens hashed with older algorithms are still checked with the algorithm recorded for them, and are
+        // replaced by this hash on their next use.
+        PasswordAlgorithm passwordAlgorithm = PasswordAlgorithm.DEFAULT_TOKEN_ALGORITHM;
         String reauthTokenHash = hashCredential(passwordAlgorithm, "reauth token", reauthToken);
         hibernateAccount.setReauthTokenHash(reauthTokenHash);
         hibernateAccount.setReauthTokenAlgorithm(passwordAlgorithm);
@@ -362,6 +392,13 @@ public class HibernateAccountDao implements AccountDao {
 
         // Update
         hibernateHelper.update(accountToUpdate);
+
+        // Sharing scope, external ID and data groups may have changed (this includes consent withdrawal), so
+        // replace the stamp of the record attributes that upload validation holds in memory.
+        if (persistedAccount.getHealthCode() != null) {
+            cacheProvider.updateStamp(CacheKey.accountRecordAttributes(persistedAccount.getStudyId(),
+                    persistedAccount.getHealthCode()));
+        }
     }
     
     /** {@inheritDoc} */
@@ -389,6 +426,27 @@ public class HibernateAccountDao implements AccountDao {
         }
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public AccountRecordAttributes getAccountRecordAttributes(StudyIdentifier studyId, String healthCode) {
+        Map<String,Object> parameters = new HashMap<>();
+        parameters.put("studyId", studyId.getIdentifier());
+        parameters.put("healthCode", healthCode);
+        List<Object[]> rows = hibernateHelper.queryGet(RECORD_ATTRIBUTES_QUERY, parameters, null, null,
+                Object[].class);
+        if (rows.isEmpty()) {
+            return null;
+        }
+        Set<String> dataGroups = new HashSet<>();
+        for (Object[] row : rows) {
+            if (row[2] != null) {
+                dataGroups.add((String) row[2]);
+            }
+        }
+        Object[] firstRow = rows.get(0);
+        return new AccountRecordAttributes((SharingScope) firstRow[0], (String) firstRow[1], dataGroups);
+    }
+
     private HibernateAccount fetchHibernateAccount(SignIn signIn) {
         // Fetch account
         HibernateAccount hibernateAccount = getHibernateAccount(signIn.getAccountId());
@@ -406,7 +464,7 @@ public class HibernateAccountDao implements AccountDao {
             throw new EntityNotFoundException(Account.class);
         }
         try {
-            if (!algorithm.checkHash(hash, credentialValue)) {
+            if (!credentialHasher.checkHash(algorithm, hash, credentialValue)) {
                 // To prevent enumeration attacks, if the credential doesn't match, throw 404 account not found.
                 throw new EntityNotFoundException(Account.class);
             }
@@ -418,7 +476,7 @@ public class HibernateAccountDao implements AccountDao {
     private String hashCredential(PasswordAlgorithm algorithm, String type, String value) {
         String hash = null;
         try {
-            hash = algorithm.generateHash(value);
+            hash = credentialHasher.generateHash(algorithm, value);
         } catch (InvalidKeyException | InvalidKeySpecException | NoSuchAlgorithmException ex) {
             throw new BridgeServiceException("Error creating "+type+": " + ex.getMessage(), ex);
         }
@@ -484,19 +542,68 @@ public class HibernateAccountDao implements AccountDao {
     /** {@inheritDoc} */
     @Override
     public Iterator<AccountSummary> getAllAccounts() {
-        List<HibernateAccount> hibernateAccountList = hibernateHelper.queryGet("from HibernateAccount", null, null,
-                null, HibernateAccount.class);
-        return hibernateAccountList.stream().map(HibernateAccountDao::unmarshallAccountSummary).iterator();
+        return new AccountSummaryIterator(null);
     }
 
     /** {@inheritDoc} */
     @Override
     public Iterator<AccountSummary> getStudyAccounts(Study study) {
-        Map<String,Object> parameters = new HashMap<>();
-        parameters.put("studyId", study.getIdentifier());
-        List<HibernateAccount> hibernateAccountList = hibernateHelper.queryGet(
-                "from HibernateAccount where studyId=:studyId", parameters, null, null, HibernateAccount.class);
-        return hibernateAccountList.stream().map(HibernateAccountDao::unmarshallAccountSummary).iterator();
+        checkNotNull(study);
+        return new AccountSummaryIterator(study.getIdentifier());
+    }
+
+    /**
+     * Iterates over account summaries (in one study, or in all studies if studyId is null), loading them a page at a
+     * time. Pages are keyed on the last account ID seen rather than an offset, so each page is an index range scan,
+     * and each page is loaded in its own session, so nothing accumulates in memory as the iteration proceeds. Only
+     * the columns needed for a summary are selected.
+     */
+    private class AccountSummaryIterator extends AbstractIterator<AccountSummary> {
+        private final String studyId;
+        private Iterator<HibernateAccount> page = Collections.emptyIterator();
+        private String lastId;
+        private boolean lastPage;
+
+        AccountSummaryIterator(String studyId) {
+            this.studyId = studyId;
+        }
+
+        @Override
+        protected AccountSummary computeNext() {
+            if (!page.hasNext()) {
+                if (lastPage) {
+                    return endOfData();
+                }
+                List<HibernateAccount> accounts = loadNextPage();
+                lastPage = accounts.size() < ACCOUNT_ITERATOR_PAGE_SIZE;
+                if (accounts.isEmpty()) {
+                    return endOfData();
+                }
+                lastId = Iterables.getLast(accounts).getId();
+                page = accounts.iterator();
+            }
+            return unmarshallAccountSummary(page.next());
+        }
+
+        private List<HibernateAccount> loadNextPage() {
+            Map<String, Object> parameters = new HashMap<>();
+            List<String> clauses = new ArrayList<>();
+            if (studyId != null) {
+                clauses.add("studyId=:studyId");
+                parameters.put("studyId", studyId);
+            }
+            if (lastId != null) {
+                clauses.add("id > :lastId");
+                parameters.put("lastId", lastId);
+            }
+            StringBuilder query = new StringBuilder(ACCOUNT_SUMMARY_QUERY_PREFIX).append("from HibernateAccount");
+            if (!clauses.isEmpty()) {
+                query.append(" where ").append(Joiner.on(" and ").join(clauses));
+            }
+            query.append(" order by id");
+            return hibernateHelper.queryGet(query.toString(), parameters, null, ACCOUNT_ITERATOR_PAGE_SIZE,
+                    HibernateAccount.class);
+        }
     }
 
     /** {@inheritDoc} */
@@ -532,6 +639,82 @@ public class HibernateAccountDao implements AccountDao {
                 .withRequestParam(ResourceList.NONE_OF_GROUPS, search.getNoneOfGroups());
     }
     
+    /** {@inheritDoc} */
+    @Override
+    public ForwardCursorPagedResourceList<AccountSummary> getAccountSummariesByCursor(Study study,
+            AccountSummarySearch search) {
+        Map<String,Object> parameters = new HashMap<>();
+        StringBuilder query = new StringBuilder(ACCOUNT_SUMMARY_QUERY_PREFIX);
+        query.append(assembleSearchQuery(study.getIdentifier(), search, parameters));
+
+        // Seek past the last account of the prior page, rather than counting rows up to an offset, so every page
+        // costs the same no matter how deep it is. Accounts without a createdOn sort first.
+        if (search.getOffsetKey() != null) {
+            OffsetKey offsetKey = parseOffsetKey(search.getOffsetKey());
+            if (offsetKey.createdOn == null) {
+                query.append(" and (createdOn is not null or id > :lastId)");
+            } else {
+                query.append(" and (createdOn > :lastCreatedOn or (createdOn = :lastCreatedOn and id > :lastId))");
+                parameters.put("lastCreatedOn", offsetKey.createdOn);
+            }
+            parameters.put("lastId", offsetKey.id);
+        }
+        query.append(" order by createdOn, id");
+
+        // Retrieve one more record than requested to learn if there's another page.
+        List<HibernateAccount> hibernateAccountList = hibernateHelper.queryGet(query.toString(), parameters, null,
+                search.getPageSize() + 1, HibernateAccount.class);
+
+        String nextPageOffsetKey = null;
+        if (hibernateAccountList.size() > search.getPageSize()) {
+            hibernateAccountList = hibernateAccountList.subList(0, search.getPageSize());
+            HibernateAccount last = Iterables.getLast(hibernateAccountList);
+            String lastCreatedOn = (last.getCreatedOn() == null) ? "" : last.getCreatedOn().toString();
+            nextPageOffsetKey = lastCreatedOn + ":" + last.getId();
+        }
+        List<AccountSummary> accountSummaryList = hibernateAccountList.stream()
+                .map(HibernateAccountDao::unmarshallAccountSummary).collect(Collectors.toList());
+
+        return new ForwardCursorPagedResourceList<>(accountSummaryList, nextPageOffsetKey)
+                .withRequestParam(ResourceList.OFFSET_KEY, search.getOffsetKey())
+                .withRequestParam(ResourceList.PAGE_SIZE, search.getPageSize())
+                .withRequestParam(ResourceList.EMAIL_FILTER, search.getEmailFilter())
+                .withRequestParam(ResourceList.PHONE_FILTER, search.getPhoneFilter())
+                .withRequestParam(ResourceList.START_TIME, search.getStartTime())
+                .withRequestParam(ResourceList.END_TIME, search.getEndTime())
+                .withRequestParam(ResourceList.LANGUAGE, search.getLanguage())
+                .withRequestParam(ResourceList.ALL_OF_GROUPS, search.getAllOfGroups())
+                .withRequestParam(ResourceList.NONE_OF_GROUPS, search.getNoneOfGroups());
+    }
+
+    // The offset key is the createdOn timestamp and ID of the last account on the prior page. The timestamp is empty
+    // if that account has no createdOn.
+    private static OffsetKey parseOffsetKey(String offsetKey) {
+        String[] parts = offsetKey.split(":", 2);
+        if (parts.length != 2 || !StringUtils.isNumeric(parts[0]) || StringUtils.isBlank(parts[1])) {
+            throw new BadRequestException("Invalid offsetKey: " + offsetKey);
+        }
+        Long createdOn = null;
+        if (!parts[0].isEmpty()) {
+            try {
+                createdOn = Long.parseLong(parts[0]);
+            } catch (NumberFormatException ex) {
+                throw new BadRequestException("Invalid offsetKey: " + offsetKey);
+            }
+        }
+        return new OffsetKey(createdOn, parts[1]);
+    }
+
+    private static final class OffsetKey {
+        private final Long createdOn;
+        private final String id;
+
+        private OffsetKey(Long createdOn, String id) {
+            this.createdOn = createdOn;
+            this.id = id;
+        }
+    }
+
     protected String assembleSearchQuery(String studyId, AccountSummarySearch search, Map<String,Object> parameters) {
         StringBuilder queryBuilder = new StringBuilder();
 
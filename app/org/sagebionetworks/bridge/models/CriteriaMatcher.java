@@ -0,0 +1,148 @@
+package org.sagebionetworks.bridge.models;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+
+/**
+ * A list of entities whose criteria have been compiled ahead of time, so that the entities matching a
+ * request can be found without re-reading the criteria for every entity. The data groups named by any
+ * of the criteria are assigned bit positions; each entity's required and prohibited groups become bit
+ * masks, and a user's data groups are converted to a mask once per match. Matching gives the same
+ * results as CriteriaUtils.matchCriteria(). Instances are immutable and can be shared between threads.
+ */
+public final class CriteriaMatcher<T> {
+
+    private final Map<String, Integer> groupIndex;
+    private final int wordCount;
+    private final List<Entry> entries;
+
+    public CriteriaMatcher(List<T> items, Function<T, Criteria> criteriaFunction) {
+        checkNotNull(items);
+        checkNotNull(criteriaFunction);
+
+        Map<String, Integer> index = Maps.newHashMap();
+        for (T item : items) {
+            Criteria criteria = criteriaFunction.apply(item);
+            indexGroups(index, criteria.getAllOfGroups());
+            indexGroups(index, criteria.getNoneOfGroups());
+        }
+        this.groupIndex = ImmutableMap.copyOf(index);
+        this.wordCount = (index.size() + 63) / 64;
+
+        ImmutableList.Builder<Entry> builder = ImmutableList.builder();
+        for (T item : items) {
+            builder.add(new Entry(item, criteriaFunction.apply(item)));
+        }
+        this.entries = builder.build();
+    }
+
+    /**
+     * Return the items whose criteria match the context, in the order the items were supplied.
+     */
+    public List<T> match(CriteriaContext context) {
+        checkNotNull(context);
+        checkNotNull(context.getLanguages());
+        checkNotNull(context.getClientInfo());
+        checkNotNull(context.getUserDataGroups());
+
+        Integer appVersion = context.getClientInfo().getAppVersion();
+        String appOs = context.getClientInfo().getOsName();
+        long[] userGroups = toMask(context.getUserDataGroups());
+
+        ImmutableList.Builder<T> builder = ImmutableList.builder();
+        for (Entry entry : entries) {
+            if (entry.matches(appVersion, appOs, userGroups, context.getLanguages())) {
+                builder.add(entry.item);
+            }
+        }
+        return builder.build();
+    }
+
+    /** The number of items held by this matcher. */
+    public int size() {
+        return entries.size();
+    }
+
+    private static void indexGroups(Map<String, Integer> index, Set<String> groups) {
+        checkNotNull(groups);
+        for (String group : groups) {
+            if (!index.containsKey(group)) {
+                index.put(group, index.size());
+            }
+        }
+    }
+
+    // Groups that no criteria refer to have no bit, and can't affect the result of a match.
+    private long[] toMask(Set<String> groups) {
+        long[] mask = new long[wordCount];
+        for (String group : groups) {
+            Integer bit = groupIndex.get(group);
+            if (bit != null) {
+                mask[bit / 64] |= (1L << (bit % 64));
+            }
+        }
+        return mask;
+    }
+
+    private final class Entry {
+        private final T item;
+        private final long[] allOfGroups;
+        private final long[] noneOfGroups;
+        private final Map<String, Integer> minAppVersions;
+        private final Map<String, Integer> maxAppVersions;
+        private final String language;
+
+        private Entry(T item, Criteria criteria) {
+            this.item = item;
+            this.allOfGroups = toMask(criteria.getAllOfGroups());
+            this.noneOfGroups = toMask(criteria.getNoneOfGroups());
+
+            Map<String, Integer> min = Maps.newHashMap();
+            Map<String, Integer> max = Maps.newHashMap();
+            for (String osName : criteria.getAppVersionOperatingSystems()) {
+                if (criteria.getMinAppVersion(osName) != null) {
+                    min.put(osName, criteria.getMinAppVersion(osName));
+                }
+                if (criteria.getMaxAppVersion(osName) != null) {
+                    max.put(osName, criteria.getMaxAppVersion(osName));
+                }
+            }
+            this.minAppVersions = ImmutableMap.copyOf(min);
+            this.maxAppVersions = ImmutableMap.copyOf(max);
+            this.language = criteria.getLanguage();
+        }
+
+        private boolean matches(Integer appVersion, String appOs, long[] userGroups, Set<String> languages) {
+            if (appVersion != null && appOs != null) {
+                Integer minAppVersion = minAppVersions.get(appOs);
+                Integer maxAppVersion = maxAppVersions.get(appOs);
+                if ((minAppVersion != null && appVersion < minAppVersion) ||
+                    (maxAppVersion != null && appVersion > maxAppVersion)) {
+                    return false;
+                }
+            }
+            for (int i=0; i < wordCount; i++) {
+                if ((allOfGroups[i] & ~userGroups[i]) != 0L || (noneOfGroups[i] & userGroups[i]) != 0L) {
+                    return false;
+                }
+            }
+            if (language != null) {
+                for (String prefLang : languages) {
+                    if (language.equalsIgnoreCase(prefLang)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            return true;
+        }
+    }
+}
@@ -120,6 +120,15 @@ public class Metrics {
         json.put("upload_size", uploadSize);
     }
 
+    /**
+     * Time spent waiting for credential hashing, and hashing credentials, during this request. Adds to the time from
+     * any earlier hashing in the same request.
+     */
+    public void addCredentialHashTime(long queueMillis, long hashMillis) {
+        json.put("credential_hash_queue_millis", json.path("credential_hash_queue_millis").asLong() + queueMillis);
+        json.put("credential_hash_millis", json.path("credential_hash_millis").asLong() + hashMillis);
+    }
+
     private void put(final String field, final String value) {
         if (isNotBlank(value)) {
             json.put(field, value);
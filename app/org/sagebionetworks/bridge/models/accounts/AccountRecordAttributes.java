@@ -0,0 +1,33 @@
+package org.sagebionetworks.bridge.models.accounts;
+
+import java.util.Set;
+
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * The attributes of an account that are copied onto each health data record the participant uploads: the sharing
+ * scope, external ID, and data groups. This can be loaded without loading the rest of the account.
+ */
+public final class AccountRecordAttributes {
+    private final SharingScope sharingScope;
+    private final String externalId;
+    private final Set<String> dataGroups;
+
+    public AccountRecordAttributes(SharingScope sharingScope, String externalId, Set<String> dataGroups) {
+        this.sharingScope = sharingScope;
+        this.externalId = externalId;
+        this.dataGroups = (dataGroups == null) ? ImmutableSet.of() : ImmutableSet.copyOf(dataGroups);
+    }
+
+    public SharingScope getSharingScope() {
+        return sharingScope;
+    }
+
+    public String getExternalId() {
+        return externalId;
+    }
+
+    public Set<String> getDataGroups() {
+        return dataGroups;
+    }
+}
@@ -1,6 +1,8 @@
 package org.sagebionetworks.bridge.models.accounts;
 
+import java.nio.charset.StandardCharsets;
 import java.security.InvalidKeyException;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.spec.InvalidKeySpecException;
 import java.security.spec.KeySpec;
@@ -13,6 +15,7 @@ import org.apache.commons.codec.binary.Base64;
 import org.bouncycastle.crypto.generators.OpenBSDBCrypt;
 
 import org.sagebionetworks.bridge.BridgeUtils;
+import org.sagebionetworks.bridge.config.BridgeConfigFactory;
 
 /** Password hashing algorithms. Encapsulates methods for generating the hash and checking the hash. */
 public enum PasswordAlgorithm {
@@ -112,10 +115,77 @@ public enum PasswordAlgorithm {
             byte[] hashedPassword = keyFactory.generateSecret(keySpec).getEncoded();
             return Base64.encodeBase64String(hashedPassword);
         }
+    },
+
+    /**
+     * HMAC SHA 256 keyed with a server-side secret (a "pepper"), for high-entropy credentials generated by the server,
+     * such as reauthentication tokens. Random tokens gain nothing from the salt and the deliberately expensive key
+     * stretching of the other algorithms, so this is cheap to generate and check. Do not use for passwords.
+     */
+    SERVER_HMAC_SHA_256 {
+        private static final String PREFIX = "$serverhmac1$";
+
+        /** {@inheritDoc */
+        @Override
+        public boolean checkHash(String hash, String plaintext) throws InvalidKeyException, NoSuchAlgorithmException {
+            // Hash is in the form "$serverhmac1$[base64-encoded hash]"
+            if (!hash.startsWith(PREFIX)) {
+                return false;
+            }
+            byte[] hashedValue = Base64.decodeBase64(hash.substring(PREFIX.length()));
+            return MessageDigest.isEqual(hashedValue, hmac(plaintext));
+        }
+
+        /** {@inheritDoc */
+        @Override
+        public String generateHash(String plaintext) throws InvalidKeyException, NoSuchAlgorithmException {
+            return PREFIX + Base64.encodeBase64String(hmac(plaintext));
+        }
+
+        private byte[] hmac(String plaintext) throws InvalidKeyException, NoSuchAlgorithmException {
+            Mac hmacSha256 = Mac.getInstance("HmacSHA256");
+            hmacSha256.init(new SecretKeySpec(ServerPepper.PEPPER, "HmacSHA256"));
+            return hmacSha256.doFinal(plaintext.getBytes(StandardCharsets.UTF_8));
+        }
     };
 
     public static final PasswordAlgorithm DEFAULT_PASSWORD_ALGORITHM = PBKDF2_HMAC_SHA_256;
 
+    /** Algorithm for hashing server-generated tokens, such as the reauthentication token. */
+    public static final PasswordAlgorithm DEFAULT_TOKEN_ALGORITHM = SERVER_HMAC_SHA_256;
+
+    static final String CONFIG_KEY_TOKEN_PEPPER = "bridge.token.pepper";
+
+    /** Minimum length of the decoded pepper. HMAC SHA 256 keys shorter than the hash add no strength. */
+    static final int MIN_PEPPER_BYTES = 32;
+
+    // Loaded on first use, so the configuration is only required by the servers that use SERVER_HMAC_SHA_256.
+    private static class ServerPepper {
+        private static final byte[] PEPPER = decodePepper(
+                BridgeConfigFactory.getConfig().getProperty(CONFIG_KEY_TOKEN_PEPPER));
+    }
+
+    /**
+     * Checks that the server-side pepper used by {@link #SERVER_HMAC_SHA_256} is configured and long enough. Call
+     * this at startup, so a bad configuration stops the server rather than failing every token hash.
+     */
+    public static void checkServerPepper() {
+        decodePepper(BridgeConfigFactory.getConfig().getProperty(CONFIG_KEY_TOKEN_PEPPER));
+    }
+
+    // Package-scoped for unit tests.
+    static byte[] decodePepper(String base64Pepper) {
+        if (base64Pepper == null || base64Pepper.trim().isEmpty()) {
+            throw new IllegalStateException(CONFIG_KEY_TOKEN_PEPPER + " is not configured");
+        }
+        byte[] pepper = Base64.decodeBase64(base64Pepper);
+        if (pepper.length < MIN_PEPPER_BYTES) {
+            throw new IllegalStateException(CONFIG_KEY_TOKEN_PEPPER + " must be a base64-encoded key of at least "
+                    + MIN_PEPPER_BYTES + " bytes");
+        }
+        return pepper;
+    }
+
     /** Given a hash with metadata (such as salt, cost, iterations), check whether the given plaintext matches. */
     public abstract boolean checkHash(String hash, String plaintext) throws InvalidKeySpecException,
             InvalidKeyException, NoSuchAlgorithmException;
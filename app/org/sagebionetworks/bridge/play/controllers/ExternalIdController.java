@@ -3,6 +3,7 @@ package org.sagebionetworks.bridge.play.controllers;
 import static org.sagebionetworks.bridge.Roles.DEVELOPER;
 import static org.sagebionetworks.bridge.Roles.RESEARCHER;
 
+import java.io.StringReader;
 import java.util.List;
 
 import com.fasterxml.jackson.core.type.TypeReference;
@@ -26,6 +27,9 @@ import org.sagebionetworks.bridge.services.ExternalIdService;
 public class ExternalIdController extends BaseController {
     
     private static final TypeReference<List<String>> EXTERNAL_ID_TYPE_REF = new TypeReference<List<String>>() {};
+    
+    /** Bodies of imports are read as text (one ID per line), up to this size. */
+    static final int MAX_IMPORT_BODY_LENGTH = 10 * 1024 * 1024;
 
     private ExternalIdService externalIdService;
     
@@ -57,6 +61,24 @@ public class ExternalIdController extends BaseController {
         return createdResult("External identifiers added.");
     }
     
+    /**
+     * Import a CSV body of external IDs, one per line (see ExternalIdService.importExternalIds()). Unlike 
+     * addExternalIds(), the number of IDs is not limited by the add limit.
+     */
+    @BodyParser.Of(value = BodyParser.TolerantText.class, maxLength = MAX_IMPORT_BODY_LENGTH)
+    public Result importExternalIds() throws Exception {
+        UserSession session = getAuthenticatedSession(DEVELOPER);
+        Study study = studyService.getStudy(session.getStudyIdentifier());
+        
+        String body = request().body().asText();
+        if (body == null) {
+            throw new BadRequestException("No external IDs provided in request body.");
+        }
+        int count = externalIdService.importExternalIds(study, new StringReader(body));
+        
+        return createdResult(count + " external identifiers imported.");
+    }
+    
     public Result deleteExternalIds() throws Exception {
         UserSession session = getAuthenticatedSession(DEVELOPER);
         Study study = studyService.getStudy(session.getStudyIdentifier());
@@ -192,6 +192,17 @@ public class ParticipantController extends BaseController {
         return okResult(page);
     }
     
+    public Result searchForAccountSummariesByCursor() throws Exception {
+        UserSession session = getAuthenticatedSession(RESEARCHER);
+        Study study = studyService.getStudy(session.getStudyIdentifier());
+        
+        AccountSummarySearch search = parseJson(request(), AccountSummarySearch.class);
+        ForwardCursorPagedResourceList<AccountSummary> page = participantService.getAccountSummariesByCursor(study,
+                search);
+        
+        return okResult(page);
+    }
+    
     @Deprecated
     public Result getParticipantsForWorker(String studyId, String offsetByString, String pageSizeString,
             String emailFilter, String phoneFilter, String startDateString, String endDateString,
@@ -213,6 +224,17 @@ public class ParticipantController extends BaseController {
         return okResult(page);
     }
     
+    public Result searchForAccountSummariesByCursorForWorker(String studyId) throws Exception {
+        getAuthenticatedSession(WORKER);
+        Study study = studyService.getStudy(studyId);
+        
+        AccountSummarySearch search = parseJson(request(), AccountSummarySearch.class);
+        ForwardCursorPagedResourceList<AccountSummary> page = participantService.getAccountSummariesByCursor(study,
+                search);
+        
+        return okResult(page);
+    }
+    
     public Result createParticipant() throws Exception {
         UserSession session = getAuthenticatedSession(RESEARCHER);
         Study study = studyService.getStudy(session.getStudyIdentifier());
@@ -9,6 +9,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
 import org.sagebionetworks.bridge.exceptions.ConsentRequiredException;
 import org.sagebionetworks.bridge.exceptions.NoStackTraceException;
+import org.sagebionetworks.bridge.exceptions.ServiceUnavailableException;
 import org.sagebionetworks.bridge.json.BridgeObjectMapper;
 import org.sagebionetworks.bridge.models.accounts.UserSessionInfo;
 import org.slf4j.Logger;
@@ -35,7 +36,7 @@ public class ExceptionInterceptor implements MethodInterceptor {
     // to be exposed, so these are removed;
     private static final Set<String> UNEXPOSED_FIELD_NAMES = Sets.newHashSet("stackTrace", "localizedMessage",
             "suppressed", "cause", "errorType", "errorMessage", "retryable", "requestId", "serviceName", "httpHeaders",
-            "errorCode", "rawResponse", "rawResponseContent");
+            "errorCode", "rawResponse", "rawResponseContent", "retryAfterSeconds");
     
     @Override
     public Object invoke(MethodInvocation method) throws Throwable {
@@ -67,6 +68,12 @@ public class ExceptionInterceptor implements MethodInterceptor {
             JsonNode info = UserSessionInfo.toJSON(cre.getUserSession());
             return Results.status(cre.getStatusCode(), info);
         }
+        if (throwable instanceof ServiceUnavailableException) {
+            Integer retryAfterSeconds = ((ServiceUnavailableException)throwable).getRetryAfterSeconds();
+            if (retryAfterSeconds != null) {
+                Http.Context.current().response().setHeader("Retry-After", retryAfterSeconds.toString());
+            }
+        }
         ObjectNode node = BridgeObjectMapper.get().valueToTree(throwable);
         final int status = getStatusCode(throwable);
         final String message = getMessage(throwable, status);
@@ -10,12 +10,15 @@ import java.util.stream.Collectors;
 
 import org.joda.time.DateTime;
 import org.sagebionetworks.bridge.BridgeUtils;
+import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.CacheProvider;
+import org.sagebionetworks.bridge.cache.VersionedLocalCache;
 import org.sagebionetworks.bridge.dao.AppConfigDao;
 import org.sagebionetworks.bridge.dynamodb.DynamoAppConfig;
 import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
 import org.sagebionetworks.bridge.time.DateUtils;
 import org.sagebionetworks.bridge.models.CriteriaContext;
-import org.sagebionetworks.bridge.models.CriteriaUtils;
+import org.sagebionetworks.bridge.models.CriteriaMatcher;
 import org.sagebionetworks.bridge.models.GuidCreatedOnVersionHolder;
 import org.sagebionetworks.bridge.models.GuidCreatedOnVersionHolderImpl;
 import org.sagebionetworks.bridge.models.appconfig.AppConfig;
@@ -23,7 +26,6 @@ import org.sagebionetworks.bridge.models.schedules.SurveyReference;
 import org.sagebionetworks.bridge.models.studies.Study;
 import org.sagebionetworks.bridge.models.studies.StudyIdentifier;
 import org.sagebionetworks.bridge.models.surveys.Survey;
-import org.sagebionetworks.bridge.util.BridgeCollectors;
 import org.sagebionetworks.bridge.validators.AppConfigValidator;
 import org.sagebionetworks.bridge.validators.Validate;
 import org.slf4j.Logger;
@@ -36,12 +38,16 @@ import org.springframework.validation.Validator;
 public class AppConfigService {
     private static final Logger LOG = LoggerFactory.getLogger(AppConfigService.class);
     
+    static final int APP_CONFIG_CACHE_MAX_STUDIES = 500;
+    
     private AppConfigDao appConfigDao;
     
     private StudyService studyService;
     
     private SurveyService surveyService;
     
+    private VersionedLocalCache<CriteriaMatcher<AppConfig>> appConfigCache;
+    
     @Autowired
     final void setAppConfigDao(AppConfigDao appConfigDao) {
         this.appConfigDao = appConfigDao;
@@ -57,6 +63,15 @@ public class AppConfigService {
         this.surveyService = surveyService;
     }   
     
+    /**
+     * App configs are matched on every request for activities. The app configs of each study are held in 
+     * memory, with their criteria compiled for matching, and are replaced whenever an app config changes.
+     */
+    @Autowired
+    final void setCacheProvider(CacheProvider cacheProvider) {
+        this.appConfigCache = new VersionedLocalCache<>(cacheProvider, APP_CONFIG_CACHE_MAX_STUDIES);
+    }
+    
     // In order to mock this value;
     protected long getCurrentTimestamp() {
         return DateUtils.getCurrentMillisFromEpoch(); 
@@ -83,12 +98,7 @@ public class AppConfigService {
     public AppConfig getAppConfigForUser(CriteriaContext context, boolean throwException) {
         checkNotNull(context);
 
-        List<AppConfig> appConfigs = getAppConfigs(context.getStudyIdentifier(), false);
-
-        List<AppConfig> matches = appConfigs.stream().filter(oneAppConfig -> {
-            return CriteriaUtils.matchCriteria(context, oneAppConfig.getCriteria());
-        }).sorted(Comparator.comparingLong(AppConfig::getCreatedOn))
-          .collect(BridgeCollectors.toImmutableList());
+        List<AppConfig> matches = getAppConfigMatcher(context.getStudyIdentifier()).match(context);
 
         // Should have matched one and only one app config.
         if (matches.isEmpty()) {
@@ -101,13 +111,45 @@ public class AppConfigService {
             // If there is more than one match, return the one created first, but log an error
             LOG.error("CriteriaContext matches more than one app config: criteriaContext=" + context + ", appConfigs="+matches);
         }
-        AppConfig matched = matches.get(0);
-        // Resolve survey references to pick up survey identifiers
+        // Resolve survey references to pick up survey identifiers. The matched app config is shared 
+        // between requests, so this is done on a copy.
+        AppConfig matched = copyOf(matches.get(0));
         matched.setSurveyReferences(matched.getSurveyReferences().stream()
             .map(surveyReference -> resolveSurvey(surveyReference)).collect(Collectors.toList()));
         return matched;
     }
 
+    private CriteriaMatcher<AppConfig> getAppConfigMatcher(StudyIdentifier studyId) {
+        return appConfigCache.get(CacheKey.appConfigStamp(studyId), () -> loadAppConfigMatcher(studyId));
+    }
+    
+    // Sorted so that when more than one app config matches, the one created first is returned.
+    private CriteriaMatcher<AppConfig> loadAppConfigMatcher(StudyIdentifier studyId) {
+        List<AppConfig> appConfigs = getAppConfigs(studyId, false).stream()
+                .sorted(Comparator.comparingLong(AppConfig::getCreatedOn)).collect(Collectors.toList());
+        return new CriteriaMatcher<>(appConfigs, AppConfig::getCriteria);
+    }
+    
+    private AppConfig copyOf(AppConfig appConfig) {
+        AppConfig copy = AppConfig.create();
+        copy.setStudyId(appConfig.getStudyId());
+        copy.setLabel(appConfig.getLabel());
+        copy.setCreatedOn(appConfig.getCreatedOn());
+        copy.setModifiedOn(appConfig.getModifiedOn());
+        copy.setGuid(appConfig.getGuid());
+        copy.setCriteria(appConfig.getCriteria());
+        copy.setClientData(appConfig.getClientData());
+        copy.setSurveyReferences(appConfig.getSurveyReferences());
+        copy.setSchemaReferences(appConfig.getSchemaReferences());
+        copy.setVersion(appConfig.getVersion());
+        copy.setDeleted(appConfig.isDeleted());
+        return copy;
+    }
+    
+    private void invalidateAppConfigCache(StudyIdentifier studyId) {
+        appConfigCache.invalidate(CacheKey.appConfigStamp(studyId));
+    }
+
     /**
      * Survey and schema references in an AppConfig are "hard" references... they must reference a
      * specific version or createdOn timestamp of a version, and we validate this when creating/
@@ -153,6 +195,7 @@ public class AppConfigService {
         
         appConfigDao.createAppConfig(newAppConfig);
         newAppConfig.setVersion(newAppConfig.getVersion());
+        invalidateAppConfigCache(studyId);
         return newAppConfig;
     }
     
@@ -171,7 +214,9 @@ public class AppConfigService {
         appConfig.setCreatedOn(persistedConfig.getCreatedOn());
         appConfig.setModifiedOn(getCurrentTimestamp());
         
-        return appConfigDao.updateAppConfig(appConfig);
+        AppConfig updated = appConfigDao.updateAppConfig(appConfig);
+        invalidateAppConfigCache(studyId);
+        return updated;
     }
     
     public void deleteAppConfig(StudyIdentifier studyId, String guid) {
@@ -179,6 +224,7 @@ public class AppConfigService {
         checkArgument(isNotBlank(guid));
         
         appConfigDao.deleteAppConfig(studyId, guid);
+        invalidateAppConfigCache(studyId);
     }
     
     public void deleteAppConfigPermanently(StudyIdentifier studyId, String guid) {
@@ -186,5 +232,6 @@ public class AppConfigService {
         checkArgument(isNotBlank(guid));
         
         appConfigDao.deleteAppConfigPermanently(studyId, guid);
+        invalidateAppConfigCache(studyId);
     }
 }
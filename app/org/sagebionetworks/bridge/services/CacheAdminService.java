@@ -6,40 +6,63 @@ import static org.apache.commons.lang3.StringUtils.isNotBlank;
 import java.util.Set;
 
 import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
 
 import com.google.common.collect.Sets;
 
 @Component
 public class CacheAdminService {
     
+    // Number of keys Redis examines for each SCAN call. Each call is short, so other clients aren't blocked.
+    static final int SCAN_COUNT = 1000;
+    
+    // Suffix of the keys of cached studies (see CacheKey.study())
+    private static final String STUDY_KEY_SUFFIX = ":study";
+    
     private JedisPool jedisPool;
     
+    private CacheProvider cacheProvider;
+    
     @Autowired
     public void setJedisPool(JedisPool jedisPool) {
         this.jedisPool = jedisPool;
     }
+    
+    @Autowired
+    public void setCacheProvider(CacheProvider cacheProvider) {
+        this.cacheProvider = cacheProvider;
+    }
 
     /**
-     * Returns all keys in the cache that are not user session keys.
+     * Returns all keys in the cache that are not user session keys. The keyspace is read incrementally with SCAN 
+     * rather than with KEYS, which would block Redis for every other client until the entire keyspace (including 
+     * all the sessions) had been read.
      * @return
      */
     public Set<String> listItems() {
+        ScanParams params = new ScanParams().count(SCAN_COUNT);
+        Set<String> set = Sets.newHashSet();
         try (Jedis jedis = jedisPool.getResource()) {
-            Set<String> allKeys = jedis.keys("*");
-            Set<String> set = Sets.newHashSet();
-            for (String key : allKeys) {
-                if (CacheKey.isPublic(key)) {
-                    set.add(key);
+            String cursor = ScanParams.SCAN_POINTER_START;
+            do {
+                ScanResult<String> result = jedis.scan(cursor, params);
+                for (String key : result.getResult()) {
+                    if (CacheKey.isPublic(key)) {
+                        set.add(key);
+                    }
                 }
-            }
-            return set;
+                cursor = result.getStringCursor();
+            } while (!ScanParams.SCAN_POINTER_START.equals(cursor));
         }
+        return set;
     }
 
     /**
@@ -58,6 +81,11 @@ public class CacheAdminService {
         if (removed == null || removed == 0) {
             throw new BridgeServiceException("Item could not be removed from cache: does key '"+cacheKey+"' exist?"); 
         }
+        // Studies are also held in memory on each server. Removing the study through the cache provider replaces 
+        // its stamp, so those copies are discarded as well.
+        if (cacheKey.endsWith(STUDY_KEY_SUFFIX)) {
+            cacheProvider.removeStudy(cacheKey.substring(0, cacheKey.length() - STUDY_KEY_SUFFIX.length()));
+        }
     }
     
 }
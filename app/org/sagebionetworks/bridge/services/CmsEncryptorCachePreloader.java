@@ -0,0 +1,83 @@
+package org.sagebionetworks.bridge.services;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.sagebionetworks.bridge.async.AsyncHandler;
+import org.sagebionetworks.bridge.crypto.CmsEncryptor;
+import org.sagebionetworks.bridge.models.studies.Study;
+
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+/**
+ * Loads the CMS encryptors of all active studies into the encryptor cache when the server starts, so the first
+ * uploads of each study don't wait while the encryptor is read from S3. Loading happens in the background and
+ * doesn't delay startup. After that, the cache's statistics are logged periodically, so the hit rate and load times
+ * can be watched while the server runs.
+ */
+public class CmsEncryptorCachePreloader {
+    private static final Logger LOG = LoggerFactory.getLogger(CmsEncryptorCachePreloader.class);
+
+    private final LoadingCache<String, CmsEncryptor> cmsEncryptorCache;
+    private final StudyService studyService;
+    private final ExecutorService executorService;
+    private final ScheduledExecutorService statsExecutorService;
+    private final int statsIntervalMinutes;
+
+    public CmsEncryptorCachePreloader(LoadingCache<String, CmsEncryptor> cmsEncryptorCache,
+            StudyService studyService, ExecutorService executorService,
+            ScheduledExecutorService statsExecutorService, int statsIntervalMinutes) {
+        this.cmsEncryptorCache = checkNotNull(cmsEncryptorCache);
+        this.studyService = checkNotNull(studyService);
+        this.executorService = checkNotNull(executorService);
+        this.statsExecutorService = checkNotNull(statsExecutorService);
+        this.statsIntervalMinutes = statsIntervalMinutes;
+    }
+
+    /** Start loading encryptors in the background, and schedule the periodic stats log. */
+    public void start() {
+        executorService.execute(new AsyncHandler() {
+            @Override
+            protected void handle() {
+                preload();
+            }
+        });
+        statsExecutorService.scheduleAtFixedRate(new AsyncHandler() {
+            @Override
+            protected void handle() {
+                logStats();
+            }
+        }, statsIntervalMinutes, statsIntervalMinutes, TimeUnit.MINUTES);
+    }
+
+    /** Load the encryptor of each active study. A study whose encryptor can't be loaded is logged and skipped. */
+    void preload() {
+        int count = 0;
+        for (Study study : studyService.getStudies()) {
+            if (!study.isActive()) {
+                continue;
+            }
+            try {
+                cmsEncryptorCache.get(study.getIdentifier());
+                count++;
+            } catch (ExecutionException | UncheckedExecutionException ex) {
+                LOG.warn("Could not preload CMS encryptor for study " + study.getIdentifier() + ": "
+                        + ex.getMessage());
+            }
+        }
+        LOG.info("Preloaded " + count + " CMS encryptors, cache stats: " + cmsEncryptorCache.stats());
+    }
+
+    /** Log the cache's statistics, which are cumulative since startup. */
+    void logStats() {
+        LOG.info("CMS encryptor cache size: " + cmsEncryptorCache.size() + ", stats: " + cmsEncryptorCache.stats());
+    }
+}
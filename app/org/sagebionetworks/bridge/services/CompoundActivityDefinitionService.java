@@ -25,6 +25,8 @@ public class CompoundActivityDefinitionService {
     private SchedulePlanService schedulePlanService;
     
     private CompoundActivityDefinitionDao compoundActivityDefDao;
+    
+    private ResolvedReferenceCache resolvedReferenceCache;
 
     @Autowired
     public final void setSchedulePlanService(SchedulePlanService schedulePlanService) {
@@ -36,6 +38,12 @@ public class CompoundActivityDefinitionService {
     public final void setCompoundActivityDefDao(CompoundActivityDefinitionDao compoundActivityDefDao) {
         this.compoundActivityDefDao = compoundActivityDefDao;
     }
+    
+    /** Cache of resolved references, which must be cleared when a definition changes. Autowired by Spring. */
+    @Autowired
+    public final void setResolvedReferenceCache(ResolvedReferenceCache resolvedReferenceCache) {
+        this.resolvedReferenceCache = resolvedReferenceCache;
+    }
 
     /** Creates a compound activity definition. */
     public CompoundActivityDefinition createCompoundActivityDefinition(StudyIdentifier studyId,
@@ -47,7 +55,10 @@ public class CompoundActivityDefinitionService {
         Validate.entityThrowingException(CompoundActivityDefinitionValidator.INSTANCE, compoundActivityDefinition);
 
         // call through to dao
-        return compoundActivityDefDao.createCompoundActivityDefinition(compoundActivityDefinition);
+        CompoundActivityDefinition created = compoundActivityDefDao.createCompoundActivityDefinition(
+                compoundActivityDefinition);
+        invalidateResolvedReferences(studyId);
+        return created;
     }
 
     /** Deletes a compound activity definition. */
@@ -60,6 +71,7 @@ public class CompoundActivityDefinitionService {
         
         // call through to dao
         compoundActivityDefDao.deleteCompoundActivityDefinition(studyId, taskId);
+        invalidateResolvedReferences(studyId);
     }
 
     /** Deletes all compound activity definitions in the specified study. Used when we physically delete a study. */
@@ -68,6 +80,7 @@ public class CompoundActivityDefinitionService {
 
         // call through to dao
         compoundActivityDefDao.deleteAllCompoundActivityDefinitionsInStudy(studyId);
+        invalidateResolvedReferences(studyId);
     }
 
     /** List all compound activity definitions in a study. */
@@ -106,7 +119,15 @@ public class CompoundActivityDefinitionService {
         Validate.entityThrowingException(CompoundActivityDefinitionValidator.INSTANCE, compoundActivityDefinition);
 
         // call through to dao
-        return compoundActivityDefDao.updateCompoundActivityDefinition(compoundActivityDefinition);
+        CompoundActivityDefinition updated = compoundActivityDefDao.updateCompoundActivityDefinition(
+                compoundActivityDefinition);
+        invalidateResolvedReferences(studyId);
+        return updated;
+    }
+    
+    // Scheduled activities may have been resolved using the previous definition.
+    private void invalidateResolvedReferences(StudyIdentifier studyId) {
+        resolvedReferenceCache.invalidate(studyId);
     }
     
     private void checkConstraintViolations(StudyIdentifier studyId, String taskId) {
@@ -13,6 +13,11 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.annotation.Resource;
 
@@ -20,6 +25,9 @@ import org.apache.commons.io.IOUtils;
 import org.joda.time.DateTime;
 import org.sagebionetworks.bridge.BridgeConstants;
 import org.sagebionetworks.bridge.SecureTokenGenerator;
+import org.sagebionetworks.bridge.async.AsyncHandler;
+import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.config.BridgeConfigFactory;
 import org.sagebionetworks.bridge.dao.AccountDao;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
@@ -36,6 +44,7 @@ import org.sagebionetworks.bridge.models.accounts.StudyParticipant;
 import org.sagebionetworks.bridge.models.accounts.Withdrawal;
 import org.sagebionetworks.bridge.models.studies.MimeType;
 import org.sagebionetworks.bridge.models.studies.Study;
+import org.sagebionetworks.bridge.models.studies.StudyIdentifier;
 import org.sagebionetworks.bridge.models.subpopulations.ConsentSignature;
 import org.sagebionetworks.bridge.models.subpopulations.StudyConsentView;
 import org.sagebionetworks.bridge.models.subpopulations.Subpopulation;
@@ -50,9 +59,13 @@ import org.sagebionetworks.bridge.validators.ConsentSignatureValidator;
 import org.sagebionetworks.bridge.validators.Validate;
 
 import com.amazonaws.HttpMethod;
+import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.SetMultimap;
 import com.google.common.collect.Sets;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
@@ -63,7 +76,11 @@ import org.springframework.stereotype.Component;
  */
 @Component
 public class ConsentService {
-    
+    private static final Logger LOG = LoggerFactory.getLogger(ConsentService.class);
+
+    static final int CONSENT_DELIVERY_MAX_ATTEMPTS = 3;
+    static final long CONSENT_DELIVERY_RETRY_DELAY_MILLIS = 2000L;
+
     protected static final String USERSIGNED_CONSENTS_BUCKET = BridgeConfigFactory.getConfig().get("usersigned.consents.bucket");
     private AccountDao accountDao;
     private SendMailService sendMailService;
@@ -74,6 +91,9 @@ public class ConsentService {
     private String xmlTemplateWithSignatureBlock;
     private S3Helper s3Helper;
     private UrlShortenerService urlShortenerService;
+    private ExecutorService consentDeliveryExecutorService;
+    private ScheduledExecutorService consentRetryExecutorService;
+    private CacheProvider cacheProvider;
     
     @Value("classpath:study-defaults/consent-page.xhtml")
     final void setConsentTemplate(org.springframework.core.io.Resource resource) throws IOException {
@@ -111,6 +131,18 @@ public class ConsentService {
     final void setUrlShortenerService(UrlShortenerService urlShortenerService) {
         this.urlShortenerService = urlShortenerService;
     }
+    @Resource(name = "consentDeliveryExecutorService")
+    final void setConsentDeliveryExecutorService(ExecutorService consentDeliveryExecutorService) {
+        this.consentDeliveryExecutorService = consentDeliveryExecutorService;
+    }
+    @Resource(name = "consentRetryExecutorService")
+    final void setConsentRetryExecutorService(ScheduledExecutorService consentRetryExecutorService) {
+        this.consentRetryExecutorService = consentRetryExecutorService;
+    }
+    @Autowired
+    final void setCacheProvider(CacheProvider cacheProvider) {
+        this.cacheProvider = cacheProvider;
+    }
     
     /**
      * Get the user's active consent signature (a signature that has not been withdrawn).
@@ -136,7 +168,8 @@ public class ConsentService {
      * Consent this user to research. User will be updated to reflect consent. This method will ensure the 
      * user is not already consented to this subpopulation, but it does not validate that the user is a 
      * validate member of this subpopulation (that is checked in the controller). Will optionally send 
-     * a signed copy of the consent to the user via email or phone (whichever is verified).
+     * a signed copy of the consent to the user via email or phone (whichever is verified). The signed 
+     * copy is rendered and sent in the background, after this method returns.
      * 
      * @param sendSignedConsent
      *      if true, send the consent document to the user's email address
@@ -202,20 +235,30 @@ public class ConsentService {
                 recipientEmails.add(participant.getEmail());    
             }
             addStudyConsentRecipients(study, recipientEmails);
-            if (!recipientEmails.isEmpty()) {
-                BasicEmailProvider.Builder consentEmailBuilder = new BasicEmailProvider.Builder()
-                        .withStudy(study)
-                        .withEmailTemplate(study.getSignedConsentTemplate())
-                        .withBinaryAttachment("consent.pdf", MimeType.PDF, consentPdf.getBytes())
-                        .withType(EmailType.SIGN_CONSENT);
-                for (String recipientEmail : recipientEmails) {
-                    consentEmailBuilder.withRecipientEmail(recipientEmail);
-                }
-                sendMailService.sendEmail(consentEmailBuilder.build());
-            }
             // Otherwise if there's no verified email but there is a phone and we're not suppressing, send it there
-            if (!subpop.isAutoSendConsentSuppressed() && !verifiedEmail && verifiedPhone) {
-                sendConsentViaSMS(study, subpop, participant, consentPdf);    
+            boolean sendViaSMS = (!subpop.isAutoSendConsentSuppressed() && !verifiedEmail && verifiedPhone);
+            
+            if (!recipientEmails.isEmpty() || sendViaSMS) {
+                int channelCount = (!recipientEmails.isEmpty() ? 1 : 0) + (sendViaSMS ? 1 : 0);
+                PendingConsentDelivery pending = new PendingConsentDelivery(study.getStudyIdentifier(),
+                        participant.getId(), subpopGuid, channelCount);
+                queueConsentDelivery(pending, new ConsentDeliveryHandler(consentPdf, pdfBytes -> {
+                    if (!recipientEmails.isEmpty()) {
+                        BasicEmailProvider.Builder consentEmailBuilder = new BasicEmailProvider.Builder()
+                                .withStudy(study)
+                                .withEmailTemplate(study.getSignedConsentTemplate())
+                                .withBinaryAttachment("consent.pdf", MimeType.PDF, pdfBytes)
+                                .withType(EmailType.SIGN_CONSENT);
+                        for (String recipientEmail : recipientEmails) {
+                            consentEmailBuilder.withRecipientEmail(recipientEmail);
+                        }
+                        BasicEmailProvider provider = consentEmailBuilder.build();
+                        deliverWithRetries(() -> sendMailService.sendEmail(provider), pending);
+                    }
+                    if (sendViaSMS) {
+                        deliverWithRetries(() -> sendConsentViaSMS(study, participant, pdfBytes), pending);
+                    }
+                }));
             }
         }
     }
@@ -333,7 +376,9 @@ public class ConsentService {
 
     /**
      * Resend the participant's signed consent agreement via the user's email address or their phone number. 
-     * It is an error to call this method if no channel exists to send the consent to the user.
+     * It is an error to call this method if no channel exists to send the consent to the user. The consent
+     * is rendered and sent in the background, after this method returns. This is also how consents returned by
+     * {@link #getUndeliveredConsents} are recovered.
      */
     public void resendConsentAgreement(Study study, SubpopulationGuid subpopGuid, StudyParticipant participant) {
         checkNotNull(study);
@@ -353,28 +398,102 @@ public class ConsentService {
         ConsentPdf consentPdf = new ConsentPdf(study, participant, consentSignature, sharingScope, studyConsentDocument,
                 xmlTemplateWithSignatureBlock);
         
+        PendingConsentDelivery pending = new PendingConsentDelivery(study.getStudyIdentifier(), participant.getId(),
+                subpopGuid, 1);
         if (verifiedEmail) {
-            BasicEmailProvider provider = new BasicEmailProvider.Builder()
-                    .withStudy(study)
-                    .withEmailTemplate(study.getSignedConsentTemplate())
-                    .withBinaryAttachment("consent.pdf", MimeType.PDF, consentPdf.getBytes())
-                    .withRecipientEmail(participant.getEmail())
-                    .withType(EmailType.RESEND_CONSENT).build();
-            sendMailService.sendEmail(provider);
+            queueConsentDelivery(pending, new ConsentDeliveryHandler(consentPdf, pdfBytes -> {
+                BasicEmailProvider provider = new BasicEmailProvider.Builder()
+                        .withStudy(study)
+                        .withEmailTemplate(study.getSignedConsentTemplate())
+                        .withBinaryAttachment("consent.pdf", MimeType.PDF, pdfBytes)
+                        .withRecipientEmail(participant.getEmail())
+                        .withType(EmailType.RESEND_CONSENT).build();
+                deliverWithRetries(() -> sendMailService.sendEmail(provider), pending);
+            }));
         } else if (verifiedPhone) {
-            sendConsentViaSMS(study, subpop, participant, consentPdf);
+            queueConsentDelivery(pending, new ConsentDeliveryHandler(consentPdf,
+                    pdfBytes -> deliverWithRetries(() -> sendConsentViaSMS(study, participant, pdfBytes), pending)));
         } else {
             throw new BadRequestException("Participant does not have a valid email address or phone number");
         }
     }
     
-    private void sendConsentViaSMS(Study study, Subpopulation subpop, StudyParticipant participant,
-            ConsentPdf consentPdf) {
+    /**
+     * Get the signed consents in a study that were queued for delivery but haven't been delivered, because they 
+     * failed every attempt, were rejected by a full delivery queue, or were lost when a server stopped. Returns 
+     * subpopulation GUIDs keyed by user ID. Each can be sent again with {@link #resendConsentAgreement}, which 
+     * removes it from this list once it is delivered.
+     */
+    public SetMultimap<String, SubpopulationGuid> getUndeliveredConsents(StudyIdentifier studyId) {
+        checkNotNull(studyId);
+        
+        SetMultimap<String, SubpopulationGuid> undelivered = HashMultimap.create();
+        for (String member : cacheProvider.getSetMembers(CacheKey.undeliveredConsents(studyId))) {
+            int index = member.indexOf(':');
+            undelivered.put(member.substring(0, index), SubpopulationGuid.create(member.substring(index + 1)));
+        }
+        return undelivered;
+    }
+    
+    /**
+     * Records the consent as undelivered, then queues the handler that renders and delivers it. The record is 
+     * removed once every channel has been delivered, so it survives failures, rejections and restarts. If the 
+     * delivery queue is full, the consent is left undelivered rather than failing the request.
+     */
+    private void queueConsentDelivery(PendingConsentDelivery pending, ConsentDeliveryHandler handler) {
+        try {
+            cacheProvider.addToSet(pending.getSetKey(), pending.getMember());
+        } catch (BridgeServiceException e) {
+            LOG.warn("Could not record pending consent delivery " + pending.getMember() + ": " + e.getMessage());
+        }
+        try {
+            consentDeliveryExecutorService.execute(handler);
+        } catch (RejectedExecutionException e) {
+            LOG.error("Consent delivery queue is full, signed consent " + pending.getMember()
+                    + " was not sent and is recorded as undelivered");
+        }
+    }
+    
+    /**
+     * Calls the delivery, scheduling a retry if it fails. Each retry waits twice as long as the one before it. 
+     * Retries are scheduled on their own executor, so no delivery thread is held while waiting. If the last 
+     * attempt fails, the consent stays recorded as undelivered, so it can be found and resent.
+     */
+    void deliverWithRetries(Runnable delivery, PendingConsentDelivery pending) {
+        deliverWithRetries(delivery, pending, 1, CONSENT_DELIVERY_RETRY_DELAY_MILLIS);
+    }
+    
+    private void deliverWithRetries(Runnable delivery, PendingConsentDelivery pending, int attempt,
+            long delayMillis) {
+        try {
+            delivery.run();
+        } catch (RuntimeException e) {
+            if (attempt >= CONSENT_DELIVERY_MAX_ATTEMPTS) {
+                LOG.error("Signed consent delivery " + pending.getMember() + " failed after " + attempt
+                        + " attempts, recorded as undelivered: " + e.getMessage(), e);
+                return;
+            }
+            LOG.warn("Signed consent delivery failed (attempt " + attempt + "), retrying: " + e.getMessage());
+            consentRetryExecutorService.schedule(
+                    new ConsentRetryHandler(delivery, pending, attempt + 1, delayMillis * 2), delayMillis,
+                    TimeUnit.MILLISECONDS);
+            return;
+        }
+        if (pending.channelDelivered()) {
+            try {
+                cacheProvider.removeFromSet(pending.getSetKey(), pending.getMember());
+            } catch (BridgeServiceException e) {
+                LOG.warn("Could not clear delivered consent " + pending.getMember() + ": " + e.getMessage());
+            }
+        }
+    }
+    
+    private void sendConsentViaSMS(Study study, StudyParticipant participant, byte[] pdfBytes) {
         String shortUrl;
         try {
             String fileName = getSignedConsentUrl();
             DateTime expiresOn = getDownloadExpiration();
-            s3Helper.writeBytesToS3(USERSIGNED_CONSENTS_BUCKET, fileName, consentPdf.getBytes());
+            s3Helper.writeBytesToS3(USERSIGNED_CONSENTS_BUCKET, fileName, pdfBytes);
             URL url = s3Helper.generatePresignedUrl(USERSIGNED_CONSENTS_BUCKET, fileName, expiresOn, HttpMethod.GET);
             shortUrl = urlShortenerService.shortenUrl(url.toString(), SIGNED_CONSENT_DOWNLOAD_EXPIRE_IN_SECONDS);
         } catch(IOException e) {
@@ -429,4 +548,76 @@ public class ConsentService {
 
         return withdrewConsent;
     }
+
+    /** Delivers the rendered PDF of a signed consent. */
+    @FunctionalInterface
+    interface ConsentDelivery {
+        void deliver(byte[] pdfBytes);
+    }
+    
+    /**
+     * Async handler that renders a signed consent to PDF (which is slow) once, then delivers it by email and/or SMS. 
+     * This keeps the PDF layout out of the consent request. Package-scoped for unit tests.
+     */
+    static class ConsentDeliveryHandler extends AsyncHandler {
+        private final ConsentPdf consentPdf;
+        private final ConsentDelivery delivery;
+        
+        ConsentDeliveryHandler(ConsentPdf consentPdf, ConsentDelivery delivery) {
+            this.consentPdf = checkNotNull(consentPdf);
+            this.delivery = checkNotNull(delivery);
+        }
+        
+        @Override
+        protected void handle() {
+            delivery.deliver(consentPdf.getBytes());
+        }
+    }
+    
+    /**
+     * A signed consent waiting to be delivered on one or more channels (email and/or SMS). Package-scoped for unit 
+     * tests.
+     */
+    static class PendingConsentDelivery {
+        private final CacheKey setKey;
+        private final String member;
+        private final AtomicInteger remainingChannels;
+        
+        PendingConsentDelivery(StudyIdentifier studyId, String userId, SubpopulationGuid subpopGuid,
+                int channelCount) {
+            this.setKey = CacheKey.undeliveredConsents(studyId);
+            this.member = userId + ":" + subpopGuid.getGuid();
+            this.remainingChannels = new AtomicInteger(channelCount);
+        }
+        CacheKey getSetKey() {
+            return setKey;
+        }
+        String getMember() {
+            return member;
+        }
+        /** Records one channel as delivered. Returns true when this was the last one. */
+        boolean channelDelivered() {
+            return remainingChannels.decrementAndGet() == 0;
+        }
+    }
+    
+    /** Async handler for a scheduled retry of a failed consent delivery. */
+    private class ConsentRetryHandler extends AsyncHandler {
+        private final Runnable delivery;
+        private final PendingConsentDelivery pending;
+        private final int attempt;
+        private final long nextDelayMillis;
+        
+        ConsentRetryHandler(Runnable delivery, PendingConsentDelivery pending, int attempt, long nextDelayMillis) {
+            this.delivery = delivery;
+            this.pending = pending;
+            this.attempt = attempt;
+            this.nextDelayMillis = nextDelayMillis;
+        }
+        
+        @Override
+        protected void handle() {
+            deliverWithRetries(delivery, pending, attempt, nextDelayMillis);
+        }
+    }
 }
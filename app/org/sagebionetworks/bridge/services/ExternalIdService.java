@@ -4,8 +4,13 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
 import java.util.List;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
@@ -13,6 +18,8 @@ import org.sagebionetworks.bridge.BridgeConstants;
 import org.sagebionetworks.bridge.config.Config;
 import org.sagebionetworks.bridge.dao.ExternalIdDao;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
+import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
+import org.sagebionetworks.bridge.exceptions.InvalidEntityException;
 import org.sagebionetworks.bridge.models.ForwardCursorPagedResourceList;
 import org.sagebionetworks.bridge.models.accounts.ExternalIdentifier;
 import org.sagebionetworks.bridge.models.accounts.ExternalIdentifierInfo;
@@ -21,6 +28,11 @@ import org.sagebionetworks.bridge.models.studies.StudyIdentifier;
 import org.sagebionetworks.bridge.validators.ExternalIdsValidator;
 import org.sagebionetworks.bridge.validators.Validate;
 
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.google.common.collect.Lists;
+
 /**
  * Service for managing external IDs. These methods can be called whether or not strict validation of IDs is enabled. 
  * If it's enabled, reservation and assignment will work as expected, otherwise these silently do nothing. The identifier 
@@ -28,9 +40,19 @@ import org.sagebionetworks.bridge.validators.Validate;
  */
 @Component
 public class ExternalIdService {
+    private static final Logger LOG = LoggerFactory.getLogger(ExternalIdService.class);
+    
+    /** Optional header of the first column of an import file. */
+    static final String IMPORT_HEADER = "externalId";
+    
+    /** Reads one CSV record as an array of column values. */
+    private static final ObjectReader CSV_RECORD_READER = new CsvMapper().enable(CsvParser.Feature.TRIM_SPACES)
+            .readerFor(String[].class);
     
     private ExternalIdDao externalIdDao;
     
+    private int addLimit;
+    
     private ExternalIdsValidator validator;
     
     @Autowired
@@ -40,7 +62,8 @@ public class ExternalIdService {
     
     @Autowired
     final void setConfig(Config config) {
-        validator = new ExternalIdsValidator(config.getInt(ExternalIdDao.CONFIG_KEY_ADD_LIMIT));
+        addLimit = config.getInt(ExternalIdDao.CONFIG_KEY_ADD_LIMIT);
+        validator = new ExternalIdsValidator(addLimit);
     }
     
     public ExternalIdentifier getExternalId(StudyIdentifier studyId, String externalId) {
@@ -69,6 +92,81 @@ public class ExternalIdService {
         externalIdDao.addExternalIds(study.getStudyIdentifier(), externalIdentifiers);
     }
     
+    /**
+     * Import external IDs from a CSV body with one ID per line. Only the first column is used, and it can be quoted 
+     * (so a file of JSON strings, one per line, can also be imported). If the first column of the first line is 
+     * "externalId", that line is a header and is skipped. Blank lines are skipped. IDs are validated and saved in 
+     * chunks of the add limit, so there is no limit on the total number of IDs. If a line is invalid, the chunks 
+     * before it have already been saved, and the error reports how many IDs were imported. Importing the same body 
+     * again is safe because existing IDs are skipped.
+     * 
+     * @return the number of IDs imported
+     */
+    public int importExternalIds(Study study, Reader reader) {
+        checkNotNull(study);
+        checkNotNull(reader);
+        
+        int count = 0;
+        int lineNumber = 0;
+        int chunkFirstLineNumber = 0;
+        List<String> chunk = Lists.newArrayListWithCapacity(addLimit);
+        try (BufferedReader lineReader = new BufferedReader(reader)) {
+            String line;
+            while ((line = lineReader.readLine()) != null) {
+                lineNumber++;
+                String externalId = parseImportLine(line, lineNumber, count);
+                if (externalId == null || (count == 0 && chunk.isEmpty() && IMPORT_HEADER.equals(externalId))) {
+                    continue;
+                }
+                if (chunk.isEmpty()) {
+                    chunkFirstLineNumber = lineNumber;
+                }
+                chunk.add(externalId);
+                if (chunk.size() == addLimit) {
+                    count += importChunk(study, chunk, chunkFirstLineNumber, lineNumber, count);
+                    chunk.clear();
+                }
+            }
+        } catch (IOException e) {
+            throw new BridgeServiceException(e);
+        }
+        if (!chunk.isEmpty()) {
+            count += importChunk(study, chunk, chunkFirstLineNumber, lineNumber, count);
+        }
+        if (count == 0) {
+            throw new BadRequestException("No external IDs provided in request body.");
+        }
+        return count;
+    }
+    
+    private int importChunk(Study study, List<String> chunk, int firstLineNumber, int lastLineNumber,
+            int importedSoFar) {
+        try {
+            // Copy the chunk, because the caller reuses the list.
+            addExternalIds(study, Lists.newArrayList(chunk));
+        } catch (InvalidEntityException e) {
+            throw new BadRequestException("Invalid external IDs on lines " + firstLineNumber + "-" + lastLineNumber
+                    + " (" + importedSoFar + " external IDs before these lines were imported): " + e.getMessage());
+        }
+        LOG.info("Imported " + (importedSoFar + chunk.size()) + " external IDs for study " + study.getIdentifier());
+        return chunk.size();
+    }
+    
+    /** Returns the external ID in the first column of the line, or null if the line is blank. */
+    private static String parseImportLine(String line, int lineNumber, int importedSoFar) {
+        if (line.trim().isEmpty()) {
+            return null;
+        }
+        String[] columns;
+        try {
+            columns = CSV_RECORD_READER.readValue(line);
+        } catch (IOException e) {
+            throw new BadRequestException("Line " + lineNumber + " is not valid CSV (" + importedSoFar
+                    + " external IDs before this line were imported): " + e.getMessage());
+        }
+        return (columns.length == 0 || columns[0].isEmpty()) ? null : columns[0];
+    }
+    
     public void assignExternalId(Study study, String externalIdentifier, String healthCode) {
         checkNotNull(study);
         checkNotNull(healthCode);
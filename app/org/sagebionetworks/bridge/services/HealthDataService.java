@@ -3,6 +3,7 @@ package org.sagebionetworks.bridge.services;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -344,6 +345,23 @@ public class HealthDataService {
         return healthDataDao.getRecordById(id);
     }
 
+    /**
+     * Gets the health data records with the given record IDs, using batch reads. IDs that don't match a record are
+     * ignored.
+     *
+     * @param ids
+     *         record IDs
+     * @return health data records, in no particular order
+     */
+    public List<HealthDataRecord> getRecordsByIds(Set<String> ids) {
+        if (ids == null) {
+            throw new BadRequestException(String.format(Validate.CANNOT_BE_NULL, "ids"));
+        }
+
+        // call through to DAO
+        return healthDataDao.getRecordsByIds(ids);
+    }
+
     /**
      * Returns a list of all health data records with the given upload date. THis method is generally called by
      * worker apps as part of data export.
@@ -4,6 +4,11 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
 import javax.annotation.Resource;
@@ -16,6 +21,7 @@ import org.springframework.stereotype.Component;
 import org.sagebionetworks.bridge.dao.NotificationRegistrationDao;
 import org.sagebionetworks.bridge.dao.NotificationTopicDao;
 import org.sagebionetworks.bridge.dao.TopicSubscriptionDao;
+import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
 import org.sagebionetworks.bridge.models.notifications.NotificationMessage;
 import org.sagebionetworks.bridge.models.notifications.NotificationRegistration;
 import org.sagebionetworks.bridge.models.notifications.SubscriptionStatus;
@@ -38,6 +44,9 @@ public class NotificationTopicService {
 
     private static final Logger LOG = LoggerFactory.getLogger(NotificationTopicService.class);
     
+    /** Time allowed for all the subscription changes of one request to complete. */
+    static final long SUBSCRIBE_TIMEOUT_MILLIS = 10000L;
+    
     private NotificationRegistrationDao registrationDao;
     
     private NotificationTopicDao topicDao;
@@ -46,6 +55,8 @@ public class NotificationTopicService {
     
     private AmazonSNSClient snsClient;
     
+    private ExecutorService snsExecutorService;
+    
     @Autowired
     final void setNotificationRegistrationDao(NotificationRegistrationDao registrationDao) {
         this.registrationDao = registrationDao;
@@ -66,6 +77,11 @@ public class NotificationTopicService {
         this.snsClient = snsClient;
     }
     
+    @Resource(name = "snsExecutorService")
+    final void setSnsExecutorService(ExecutorService snsExecutorService) {
+        this.snsExecutorService = snsExecutorService;
+    }
+    
     public List<NotificationTopic> listTopics(StudyIdentifier studyId) {
         checkNotNull(studyId);
         
@@ -154,24 +170,55 @@ public class NotificationTopicService {
         Set<String> subscribedTopicGuids = cleanupSubscriptions(registration);
         
         List<NotificationTopic> topics = topicDao.listTopics(studyId);
-        List<SubscriptionStatus> statuses = Lists.newArrayListWithCapacity(topics.size());
         
+        // Subscription changes are independent SNS calls, so make them concurrently.
+        List<Future<Boolean>> futures = Lists.newArrayListWithCapacity(topics.size());
         for (NotificationTopic topic : topics) {
             boolean wantsSubscription = topicGuids.contains(topic.getGuid());
             boolean isCurrentlySubscribed = subscribedTopicGuids.contains(topic.getGuid());
             
-            Boolean isSubscribed = null; 
-            if (wantsSubscription && isCurrentlySubscribed) {
-                isSubscribed = Boolean.TRUE;
-            } else if (!wantsSubscription && !isCurrentlySubscribed) {
-                isSubscribed = Boolean.FALSE;
-            } else if (wantsSubscription && !isCurrentlySubscribed) {
-                isSubscribed = doSubscribe(registration, topic);
+            if (wantsSubscription && !isCurrentlySubscribed) {
+                futures.add(snsExecutorService.submit(() -> doSubscribe(registration, topic)));
             } else if (!wantsSubscription && isCurrentlySubscribed) {
-                isSubscribed = doUnsubscribe(registration, topic);
+                futures.add(snsExecutorService.submit(() -> doUnsubscribe(registration, topic)));
+            } else {
+                futures.add(null);
+            }
+        }
+        
+        List<SubscriptionStatus> statuses = Lists.newArrayListWithCapacity(topics.size());
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(SUBSCRIBE_TIMEOUT_MILLIS);
+        try {
+            for (int i=0; i < topics.size(); i++) {
+                NotificationTopic topic = topics.get(i);
+                boolean isCurrentlySubscribed = subscribedTopicGuids.contains(topic.getGuid());
+                
+                Boolean isSubscribed = isCurrentlySubscribed;
+                if (futures.get(i) != null) {
+                    try {
+                        isSubscribed = futures.get(i).get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    } catch(TimeoutException e) {
+                        // As with other failures, assume the subscription has not changed.
+                        LOG.error("Timed out changing subscription to topic " + topic.getName() + " ("
+                                + topic.getGuid() + ")");
+                    }
+                }
+                SubscriptionStatus status = new SubscriptionStatus(topic.getGuid(), topic.getName(), isSubscribed);
+                statuses.add(status);
+            }
+        } catch(ExecutionException e) {
+            // doSubscribe and doUnsubscribe catch all errors, so this should not happen.
+            throw new BridgeServiceException(e.getCause());
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BridgeServiceException(e);
+        } finally {
+            for (Future<Boolean> future : futures) {
+                if (future != null) {
+                    // Don't interrupt a change in progress, which could leave SNS and DynamoDB out of sync.
+                    future.cancel(false);
+                }
             }
-            SubscriptionStatus status = new SubscriptionStatus(topic.getGuid(), topic.getName(), isSubscribed);
-            statuses.add(status);
         }
         return statuses;
     }
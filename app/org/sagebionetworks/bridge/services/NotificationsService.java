@@ -5,6 +5,11 @@ import static org.sagebionetworks.bridge.BridgeUtils.SEMICOLON_SPACE_JOINER;
 
 import java.nio.charset.Charset;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import javax.annotation.Resource;
 
@@ -42,11 +47,16 @@ import com.google.common.collect.Lists;
 public class NotificationsService {
     private static Logger LOG = LoggerFactory.getLogger(NotificationsService.class);
     
+    /** Time allowed for all the pushes to a participant's devices to complete. */
+    static final long PUBLISH_TIMEOUT_MILLIS = 10000L;
+    
     private StudyService studyService;
     
     private NotificationRegistrationDao notificationRegistrationDao;
 
     private AmazonSNSClient snsClient;
+    
+    private ExecutorService snsExecutorService;
 
     @Autowired
     final void setStudyService(StudyService studyService) {
@@ -63,6 +73,11 @@ public class NotificationsService {
         this.snsClient = snsClient;
     }
     
+    @Resource(name = "snsExecutorService")
+    final void setSnsExecutorService(ExecutorService snsExecutorService) {
+        this.snsExecutorService = snsExecutorService;
+    }
+    
     /**
      * Return all the registrations for this user. There may be more than one, if a user installs 
      * the application on different devices. It is possible there may be multiple registrations on 
@@ -136,7 +151,8 @@ public class NotificationsService {
      * Send a push notification to an individual participant (assuming they have registered for push notification). 
      * This mechanism is intended to message specific individuals, <i>and should not be used to send out notifications 
      * to many accounts.</i> Create a topic, ask your users to subscribe to that topic in your application, and message 
-     * them via that topic.
+     * them via that topic. The message is published to all of the participant's devices concurrently, and an 
+     * error is reported for each device where publishing fails or does not complete in time.
      */
     public void sendNotificationToUser(StudyIdentifier studyId, String healthCode, NotificationMessage message) {
         checkNotNull(studyId);
@@ -150,20 +166,39 @@ public class NotificationsService {
             throw new BadRequestException("Participant has not registered to receive push notifications.");
         }
         
-        List<String> errorMessages = Lists.newArrayListWithCapacity(registrations.size());
+        List<Future<PublishResult>> futures = Lists.newArrayListWithCapacity(registrations.size());
         for (NotificationRegistration registration : registrations) {
-            String endpointARN = registration.getEndpointARN();
-            
-            PublishRequest request = new PublishRequest().withTargetArn(endpointARN)
+            PublishRequest request = new PublishRequest().withTargetArn(registration.getEndpointARN())
                     .withSubject(message.getSubject()).withMessage(message.getMessage());
-            
-            try {
-                PublishResult result = snsClient.publish(request);
-                LOG.debug("Sent message to participant, study=" + studyId.getIdentifier() + ", endpointARN="
-                        + endpointARN + ", message ID=" + result.getMessageId());
-            } catch(AmazonServiceException e) {
-                LOG.warn("Error publishing SNS message to participant", e);
-                errorMessages.add(e.getErrorMessage());
+            futures.add(snsExecutorService.submit(() -> snsClient.publish(request)));
+        }
+        
+        List<String> errorMessages = Lists.newArrayListWithCapacity(registrations.size());
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(PUBLISH_TIMEOUT_MILLIS);
+        try {
+            for (int i=0; i < futures.size(); i++) {
+                String endpointARN = registrations.get(i).getEndpointARN();
+                try {
+                    PublishResult result = futures.get(i).get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    LOG.debug("Sent message to participant, study=" + studyId.getIdentifier() + ", endpointARN="
+                            + endpointARN + ", message ID=" + result.getMessageId());
+                } catch(ExecutionException e) {
+                    if (!(e.getCause() instanceof AmazonServiceException)) {
+                        throw new BridgeServiceException(e.getCause());
+                    }
+                    LOG.warn("Error publishing SNS message to participant", e.getCause());
+                    errorMessages.add(((AmazonServiceException)e.getCause()).getErrorMessage());
+                } catch(TimeoutException e) {
+                    LOG.warn("Timed out publishing SNS message to participant, endpointARN=" + endpointARN);
+                    errorMessages.add("Timed out sending to device");
+                }
+            }
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BridgeServiceException(e);
+        } finally {
+            for (Future<PublishResult> future : futures) {
+                future.cancel(true);
             }
         }
         if (!errorMessages.isEmpty()) {
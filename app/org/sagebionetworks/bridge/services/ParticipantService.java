@@ -218,6 +218,15 @@ public class ParticipantService {
         return accountDao.getPagedAccountSummaries(study, search);
     }
 
+    public ForwardCursorPagedResourceList<AccountSummary> getAccountSummariesByCursor(Study study,
+            AccountSummarySearch search) {
+        checkNotNull(study);
+        
+        Validate.entityThrowingException(new AccountSummarySearchValidator(study.getDataGroups()), search);
+        
+        return accountDao.getAccountSummariesByCursor(study, search);
+    }
+
     public void signUserOut(Study study, String email, boolean deleteReauthToken) {
         checkNotNull(study);
         checkArgument(isNotBlank(email));
@@ -29,6 +29,10 @@ import org.slf4j.LoggerFactory;
  * recently published survey. In compound activities we resolve all references in the schema and survey 
  * lists. Finally, if a compound activity only contains a taskIdentifier, we load the full compound 
  * activity, resolve it, and return that in the scheduled activity. 
+ * 
+ * References resolved from the database are kept in a StudyReferences object that is shared across 
+ * requests (see ResolvedReferenceCache). References supplied by the app config take precedence over 
+ * these, and so compound activities (which can contain both) are only cached for the current request.
  */
 class ReferenceResolver {
     private static final Logger LOG = LoggerFactory.getLogger(ReferenceResolver.class);
@@ -42,19 +46,20 @@ class ReferenceResolver {
     private final Map<String,SurveyReference> surveyReferences;
     private final Map<String,SchemaReference> schemaReferences;
     
+    private final ResolvedReferenceCache.StudyReferences studyReferences;
+    
     private final Map<String, CompoundActivity> compoundActivityCache = new HashMap<>();
-    private final Map<String, SchemaReference> schemaCache = new HashMap<>();
-    private final Map<String, SurveyReference> surveyCache = new HashMap<>();
     
     ReferenceResolver(CompoundActivityDefinitionService compoundActivityDefinitionService,
             UploadSchemaService schemaService, SurveyService surveyService,
             Map<String, SurveyReference> surveyReferences, Map<String, SchemaReference> schemaReferences,
-            ClientInfo clientInfo, StudyIdentifier studyId) {
+            ResolvedReferenceCache.StudyReferences studyReferences, ClientInfo clientInfo, StudyIdentifier studyId) {
         this.compoundActivityDefinitionService = compoundActivityDefinitionService;
         this.schemaService = schemaService;
         this.surveyService = surveyService;
         this.surveyReferences = surveyReferences;
         this.schemaReferences = schemaReferences;
+        this.studyReferences = studyReferences;
         this.clientInfo = clientInfo;
         this.studyId = studyId;
     }
@@ -109,15 +114,19 @@ class ReferenceResolver {
         if (resolvedCompoundActivity == null) {
             if (compoundActivity.isReference()) {
                 // Compound activity has no schemas or surveys defined. Resolve it with its definition.
-                CompoundActivityDefinition compoundActivityDef;
-                try {
-                    compoundActivityDef = compoundActivityDefinitionService.getCompoundActivityDefinition(studyId,
-                            taskId);
-                } catch (EntityNotFoundException ex) {
-                    LOG.error("Schedule references non-existent compound activity " + taskId);
-                    return null;
+                resolvedCompoundActivity = studyReferences.getCompoundActivity(taskId);
+                if (resolvedCompoundActivity == null) {
+                    CompoundActivityDefinition compoundActivityDef;
+                    try {
+                        compoundActivityDef = compoundActivityDefinitionService.getCompoundActivityDefinition(studyId,
+                                taskId);
+                    } catch (EntityNotFoundException ex) {
+                        LOG.error("Schedule references non-existent compound activity " + taskId);
+                        return null;
+                    }
+                    resolvedCompoundActivity = compoundActivityDef.getCompoundActivity();
+                    studyReferences.putCompoundActivity(taskId, resolvedCompoundActivity);
                 }
-                resolvedCompoundActivity = compoundActivityDef.getCompoundActivity();
             } else {
                 // Compound activity has schemas and surveys defined. Use the schemas and surveys from the lists, but
                 // we may need to resolve individual schema and survey refs at a later step.
@@ -169,9 +178,9 @@ class ReferenceResolver {
         }
 
         String schemaId = schemaRef.getId();
-        SchemaReference resolvedSchemaRef = schemaCache.get(schemaId);
+        SchemaReference resolvedSchemaRef = schemaReferences.get(schemaId);
         if (resolvedSchemaRef == null) {
-            resolvedSchemaRef = schemaReferences.get(schemaId);
+            resolvedSchemaRef = studyReferences.getSchema(schemaId, clientInfo);
         }
         if (resolvedSchemaRef == null) {
             UploadSchema schema;
@@ -182,7 +191,7 @@ class ReferenceResolver {
                 return null;
             }
             resolvedSchemaRef = new SchemaReference(schemaId, schema.getRevision());
-            schemaCache.put(schemaId, resolvedSchemaRef);
+            studyReferences.putSchema(schemaId, clientInfo, resolvedSchemaRef);
         }
         return resolvedSchemaRef;
     }
@@ -194,9 +203,9 @@ class ReferenceResolver {
         }
 
         String surveyGuid = surveyRef.getGuid();
-        SurveyReference resolvedSurveyRef = surveyCache.get(surveyGuid);
+        SurveyReference resolvedSurveyRef = surveyReferences.get(surveyGuid);
         if (resolvedSurveyRef == null) {
-            resolvedSurveyRef = surveyReferences.get(surveyGuid);
+            resolvedSurveyRef = studyReferences.getSurvey(surveyGuid);
         }
         if (resolvedSurveyRef == null) {
             Survey survey;
@@ -208,7 +217,7 @@ class ReferenceResolver {
             }
             resolvedSurveyRef = new SurveyReference(survey.getIdentifier(), surveyGuid,
                     new DateTime(survey.getCreatedOn()));
-            surveyCache.put(surveyGuid, resolvedSurveyRef);
+            studyReferences.putSurvey(surveyGuid, resolvedSurveyRef);
         }
         return resolvedSurveyRef;
     }
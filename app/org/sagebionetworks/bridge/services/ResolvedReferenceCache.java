@@ -0,0 +1,82 @@
+package org.sagebionetworks.bridge.services;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.CacheProvider;
+import org.sagebionetworks.bridge.cache.VersionedLocalCache;
+import org.sagebionetworks.bridge.models.ClientInfo;
+import org.sagebionetworks.bridge.models.schedules.CompoundActivity;
+import org.sagebionetworks.bridge.models.schedules.SchemaReference;
+import org.sagebionetworks.bridge.models.schedules.SurveyReference;
+import org.sagebionetworks.bridge.models.studies.StudyIdentifier;
+
+/**
+ * Holds the results of resolving schema, survey and compound activity references (see ReferenceResolver)
+ * so they can be shared across requests. Results are grouped by study. Any change to the schemas, published
+ * surveys or compound activity definitions of a study should call invalidate(), which discards the study's
+ * results on all servers. Results are also discarded after a few minutes regardless.
+ */
+@Component
+public class ResolvedReferenceCache {
+
+    static final int MAX_STUDIES = 500;
+
+    private VersionedLocalCache<StudyReferences> cache;
+
+    @Autowired
+    final void setCacheProvider(CacheProvider cacheProvider) {
+        this.cache = new VersionedLocalCache<>(cacheProvider, MAX_STUDIES);
+    }
+
+    /** Get the references that have been resolved for this study so far. */
+    public StudyReferences getStudyReferences(StudyIdentifier studyId) {
+        checkNotNull(studyId);
+        return cache.get(CacheKey.resolvedReferences(studyId), StudyReferences::new);
+    }
+
+    /** Discard all references resolved for this study. */
+    public void invalidate(StudyIdentifier studyId) {
+        checkNotNull(studyId);
+        cache.invalidate(CacheKey.resolvedReferences(studyId));
+    }
+
+    /**
+     * The resolved references of one study. All values are immutable and safe to share between threads.
+     * Schema resolution depends on the app making the request, so schemas are keyed by the client's
+     * operating system and app version as well as the schema ID.
+     */
+    public static class StudyReferences {
+        private final Map<String, CompoundActivity> compoundActivities = new ConcurrentHashMap<>();
+        private final Map<String, SchemaReference> schemas = new ConcurrentHashMap<>();
+        private final Map<String, SurveyReference> surveys = new ConcurrentHashMap<>();
+
+        CompoundActivity getCompoundActivity(String taskId) {
+            return compoundActivities.get(taskId);
+        }
+        void putCompoundActivity(String taskId, CompoundActivity compoundActivity) {
+            compoundActivities.put(taskId, compoundActivity);
+        }
+        SchemaReference getSchema(String schemaId, ClientInfo clientInfo) {
+            return schemas.get(schemaKey(schemaId, clientInfo));
+        }
+        void putSchema(String schemaId, ClientInfo clientInfo, SchemaReference schemaRef) {
+            schemas.put(schemaKey(schemaId, clientInfo), schemaRef);
+        }
+        SurveyReference getSurvey(String surveyGuid) {
+            return surveys.get(surveyGuid);
+        }
+        void putSurvey(String surveyGuid, SurveyReference surveyRef) {
+            surveys.put(surveyGuid, surveyRef);
+        }
+        private static String schemaKey(String schemaId, ClientInfo clientInfo) {
+            return schemaId + ":" + clientInfo.getOsName() + ":" + clientInfo.getAppVersion();
+        }
+    }
+}
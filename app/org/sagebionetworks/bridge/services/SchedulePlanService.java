@@ -7,6 +7,9 @@ import java.util.List;
 import java.util.Set;
 
 import org.sagebionetworks.bridge.BridgeUtils;
+import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.CacheProvider;
+import org.sagebionetworks.bridge.cache.VersionedLocalCache;
 import org.sagebionetworks.bridge.dao.SchedulePlanDao;
 import org.sagebionetworks.bridge.models.ClientInfo;
 import org.sagebionetworks.bridge.models.GuidCreatedOnVersionHolder;
@@ -22,6 +25,7 @@ import org.sagebionetworks.bridge.models.surveys.Survey;
 import org.sagebionetworks.bridge.validators.SchedulePlanValidator;
 import org.sagebionetworks.bridge.validators.Validate;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Sets;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -31,8 +35,11 @@ import org.springframework.stereotype.Component;
 @Component
 public class SchedulePlanService {
     
+    static final int PLAN_CACHE_MAX_STUDIES = 500;
+    
     private SchedulePlanDao schedulePlanDao;
     private SurveyService surveyService;
+    private VersionedLocalCache<List<SchedulePlan>> planCache;
 
     @Autowired
     public final void setSchedulePlanDao(SchedulePlanDao schedulePlanDao) {
@@ -42,9 +49,22 @@ public class SchedulePlanService {
     public final void setSurveyService(SurveyService surveyService) {
         this.surveyService = surveyService;
     }
+    /**
+     * Schedule plans are read on every request for activities, but change rarely. The plans of each study 
+     * (with their criteria loaded) are held in memory and replaced whenever a plan in the study is changed.
+     */
+    @Autowired
+    public final void setCacheProvider(CacheProvider cacheProvider) {
+        this.planCache = new VersionedLocalCache<>(cacheProvider, PLAN_CACHE_MAX_STUDIES);
+    }
 
+    /**
+     * Get all the schedule plans in a study. The returned list and plans are shared and should not be 
+     * modified.
+     */
     public List<SchedulePlan> getSchedulePlans(ClientInfo clientInfo, StudyIdentifier studyIdentifier) {
-        return schedulePlanDao.getSchedulePlans(clientInfo, studyIdentifier);
+        return planCache.get(CacheKey.schedulePlanList(studyIdentifier),
+                () -> ImmutableList.copyOf(schedulePlanDao.getSchedulePlans(clientInfo, studyIdentifier)));
     }
 
     public SchedulePlan getSchedulePlan(StudyIdentifier studyIdentifier, String guid) {
@@ -76,7 +96,9 @@ public class SchedulePlanService {
         Validate.entityThrowingException(new SchedulePlanValidator(study.getDataGroups(), study.getTaskIdentifiers()), plan);
 
         lookupSurveyReferenceIdentifiers(study.getStudyIdentifier(), plan);
-        return schedulePlanDao.createSchedulePlan(study.getStudyIdentifier(), plan);
+        SchedulePlan created = schedulePlanDao.createSchedulePlan(study.getStudyIdentifier(), plan);
+        invalidatePlanCache(study.getStudyIdentifier());
+        return created;
     }
     
     public SchedulePlan updateSchedulePlan(Study study, SchedulePlan plan) {
@@ -110,7 +132,9 @@ public class SchedulePlanService {
         
         StudyIdentifier studyId = new StudyIdentifierImpl(plan.getStudyKey());
         lookupSurveyReferenceIdentifiers(studyId, plan);
-        return schedulePlanDao.updateSchedulePlan(studyId, plan);
+        SchedulePlan updated = schedulePlanDao.updateSchedulePlan(studyId, plan);
+        invalidatePlanCache(studyId);
+        return updated;
     }
 
     public void deleteSchedulePlan(StudyIdentifier studyIdentifier, String guid) {
@@ -118,6 +142,11 @@ public class SchedulePlanService {
         checkNotNull(isNotBlank(guid));
         
         schedulePlanDao.deleteSchedulePlan(studyIdentifier, guid);
+        invalidatePlanCache(studyIdentifier);
+    }
+    
+    private void invalidatePlanCache(StudyIdentifier studyId) {
+        planCache.invalidate(CacheKey.schedulePlanList(studyId));
     }
     
     /**
@@ -43,6 +43,7 @@ import org.sagebionetworks.bridge.models.schedules.ScheduledActivity;
 import org.sagebionetworks.bridge.models.schedules.ScheduledActivityStatus;
 import org.sagebionetworks.bridge.models.schedules.SchemaReference;
 import org.sagebionetworks.bridge.models.schedules.SurveyReference;
+import org.sagebionetworks.bridge.models.studies.StudyIdentifier;
 import org.sagebionetworks.bridge.validators.ScheduleContextValidator;
 import org.sagebionetworks.bridge.validators.Validate;
 
@@ -78,6 +79,8 @@ public class ScheduledActivityService {
     private SurveyService surveyService;
     
     private AppConfigService appConfigService;
+    
+    private ResolvedReferenceCache resolvedReferenceCache;
 
     @Autowired
     final void setScheduledActivityDao(ScheduledActivityDao activityDao) {
@@ -117,6 +120,11 @@ public class ScheduledActivityService {
     final void setAppConfigService(AppConfigService appConfigService) {
         this.appConfigService = appConfigService;
     }
+    
+    @Autowired
+    final void setResolvedReferenceCache(ResolvedReferenceCache resolvedReferenceCache) {
+        this.resolvedReferenceCache = resolvedReferenceCache;
+    }
 
     public ForwardCursorPagedResourceList<ScheduledActivity> getActivityHistory(String healthCode,
             String activityGuid, DateTime scheduledOnStart, DateTime scheduledOnEnd, String offsetKey,
@@ -255,28 +263,19 @@ public class ScheduledActivityService {
         Map<String,ScheduledActivity> dbMap = Maps.newHashMap();
         // IA-545: If a schedule has an identical activity but a new GUID (say if we change the schedule on the user), the user can 
         // lose existing activities. So during the time window the user is looking at, we will return any activities that exist.
-        for (String activityGuid : activityGuids) {
-            ForwardCursorPagedResourceList<ScheduledActivity> list = activityDao.getActivityHistoryV2(
-                    context.getCriteriaContext().getHealthCode(), activityGuid,
-                    context.getStartsOn(), context.getEndsOn(), null,
-                    API_MAXIMUM_PAGE_SIZE);
-            if (list != null) {
-                for(ScheduledActivity activity : list.getItems()) {
-                    dbMap.put(activity.getGuid(), activity);
-                }
-            }
+        String healthCode = context.getCriteriaContext().getHealthCode();
+        List<ScheduledActivity> history = activityDao.getActivityHistoriesV2(healthCode, activityGuids,
+                context.getStartsOn(), context.getEndsOn(), API_MAXIMUM_PAGE_SIZE);
+        for (ScheduledActivity activity : history) {
+            dbMap.put(activity.getGuid(), activity);
         }
         // IA-587: When a one-time task falls outside the schedule window, it's not returned by the 
-        // query above, so it is recreated, and it loses its finished state. Load all remaining scheduled activities.
-        String healthCode = context.getCriteriaContext().getHealthCode();
-        for (ScheduledActivity activity : scheduledActivities) {
-            if (!dbMap.containsKey(activity.getGuid())) {
-                ScheduledActivity dbActivity = activityDao.getActivity(context.getStartsOn().getZone(), healthCode,
-                        activity.getGuid(), false);
-                if (dbActivity != null) {
-                    dbMap.put(dbActivity.getGuid(), dbActivity);    
-                }
-            }
+        // query above, so it is recreated, and it loses its finished state. Load all remaining scheduled activities
+        // in one batch.
+        List<ScheduledActivity> notFound = scheduledActivities.stream()
+                .filter(activity -> !dbMap.containsKey(activity.getGuid())).collect(Collectors.toList());
+        for (ScheduledActivity dbActivity : activityDao.getActivities(context.getStartsOn().getZone(), notFound)) {
+            dbMap.put(dbActivity.getGuid(), dbActivity);
         }
         return dbMap;
     }
@@ -378,9 +377,12 @@ public class ScheduledActivityService {
         Map<String, SchemaReference> schemaReferences = (appConfig == null) ? ImmutableMap.of()
                 : Maps.uniqueIndex(appConfig.getSchemaReferences(), SchemaReference::getId);
 
+        StudyIdentifier studyId = context.getCriteriaContext().getStudyIdentifier();
+        ResolvedReferenceCache.StudyReferences studyReferences = resolvedReferenceCache.getStudyReferences(studyId);
+
         ReferenceResolver resolver = new ReferenceResolver(compoundActivityDefinitionService, schemaService,
-                surveyService, surveyReferences, schemaReferences, context.getCriteriaContext().getClientInfo(),
-                context.getCriteriaContext().getStudyIdentifier());
+                surveyService, surveyReferences, schemaReferences, studyReferences,
+                context.getCriteriaContext().getClientInfo(), studyId);
         
         for (SchedulePlan plan : plans) {
             Schedule schedule = plan.getStrategy().getScheduleForUser(plan, context);
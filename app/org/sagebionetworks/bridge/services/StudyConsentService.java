@@ -53,6 +53,8 @@ import org.xhtmlrenderer.pdf.ITextRenderer;
 import org.xhtmlrenderer.util.XRRuntimeException;
 
 import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.lowagie.text.DocumentException;
 
 @Component
@@ -72,6 +74,15 @@ public class StudyConsentService {
     private static final String PUBLICATIONS_BUCKET = BridgeConfigFactory.getConfig().getHostnameWithPostfix("docs");
     private String fullPageTemplate;
     
+    /**
+     * The content of a consent version never changes once it is written to S3, so it is cached in memory by 
+     * subpopulation and createdOn timestamp. The cache is bounded by the total length of the documents it holds.
+     */
+    static final long MAX_CACHED_CONSENT_CHARS = 8 * 1024 * 1024;
+    private final Cache<String, String> documentContentCache = CacheBuilder.newBuilder()
+            .maximumWeight(MAX_CACHED_CONSENT_CHARS)
+            .<String, String>weigher((key, content) -> content.length()).build();
+    
     @Value("classpath:study-defaults/consent-unsigned-page.xhtml")
     final void setConsentTemplate(org.springframework.core.io.Resource resource) throws IOException {
         this.fullPageTemplate = IOUtils.toString(resource.getInputStream(), StandardCharsets.UTF_8);
@@ -218,13 +229,21 @@ public class StudyConsentService {
         if (consent == null) {
             throw new EntityNotFoundException(StudyConsent.class);
         }
-        // Only if we can publish the document, do we mark it as published in the database.
-        String documentContent = loadDocumentContent(consent);
+        // Only if we can publish the document, do we mark it as published in the database. Read the document from 
+        // S3 rather than the cache, and refresh the cache with it, so what we publish is what participants sign.
+        long previouslyPublishedOn = subpop.getPublishedConsentCreatedOn();
+        String documentContent = readDocumentContent(consent);
+        documentContentCache.put(contentCacheKey(consent), documentContent);
         try {
             publishFormatsToS3(study, subpop.getGuid(), documentContent);
             
             subpop.setPublishedConsentCreatedOn(timestamp);
             subpopService.updateSubpopulation(study, subpop);
+            
+            // The version that is no longer active is rarely read again.
+            if (previouslyPublishedOn != timestamp) {
+                documentContentCache.invalidate(contentCacheKey(subpop.getGuid().getGuid(), previouslyPublishedOn));
+            }
 
         } catch(IOException | DocumentException | XRRuntimeException e) {
             throw new BridgeServiceException(e.getMessage());
@@ -233,6 +252,16 @@ public class StudyConsentService {
     }
     
     private String loadDocumentContent(StudyConsent consent) {
+        String key = contentCacheKey(consent);
+        String documentContent = documentContentCache.getIfPresent(key);
+        if (documentContent == null) {
+            documentContent = readDocumentContent(consent);
+            documentContentCache.put(key, documentContent);
+        }
+        return documentContent;
+    }
+    
+    private String readDocumentContent(StudyConsent consent) {
         try {
             return s3Helper.readS3FileAsString(CONSENTS_BUCKET, consent.getStoragePath());
         } catch(IOException ioe) {
@@ -241,6 +270,14 @@ public class StudyConsentService {
         }
     }
     
+    private static String contentCacheKey(StudyConsent consent) {
+        return contentCacheKey(consent.getSubpopulationGuid(), consent.getCreatedOn());
+    }
+    
+    private static String contentCacheKey(String subpopGuid, long createdOn) {
+        return subpopGuid + ":" + createdOn;
+    }
+    
     private String sanitizeHTML(String documentContent) {
         documentContent = Jsoup.clean(documentContent, BridgeConstants.CKEDITOR_WHITELIST);
         Document document = Jsoup.parseBodyFragment(documentContent);
@@ -14,6 +14,9 @@ import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
 import org.sagebionetworks.bridge.BridgeUtils;
+import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.CacheProvider;
+import org.sagebionetworks.bridge.cache.VersionedLocalCache;
 import org.sagebionetworks.bridge.dao.SurveyDao;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
 import org.sagebionetworks.bridge.exceptions.ConstraintViolationException;
@@ -29,6 +32,7 @@ import org.sagebionetworks.bridge.models.schedules.SurveyReference;
 import org.sagebionetworks.bridge.models.sharedmodules.SharedModuleMetadata;
 import org.sagebionetworks.bridge.models.studies.Study;
 import org.sagebionetworks.bridge.models.studies.StudyIdentifier;
+import org.sagebionetworks.bridge.models.studies.StudyIdentifierImpl;
 import org.sagebionetworks.bridge.models.surveys.Survey;
 import org.sagebionetworks.bridge.models.surveys.SurveyElement;
 import org.sagebionetworks.bridge.validators.SurveyPublishValidator;
@@ -41,11 +45,16 @@ import org.springframework.validation.Validator;
 @Component
 public class SurveyService {
 
+    static final int SURVEY_CACHE_MAX_SURVEYS = 1000;
+
     private Validator publishValidator;
     private SurveyDao surveyDao;
     private SchedulePlanService schedulePlanService;
     private SharedModuleMetadataService sharedModuleMetadataService;
     private StudyService studyService;
+    private ResolvedReferenceCache resolvedReferenceCache;
+    private VersionedLocalCache<Survey> surveyCache;
+    private VersionedLocalCache<Survey> publishedSurveyCache;
 
     @Autowired
     final void setSurveyDao(SurveyDao surveyDao) {
@@ -72,6 +81,22 @@ public class SurveyService {
         this.studyService = studyService;
     }
     
+    @Autowired
+    final void setResolvedReferenceCache(ResolvedReferenceCache resolvedReferenceCache) {
+        this.resolvedReferenceCache = resolvedReferenceCache;
+    }
+    
+    /**
+     * Upload validation and scheduling look up surveys without their elements, only to read identifiers and schema 
+     * revisions. These survey versions, and the most recently published version of each survey, are held in memory 
+     * and replaced when the survey is changed.
+     */
+    @Autowired
+    final void setCacheProvider(CacheProvider cacheProvider) {
+        this.surveyCache = new VersionedLocalCache<>(cacheProvider, SURVEY_CACHE_MAX_SURVEYS);
+        this.publishedSurveyCache = new VersionedLocalCache<>(cacheProvider, SURVEY_CACHE_MAX_SURVEYS);
+    }
+    
     /**
      * Get a list of all published surveys in this study, using the most recently published version of each survey.
      * These surveys will include questions (not other element types, such as info screens). Most properties beyond
@@ -84,7 +109,11 @@ public class SurveyService {
         checkArgument(StringUtils.isNotBlank(keys.getGuid()), "Survey GUID cannot be null/blank");
         checkArgument(keys.getCreatedOn() != 0L, "Survey createdOn timestamp cannot be 0");
         
-        return surveyDao.getSurvey(keys, includeElements);
+        // Surveys without elements may be shared from memory and must not be modified.
+        if (includeElements) {
+            return surveyDao.getSurvey(keys, includeElements);
+        }
+        return surveyCache.get(CacheKey.survey(keys), () -> surveyDao.getSurvey(keys, false));
     }
 
     /**
@@ -126,7 +155,9 @@ public class SurveyService {
         }
         Validate.entityThrowingException(new SurveySaveValidator(dataGroups), survey);
         
-        return surveyDao.updateSurvey(survey);
+        Survey updated = surveyDao.updateSurvey(survey);
+        invalidateSurvey(survey);
+        return updated;
     }
 
     /**
@@ -149,7 +180,11 @@ public class SurveyService {
         Survey survey = surveyDao.getSurvey(keys, true);
         Validate.entityThrowingException(publishValidator, survey);
 
-        return surveyDao.publishSurvey(study, survey, keys, newSchemaRev);
+        Survey published = surveyDao.publishSurvey(study, survey, keys, newSchemaRev);
+        invalidateSurvey(keys);
+        invalidatePublishedSurvey(study, keys.getGuid());
+        invalidateResolvedReferences(study);
+        return published;
     }
 
     /**
@@ -162,7 +197,11 @@ public class SurveyService {
         checkArgument(StringUtils.isNotBlank(keys.getGuid()), "Survey GUID cannot be null/blank");
         checkArgument(keys.getCreatedOn() != 0L, "Survey createdOn timestamp cannot be 0");
 
-        return surveyDao.versionSurvey(keys);
+        Survey versioned = surveyDao.versionSurvey(keys);
+        if (versioned.getStudyIdentifier() != null) {
+            invalidatePublishedSurvey(new StudyIdentifierImpl(versioned.getStudyIdentifier()), keys.getGuid());
+        }
+        return versioned;
     }
 
     /**
@@ -185,6 +224,12 @@ public class SurveyService {
         verifySharedModuleExistence(keys);
 
         surveyDao.deleteSurvey(existing);
+        invalidateSurvey(keys);
+        if (existing.getStudyIdentifier() != null) {
+            StudyIdentifier studyId = new StudyIdentifierImpl(existing.getStudyIdentifier());
+            invalidatePublishedSurvey(studyId, keys.getGuid());
+            invalidateResolvedReferences(studyId);
+        }
     }
 
     /**
@@ -206,6 +251,22 @@ public class SurveyService {
         checkConstraintsBeforePhysicalDelete(studyId, keys);
 
         surveyDao.deleteSurveyPermanently(keys);
+        invalidateSurvey(keys);
+        invalidatePublishedSurvey(studyId, keys.getGuid());
+        invalidateResolvedReferences(studyId);
+    }
+    
+    private void invalidateSurvey(GuidCreatedOnVersionHolder keys) {
+        surveyCache.invalidate(CacheKey.survey(keys));
+    }
+    
+    private void invalidatePublishedSurvey(StudyIdentifier studyId, String guid) {
+        publishedSurveyCache.invalidate(CacheKey.publishedSurvey(studyId, guid));
+    }
+    
+    // References to the most recently published version of a survey may now resolve differently.
+    private void invalidateResolvedReferences(StudyIdentifier studyId) {
+        resolvedReferenceCache.invalidate(studyId);
     }
 
     // Helper method to verify if there is any shared module related to specified survey
@@ -264,7 +325,12 @@ public class SurveyService {
         checkNotNull(studyIdentifier, Validate.CANNOT_BE_NULL, "study");
         checkArgument(isNotBlank(guid), Validate.CANNOT_BE_BLANK, "survey guid");
 
-        return surveyDao.getSurveyMostRecentlyPublishedVersion(studyIdentifier, guid, includeElements);
+        // Surveys without elements may be shared from memory and must not be modified.
+        if (includeElements) {
+            return surveyDao.getSurveyMostRecentlyPublishedVersion(studyIdentifier, guid, includeElements);
+        }
+        return publishedSurveyCache.get(CacheKey.publishedSurvey(studyIdentifier, guid),
+                () -> surveyDao.getSurveyMostRecentlyPublishedVersion(studyIdentifier, guid, false));
     }
 
     /**
@@ -3,6 +3,7 @@ package org.sagebionetworks.bridge.services;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -23,6 +24,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import org.sagebionetworks.bridge.BridgeUtils;
+import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.CacheProvider;
+import org.sagebionetworks.bridge.cache.VersionedLocalCache;
 import org.sagebionetworks.bridge.dao.UploadSchemaDao;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
 import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
@@ -73,6 +77,16 @@ public class UploadSchemaService {
     // Default string length for single_choice field. This is needed to prevent single_choice questions from changing
     // in length a lot. Package-scoped to facilitate unit tests.
     static final int SINGLE_CHOICE_DEFAULT_LENGTH = 100;
+
+    // Maximum number of schema revisions (across all studies) held in memory for upload validation.
+    static final int SCHEMA_CACHE_MAX_REVISIONS = 1000;
+
+    // Maximum number of schemas (across all studies) whose revision lists are held in memory for scheduling.
+    static final int REVISION_LIST_CACHE_MAX_SCHEMAS = 1000;
+
+    // Orders schema revisions from newest to oldest.
+    private static final Comparator<UploadSchema> NEWEST_REVISION_FIRST = Comparator.comparingInt(
+            UploadSchema::getRevision).reversed();
     private static int singleChoiceDefaultLength = SINGLE_CHOICE_DEFAULT_LENGTH;
 
     /** Overrides the single_choice default length. Used for unit tests. */
@@ -85,8 +99,17 @@ public class UploadSchemaService {
         UploadSchemaService.singleChoiceDefaultLength = SINGLE_CHOICE_DEFAULT_LENGTH;
     }
 
+    private ResolvedReferenceCache resolvedReferenceCache;
     private SharedModuleMetadataService sharedModuleMetadataService;
     private UploadSchemaDao uploadSchemaDao;
+    private VersionedLocalCache<UploadSchema> schemaCache;
+    private VersionedLocalCache<List<UploadSchema>> revisionListCache;
+
+    /** Cache of resolved schema references, which must be cleared when schemas change. Configured by Spring. */
+    @Autowired
+    public final void setResolvedReferenceCache(ResolvedReferenceCache resolvedReferenceCache) {
+        this.resolvedReferenceCache = resolvedReferenceCache;
+    }
 
     /** DAO for upload schemas. This is configured by Spring. */
     @Autowired
@@ -94,6 +117,17 @@ public class UploadSchemaService {
         this.uploadSchemaDao = uploadSchemaDao;
     }
 
+    /**
+     * Upload validation reads the same few schema revisions for every upload, and scheduling reads every revision
+     * of a schema for each schema reference it resolves. Schemas only change through this service, so revisions
+     * (and the list of revisions of each schema) are held in memory and replaced when a revision is changed.
+     */
+    @Autowired
+    public final void setCacheProvider(CacheProvider cacheProvider) {
+        this.schemaCache = new VersionedLocalCache<>(cacheProvider, SCHEMA_CACHE_MAX_REVISIONS);
+        this.revisionListCache = new VersionedLocalCache<>(cacheProvider, REVISION_LIST_CACHE_MAX_SCHEMAS);
+    }
+
     @Autowired
     public final void setSharedModuleMetadataService(SharedModuleMetadataService sharedModuleMetadataService) {
         this.sharedModuleMetadataService = sharedModuleMetadataService;
@@ -124,7 +158,10 @@ public class UploadSchemaService {
         Validate.entityThrowingException(UploadSchemaValidator.INSTANCE, schema);
 
         // call through to DAO
-        return uploadSchemaDao.createSchemaRevision(schema);
+        UploadSchema created = uploadSchemaDao.createSchemaRevision(schema);
+        invalidateRevisionList(studyId, schema.getSchemaId());
+        invalidateResolvedReferences(studyId);
+        return created;
     }
 
     /**
@@ -160,7 +197,10 @@ public class UploadSchemaService {
         Validate.entityThrowingException(UploadSchemaValidator.INSTANCE, schema);
 
         // call through to DAO
-        return uploadSchemaDao.createSchemaRevision(schema);
+        UploadSchema created = uploadSchemaDao.createSchemaRevision(schema);
+        invalidateRevisionList(studyId, schema.getSchemaId());
+        invalidateResolvedReferences(studyId);
+        return created;
     }
 
     /**
@@ -549,6 +589,11 @@ public class UploadSchemaService {
         }
 
         uploadSchemaDao.deleteUploadSchemas(schemaList);
+        for (UploadSchema schema : schemaList) {
+            invalidateSchemaRevision(studyId, schemaId, schema.getRevision());
+        }
+        invalidateRevisionList(studyId, schemaId);
+        invalidateResolvedReferences(studyId);
     }
 
     /**
@@ -572,6 +617,9 @@ public class UploadSchemaService {
         }
 
         uploadSchemaDao.deleteUploadSchemas(ImmutableList.of(schema));
+        invalidateSchemaRevision(studyId, schemaId, rev);
+        invalidateRevisionList(studyId, schemaId);
+        invalidateResolvedReferences(studyId);
     }
 
     /** Returns all revisions of all schemas. */
@@ -657,18 +705,45 @@ public class UploadSchemaService {
     }
 
     /**
-     * Gets the latest available revision of the specified schema for the specified client. This API fetches every
-     * schema revision for the specified schema ID, then checks the schema's min/maxAppVersion against the clientInfo.
-     * If multiple schema revisions match, it returns the latest one.
+     * Same as {@link #getUploadSchemaByIdAndRev}, except that the schema may be served from memory. The returned
+     * schema is shared and must not be modified. This is used by upload validation, which reads the same schema
+     * revisions over and over.
+     */
+    public UploadSchema getCachedUploadSchemaByIdAndRev(StudyIdentifier studyId, String schemaId, int revision) {
+        if (StringUtils.isBlank(schemaId) || revision <= 0) {
+            return getUploadSchemaByIdAndRev(studyId, schemaId, revision);
+        }
+        return schemaCache.get(CacheKey.uploadSchema(studyId, schemaId, revision),
+                () -> getUploadSchemaByIdAndRev(studyId, schemaId, revision));
+    }
+
+    /**
+     * Gets the latest available revision of the specified schema for the specified client. This API gets every
+     * schema revision for the specified schema ID, newest first, then returns the first revision whose
+     * min/maxAppVersion matches the clientInfo. The revisions of each schema are held in memory until one of them is
+     * created, updated, or deleted.
      */
     public UploadSchema getLatestUploadSchemaRevisionForAppVersion(StudyIdentifier studyId, String schemaId,
             ClientInfo clientInfo) {
         checkNotNull(studyId, "Study ID must be specified");
         checkNotNull(clientInfo, "Client Info must be specified");
 
-        List<UploadSchema> schemaList = getUploadSchemaAllRevisions(studyId, schemaId);
+        List<UploadSchema> schemaList = getUploadSchemaRevisionsNewestFirst(studyId, schemaId);
         return schemaList.stream().filter(schema -> isSchemaAvailableForClientInfo(schema, clientInfo))
-                .max((schema1, schema2) -> Integer.compare(schema1.getRevision(), schema2.getRevision())).orElse(null);
+                .findFirst().orElse(null);
+    }
+
+    // Gets all revisions of a schema sorted from newest to oldest. The list is shared and must not be modified.
+    private List<UploadSchema> getUploadSchemaRevisionsNewestFirst(StudyIdentifier studyId, String schemaId) {
+        if (StringUtils.isBlank(schemaId)) {
+            return sortNewestFirst(getUploadSchemaAllRevisions(studyId, schemaId));
+        }
+        return revisionListCache.get(CacheKey.uploadSchemaRevisions(studyId, schemaId),
+                () -> sortNewestFirst(getUploadSchemaAllRevisions(studyId, schemaId)));
+    }
+
+    private static List<UploadSchema> sortNewestFirst(List<UploadSchema> schemaList) {
+        return ImmutableList.copyOf(schemaList.stream().sorted(NEWEST_REVISION_FIRST).iterator());
     }
 
     // Helper method which checks if a schema is available for a client, by checking the schema's min/maxAppVersion
@@ -775,7 +850,24 @@ public class UploadSchemaService {
         }
 
         // Call through to the DAO
-        return uploadSchemaDao.updateSchemaRevision(schemaToUpdate);
+        UploadSchema updated = uploadSchemaDao.updateSchemaRevision(schemaToUpdate);
+        invalidateSchemaRevision(studyId, schemaId, revision);
+        invalidateRevisionList(studyId, schemaId);
+        invalidateResolvedReferences(studyId);
+        return updated;
+    }
+
+    // Schema references resolve to the latest revision for the app version, which these changes can alter.
+    private void invalidateResolvedReferences(StudyIdentifier studyId) {
+        resolvedReferenceCache.invalidate(studyId);
+    }
+
+    private void invalidateSchemaRevision(StudyIdentifier studyId, String schemaId, int revision) {
+        schemaCache.invalidate(CacheKey.uploadSchema(studyId, schemaId, revision));
+    }
+
+    private void invalidateRevisionList(StudyIdentifier studyId, String schemaId) {
+        revisionListCache.invalidate(CacheKey.uploadSchemaRevisions(studyId, schemaId));
     }
 
     // Helper method to get a map of fields by name for an Upload Schema. Returns a TreeMap so our error messaging has
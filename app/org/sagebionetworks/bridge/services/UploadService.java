@@ -11,6 +11,7 @@ import java.net.URL;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
@@ -24,7 +25,9 @@ import com.amazonaws.services.s3.model.AmazonS3Exception;
 import com.amazonaws.services.s3.model.GeneratePresignedUrlRequest;
 import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
 import org.slf4j.Logger;
@@ -307,9 +310,15 @@ public class UploadService {
         
         ForwardCursorPagedResourceList<Upload> list = supplier.get(startTime, endTime);
 
+        // Load the health data records for the whole page at once, rather than one upload at a time.
+        Set<String> recordIds = list.getItems().stream().map(Upload::getRecordId).filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<String, HealthDataRecord> records = recordIds.isEmpty() ? ImmutableMap.of()
+                : Maps.uniqueIndex(healthDataService.getRecordsByIds(recordIds), HealthDataRecord::getId);
+
         // This summary view is accessible to developers, so we do not include details of the health data record.
         List<UploadView> views = list.getItems().stream()
-                .map(upload -> uploadToUploadView(upload, false))
+                .map(upload -> uploadToUploadView(upload, records.get(upload.getRecordId()), false))
                 .collect(Collectors.toList());
         
         ForwardCursorPagedResourceList<UploadView> page = new ForwardCursorPagedResourceList<>(views, list.getNextPageOffsetKey());
@@ -320,18 +329,23 @@ public class UploadService {
     }
     
     private UploadView uploadToUploadView(Upload upload, boolean includeHealthDataRecord) {
+        HealthDataRecord record = null;
+        if (upload.getRecordId() != null) {
+            record = healthDataService.getRecordById(upload.getRecordId());
+        }
+        return uploadToUploadView(upload, record, includeHealthDataRecord);
+    }
+    
+    private UploadView uploadToUploadView(Upload upload, HealthDataRecord record, boolean includeHealthDataRecord) {
         UploadView.Builder builder = new UploadView.Builder();
         builder.withUpload(upload);
-        if (upload.getRecordId() != null) {
-            HealthDataRecord record = healthDataService.getRecordById(upload.getRecordId());
-            if (record != null) {
-                if (includeHealthDataRecord) {
-                    builder.withHealthDataRecord(record);
-                } else {
-                    builder.withSchemaId(record.getSchemaId());
-                    builder.withSchemaRevision(record.getSchemaRevision());
-                    builder.withHealthRecordExporterStatus(record.getSynapseExporterStatus());
-                }
+        if (record != null) {
+            if (includeHealthDataRecord) {
+                builder.withHealthDataRecord(record);
+            } else {
+                builder.withSchemaId(record.getSchemaId());
+                builder.withSchemaRevision(record.getSchemaRevision());
+                builder.withHealthRecordExporterStatus(record.getSynapseExporterStatus());
             }
         }
         return builder.build();
@@ -429,9 +443,15 @@ public class UploadService {
             logger.error("Missing S3 server-side encryption (SSE) for presigned upload " + uploadId + ".");
         }
 
+        // Once the upload is marked complete, it can't be submitted for validation again, so reserve room for
+        // it first.
+        uploadValidationService.reserveCapacity(studyId);
+
         try {
             uploadDao.uploadComplete(completedBy, upload);
         } catch (ConcurrentModificationException ex) {
+            uploadValidationService.releaseCapacity(studyId);
+
             // The old workflow is the app calls uploadComplete. The new workflow has an S3 trigger to call
             // uploadComplete. During the transition, it's very likely that this will be called twice, sometimes
             // concurrently. As such, we should log and squelch the ConcurrentModificationException.
@@ -440,9 +460,12 @@ public class UploadService {
             // Also short-circuit the call early, so we don't end up validating the upload twice, as this causes errors
             // and duplicate records.
             return;
+        } catch (RuntimeException ex) {
+            uploadValidationService.releaseCapacity(studyId);
+            throw ex;
         }
 
-        // kick off upload validation
+        // kick off upload validation. This releases the reserved slot when validation finishes.
         uploadValidationService.validateUpload(studyId, upload);
     }
     
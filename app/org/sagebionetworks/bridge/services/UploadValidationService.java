@@ -3,10 +3,16 @@ package org.sagebionetworks.bridge.services;
 import javax.annotation.Nonnull;
 import javax.annotation.Resource;
 
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+
+import org.sagebionetworks.bridge.config.BridgeConfig;
+import org.sagebionetworks.bridge.exceptions.ServiceUnavailableException;
 import org.sagebionetworks.bridge.models.studies.StudyIdentifier;
 import org.sagebionetworks.bridge.models.upload.Upload;
 import org.sagebionetworks.bridge.upload.UploadValidationTask;
@@ -15,13 +21,35 @@ import org.sagebionetworks.bridge.upload.UploadValidationTaskFactory;
 /** Service handler for upload validation. */
 @Component
 public class UploadValidationService {
-    private ExecutorService asyncExecutorService;
+    static final String CONFIG_KEY_MAX_TASKS_PER_STUDY = "upload.validation.max.tasks.per.study";
+
+    private final ConcurrentMap<String, Integer> taskCountsByStudy = new ConcurrentHashMap<>();
+    private ThreadPoolExecutor uploadValidationExecutor;
+    private Semaphore queuePermits;
+    private int totalQueuePermits;
     private UploadValidationTaskFactory taskFactory;
+    private int maxTasksPerStudy;
+
+    /** Bridge config, used to get the per-study task limit. */
+    @Autowired
+    public final void setConfig(BridgeConfig config) {
+        this.maxTasksPerStudy = config.getPropertyAsInt(CONFIG_KEY_MAX_TASKS_PER_STUDY);
+    }
 
-    /** Async thread pool. This is configured by Spring. */
-    @Resource(name = "asyncExecutorService")
-    public void setAsyncExecutorService(ExecutorService asyncExecutorService) {
-        this.asyncExecutorService = asyncExecutorService;
+    /** Maximum number of tasks queued or running for a single study. Package-scoped for unit tests. */
+    final void setMaxTasksPerStudy(int maxTasksPerStudy) {
+        this.maxTasksPerStudy = maxTasksPerStudy;
+    }
+
+    /**
+     * Bounded thread pool dedicated to upload validation. This is configured by Spring. Reservations are capped at the
+     * queue's capacity, so a reserved task always fits in the queue.
+     */
+    @Resource(name = "uploadValidationExecutor")
+    public void setUploadValidationExecutor(ThreadPoolExecutor uploadValidationExecutor) {
+        this.uploadValidationExecutor = uploadValidationExecutor;
+        this.totalQueuePermits = uploadValidationExecutor.getQueue().remainingCapacity();
+        this.queuePermits = new Semaphore(totalQueuePermits);
     }
 
     /** Task factory. This is configured by Spring. */
@@ -30,12 +58,67 @@ public class UploadValidationService {
         this.taskFactory = taskFactory;
     }
 
+    /**
+     * Reserves a validation slot for the study, or throws a ServiceUnavailableException if the validation queue is
+     * full, or if the study already has its share of queued and running tasks. This is called before the upload is
+     * marked complete, so the client can retry the upload completion later. The reservation is released when the
+     * task submitted by {@link #validateUpload} finishes. Callers that reserve capacity and then don't call
+     * validateUpload must call {@link #releaseCapacity}.
+     */
+    public void reserveCapacity(@Nonnull StudyIdentifier study) {
+        if (!tryReserve(study, 0)) {
+            throw new ServiceUnavailableException("Upload validation for study " + study.getIdentifier() +
+                    " is at capacity. Please try again later.");
+        }
+    }
+
+    /**
+     * Reserves a validation slot for a backfill. Unlike {@link #reserveCapacity}, this only succeeds while more than
+     * half of the queue is free, so backfills never take the headroom participants' uploads need. Returns false if
+     * no slot was reserved.
+     */
+    public boolean tryReserveBackfillCapacity(@Nonnull StudyIdentifier study) {
+        return tryReserve(study, totalQueuePermits / 2);
+    }
+
+    /** Releases a slot previously reserved with {@link #reserveCapacity} or {@link #tryReserveBackfillCapacity}. */
+    public void releaseCapacity(@Nonnull StudyIdentifier study) {
+        taskCountsByStudy.computeIfPresent(study.getIdentifier(), (key, count) -> count <= 1 ? null : count - 1);
+        queuePermits.release();
+    }
+
+    // Takes a queue permit and a study slot. Returns false, with nothing held, if either isn't available. The
+    // minFreePermits check is best-effort, but tryAcquire() never hands out more permits than the queue can hold.
+    private boolean tryReserve(StudyIdentifier study, int minFreePermits) {
+        if (queuePermits.availablePermits() <= minFreePermits || !queuePermits.tryAcquire()) {
+            return false;
+        }
+
+        boolean[] reserved = new boolean[1];
+        taskCountsByStudy.compute(study.getIdentifier(), (key, count) -> {
+            int current = count != null ? count : 0;
+            if (current >= maxTasksPerStudy) {
+                return count;
+            }
+            reserved[0] = true;
+            return current + 1;
+        });
+        if (!reserved[0]) {
+            queuePermits.release();
+        }
+        return reserved[0];
+    }
+
     /**
      * <p>
      * Kick off upload validation. Since upload validation can take some time, we handle this asynchronously. This
      * method returns immediately. Call UploadService.getUpload() to check for validation status and messages.
      * </p>
      * <p>
+     * The caller must already hold a slot from {@link #reserveCapacity} or {@link #tryReserveBackfillCapacity}. The
+     * slot is released when the task finishes, or immediately if the task can't be submitted.
+     * </p>
+     * <p>
      * Study and user comes from the controller and upload comes from UploadService.getUpload(), so none of the fields
      * are user input, so validation is not needed.
      * </p>
@@ -46,7 +129,37 @@ public class UploadValidationService {
      *         upload metadata object for the upload
      */
     public void validateUpload(@Nonnull StudyIdentifier study, @Nonnull Upload upload) {
-        UploadValidationTask task = taskFactory.newTask(study, upload);
-        asyncExecutorService.execute(task);
+        try {
+            UploadValidationTask task = taskFactory.newTask(study, upload);
+            task.setSubmissionStats(uploadValidationExecutor.getQueue().size(),
+                    uploadValidationExecutor.getActiveCount());
+            uploadValidationExecutor.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    releaseCapacity(study);
+                }
+            });
+        } catch (RuntimeException ex) {
+            // Reservations never exceed the queue capacity, so this only happens if the executor is shutting down.
+            releaseCapacity(study);
+            throw ex;
+        }
+    }
+
+    /** Number of tasks queued or running for the study. Package-scoped for unit tests. */
+    int getTaskCount(StudyIdentifier study) {
+        Integer taskCount = taskCountsByStudy.get(study.getIdentifier());
+        return taskCount != null ? taskCount : 0;
+    }
+
+    /** Number of free slots in the validation queue. Package-scoped for unit tests. */
+    int getAvailablePermits() {
+        return queuePermits.availablePermits();
+    }
+
+    /** Whether the study has an entry in the task count map. Package-scoped for unit tests. */
+    boolean hasTaskCountEntry(StudyIdentifier study) {
+        return taskCountsByStudy.containsKey(study.getIdentifier());
     }
 }
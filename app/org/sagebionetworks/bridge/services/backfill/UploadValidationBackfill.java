@@ -91,7 +91,17 @@ public abstract class UploadValidationBackfill extends AsyncBackfillTemplate {
                 String studyId = healthCodeDao.getStudyIdentifier(oneUpload.getHealthCode());
                 StudyIdentifier studyIdentifier = new StudyIdentifierImpl(studyId);
 
-                // Kick off upload validation.
+                // Wait for room in the validation queue. Backfills only use the first half of the queue, so they
+                // don't crowd out participants' uploads.
+                while (!uploadValidationService.tryReserveBackfillCapacity(studyIdentifier)) {
+                    try {
+                        Thread.sleep(1000);
+                    } catch (InterruptedException ex) {
+                        logger.error("Interrupted while waiting for validation capacity: " + ex.getMessage(), ex);
+                    }
+                }
+
+                // Kick off upload validation. This releases the reserved slot when validation finishes.
                 uploadValidationService.validateUpload(studyIdentifier, oneUpload);
 
                 recordMessage(task, callback, "Backfilled upload ID " + oneUploadId);
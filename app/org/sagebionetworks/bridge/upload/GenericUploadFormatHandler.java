@@ -101,6 +101,7 @@ public class GenericUploadFormatHandler implements UploadValidationHandler {
 
         // Get schema from info.json
         UploadSchema schema = getUploadSchema(studyId, infoJson);
+        context.setUploadSchema(schema);
         record.setSchemaId(schema.getSchemaId());
         record.setSchemaRevision(schema.getRevision());
 
@@ -134,14 +135,14 @@ public class GenericUploadFormatHandler implements UploadValidationHandler {
             }
 
             // Get the schema with the schema ID and rev.
-            return uploadSchemaService.getUploadSchemaByIdAndRev(studyId, surveySchemaId, surveySchemaRev);
+            return uploadSchemaService.getCachedUploadSchemaByIdAndRev(studyId, surveySchemaId, surveySchemaRev);
         }
 
         // Fall back to getting by schema.
         String schemaId = JsonUtils.asText(infoJson, UploadUtil.FIELD_ITEM);
         Integer schemaRev = JsonUtils.asInt(infoJson, UploadUtil.FIELD_SCHEMA_REV);
         if (StringUtils.isNotBlank(schemaId) && schemaRev != null) {
-            return uploadSchemaService.getUploadSchemaByIdAndRev(studyId, schemaId, schemaRev);
+            return uploadSchemaService.getCachedUploadSchemaByIdAndRev(studyId, schemaId, schemaRev);
         } else {
             throw new UploadValidationException("info.json must contain either item and schemaRevision or " +
                     "surveyGuid and surveyCreatedOn");
@@ -216,13 +217,13 @@ public class GenericUploadFormatHandler implements UploadValidationHandler {
                 JsonNode fieldNodeFromDataFile = dataFileNode.get(fieldName);
 
                 if (UploadFieldType.ATTACHMENT_TYPE_SET.contains(oneFieldDef.getType())) {
-                    fieldNode = uploadFileHelper.uploadJsonNodeAsAttachment(fieldNodeFromDataFile, uploadId,
+                    fieldNode = uploadFileHelper.uploadJsonNodeAsAttachment(context, fieldNodeFromDataFile,
                             fieldName);
                 } else {
                     fieldNode = fieldNodeFromDataFile;
                 }
             } else {
-                fieldNode = uploadFileHelper.findValueForField(uploadId, sanitizedUnzippedDataFileMap, oneFieldDef,
+                fieldNode = uploadFileHelper.findValueForField(context, sanitizedUnzippedDataFileMap, oneFieldDef,
                         parsedSanitizedJsonFileCache);
             }
 
@@ -145,6 +145,7 @@ public class IosSchemaValidationHandler2 implements UploadValidationHandler {
 
         // schema
         UploadSchema schema = getUploadSchema(context.getStudy(), infoJson);
+        context.setUploadSchema(schema);
         record.setSchemaId(schema.getSchemaId());
         record.setSchemaRevision(schema.getRevision());
 
@@ -210,7 +211,7 @@ public class IosSchemaValidationHandler2 implements UploadValidationHandler {
         }
 
         // Get the schema with the schema ID and rev.
-        return uploadSchemaService.getUploadSchemaByIdAndRev(study, schemaId, schemaRev);
+        return uploadSchemaService.getCachedUploadSchemaByIdAndRev(study, schemaId, schemaRev);
     }
 
     private UploadSchema getUploadSchemaByItemAndRev(StudyIdentifier study, String item, Integer schemaRev) {
@@ -229,7 +230,7 @@ public class IosSchemaValidationHandler2 implements UploadValidationHandler {
         }
 
         // get schema
-        return uploadSchemaService.getUploadSchemaByIdAndRev(study, item, schemaRev);
+        return uploadSchemaService.getCachedUploadSchemaByIdAndRev(study, item, schemaRev);
     }
 
     private static void validateInfoJsonFileList(UploadValidationContext context, String uploadId,
@@ -433,12 +434,12 @@ public class IosSchemaValidationHandler2 implements UploadValidationHandler {
                 if (UploadFieldType.ATTACHMENT_TYPE_SET.contains(oneFieldDef.getType())) {
                     // Attachments in a survey. This is unusual, but there's nothing in our schema system that prevents
                     // this. We should handle it just to be safe.
-                    fieldNode = uploadFileHelper.uploadJsonNodeAsAttachment(surveyAnswerNode, uploadId, fieldName);
+                    fieldNode = uploadFileHelper.uploadJsonNodeAsAttachment(context, surveyAnswerNode, fieldName);
                 } else {
                     fieldNode = surveyAnswerNode;
                 }
             } else {
-                fieldNode = uploadFileHelper.findValueForField(uploadId, sanitizedUnzippedDataFileMap, oneFieldDef,
+                fieldNode = uploadFileHelper.findValueForField(context, sanitizedUnzippedDataFileMap, oneFieldDef,
                         parsedSanitizedJsonFileCache);
             }
 
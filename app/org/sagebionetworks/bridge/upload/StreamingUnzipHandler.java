@@ -0,0 +1,76 @@
+package org.sagebionetworks.bridge.upload;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import javax.annotation.Nonnull;
+import javax.annotation.Resource;
+
+import com.amazonaws.services.s3.AmazonS3Client;
+import com.amazonaws.services.s3.model.S3Object;
+import com.google.common.io.ByteStreams;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import org.sagebionetworks.bridge.config.BridgeConfigFactory;
+import org.sagebionetworks.bridge.file.FileHelper;
+import org.sagebionetworks.bridge.services.UploadArchiveService;
+
+/**
+ * Validation handler that downloads, decrypts, and unzips the upload in a single pass. This replaces
+ * {@link S3DownloadHandler}, {@link DecryptHandler}, and {@link UnzipHandler} when streaming validation is enabled.
+ * The S3 object stream is piped through decryption and unzipping, so the only files written to the temp dir are the
+ * unzipped entries, which are written to
+ * {@link org.sagebionetworks.bridge.upload.UploadValidationContext#getUnzippedDataFileMap}. Neither
+ * {@link org.sagebionetworks.bridge.upload.UploadValidationContext#getDataFile} nor
+ * {@link org.sagebionetworks.bridge.upload.UploadValidationContext#getDecryptedDataFile} is set by this handler.
+ */
+@Component
+public class StreamingUnzipHandler implements UploadValidationHandler {
+    private static final String UPLOAD_BUCKET = BridgeConfigFactory.getConfig().getProperty("upload.bucket");
+
+    private FileHelper fileHelper;
+    private AmazonS3Client s3Client;
+    private UploadArchiveService uploadArchiveService;
+
+    /** File helper, used to create the files to unzip to and to get file streams. */
+    @Autowired
+    public final void setFileHelper(FileHelper fileHelper) {
+        this.fileHelper = fileHelper;
+    }
+
+    /** S3 client, used to stream the upload from S3. This is configured by Spring. */
+    @Resource(name = "s3Client")
+    public final void setS3Client(AmazonS3Client s3Client) {
+        this.s3Client = s3Client;
+    }
+
+    /** Upload archive service, which handles decrypting and unzipping of files. This is configured by Spring. */
+    @Autowired
+    public final void setUploadArchiveService(UploadArchiveService uploadArchiveService) {
+        this.uploadArchiveService = uploadArchiveService;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void handle(@Nonnull UploadValidationContext context) throws UploadValidationException {
+        Map<String, File> unzippedDataFileMap;
+        try (S3Object s3Object = s3Client.getObject(UPLOAD_BUCKET, context.getUpload().getObjectId());
+             InputStream encryptedInputStream = s3Object.getObjectContent();
+             InputStream decryptedInputStream = uploadArchiveService.decrypt(context.getStudy().getIdentifier(),
+                     encryptedInputStream)) {
+            unzippedDataFileMap = UnzipHandler.unzipToTempDir(fileHelper, uploadArchiveService, context.getTempDir(),
+                    decryptedInputStream);
+
+            // Unzipping stops at the last zip entry, which leaves the zip's central directory and the CMS trailer
+            // unread. Closing an S3 stream with unread bytes aborts the HTTP connection instead of returning it to the
+            // pool, so read both streams to the end first.
+            ByteStreams.exhaust(decryptedInputStream);
+            ByteStreams.exhaust(encryptedInputStream);
+        } catch (IOException ex) {
+            throw new UploadValidationException("Error streaming upload: " + ex.getMessage(), ex);
+        }
+        context.setUnzippedDataFileMap(unzippedDataFileMap);
+    }
+}
@@ -80,8 +80,11 @@ public class StrictValidationHandler implements UploadValidationHandler {
         String schemaId = record.getSchemaId();
         int schemaRev = record.getSchemaRevision();
 
-        // get schema
-        UploadSchema schema = uploadSchemaService.getUploadSchemaByIdAndRev(studyIdentifier, schemaId, schemaRev);
+        // get schema, reusing the one resolved by the upload format handler if it's the same revision
+        UploadSchema schema = context.getUploadSchema();
+        if (schema == null || !schemaId.equals(schema.getSchemaId()) || schemaRev != schema.getRevision()) {
+            schema = uploadSchemaService.getCachedUploadSchemaByIdAndRev(studyIdentifier, schemaId, schemaRev);
+        }
         List<UploadFieldDefinition> fieldDefList = schema.getFieldDefinitions();
 
         List<String> errorList = validateAllFields(fieldDefList, recordDataNode);
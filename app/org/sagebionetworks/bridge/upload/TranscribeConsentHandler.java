@@ -4,14 +4,26 @@ import javax.annotation.Nonnull;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.CacheProvider;
+import org.sagebionetworks.bridge.cache.VersionedLocalCache;
 import org.sagebionetworks.bridge.dao.AccountDao;
-import org.sagebionetworks.bridge.models.accounts.Account;
-import org.sagebionetworks.bridge.models.accounts.AccountId;
+import org.sagebionetworks.bridge.models.accounts.AccountRecordAttributes;
 import org.sagebionetworks.bridge.models.accounts.SharingScope;
 import org.sagebionetworks.bridge.models.healthdata.HealthDataRecord;
 
+/**
+ * Copies the participant's sharing scope, external ID and data groups onto the health data record. Participants
+ * often send many uploads at once, so these attributes are held in memory briefly, keyed by health code. Updating
+ * the account (including withdrawing consent) replaces the attributes' version stamp, so a change to the
+ * participant's sharing scope appears on new records within a few seconds.
+ */
 @Component
 public class TranscribeConsentHandler implements UploadValidationHandler {
+    static final int ATTRIBUTES_EXPIRE_SECONDS = 60;
+    static final int ATTRIBUTES_MAX_HEALTH_CODES = 10000;
+
+    private VersionedLocalCache<AccountRecordAttributes> attributesCache;
     private AccountDao accountDao;
 
     @Autowired
@@ -19,20 +31,33 @@ public class TranscribeConsentHandler implements UploadValidationHandler {
         this.accountDao = accountDao;
     }
 
+    @Autowired
+    public final void setCacheProvider(CacheProvider cacheProvider) {
+        this.attributesCache = new VersionedLocalCache<>(cacheProvider, ATTRIBUTES_MAX_HEALTH_CODES,
+                ATTRIBUTES_EXPIRE_SECONDS, VersionedLocalCache.DEFAULT_REVALIDATE_MILLIS);
+    }
+
     @Override
     public void handle(@Nonnull UploadValidationContext context) {
         HealthDataRecord record = context.getHealthDataRecord();
-        
-        AccountId accountId = AccountId.forHealthCode(context.getStudy().getIdentifier(), context.getHealthCode());
-        Account account = accountDao.getAccount(accountId);
-        if (account != null) {
+
+        AccountRecordAttributes attributes = getAccountRecordAttributes(context);
+        if (attributes != null) {
             // write user info to health data record
-            record.setUserSharingScope(account.getSharingScope());
-            record.setUserExternalId(account.getExternalId());
-            record.setUserDataGroups(account.getDataGroups());
+            record.setUserSharingScope(attributes.getSharingScope());
+            record.setUserExternalId(attributes.getExternalId());
+            record.setUserDataGroups(attributes.getDataGroups());
         } else {
             // default sharing to NO_SHARING
             record.setUserSharingScope(SharingScope.NO_SHARING);
         }
     }
+
+    // Missing accounts are not cached; they are rare and should be found as soon as they exist.
+    private AccountRecordAttributes getAccountRecordAttributes(UploadValidationContext context) {
+        CacheKey key = CacheKey.accountRecordAttributes(context.getStudy().getIdentifier(),
+                context.getHealthCode());
+        return attributesCache.get(key,
+                () -> accountDao.getAccountRecordAttributes(context.getStudy(), context.getHealthCode()));
+    }
 }
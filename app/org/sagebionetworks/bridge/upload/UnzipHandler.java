@@ -39,30 +39,42 @@ public class UnzipHandler implements UploadValidationHandler {
     /** {@inheritDoc} */
     @Override
     public void handle(@Nonnull UploadValidationContext context) throws UploadValidationException {
-        Map<String, File> unzippedDataFileMap = new HashMap<>();
+        Map<String, File> unzippedDataFileMap;
         try (InputStream zippedFileInputStream = fileHelper.getInputStream(context.getDecryptedDataFile())) {
-            uploadArchiveService.unzip(zippedFileInputStream,
-                    entryName -> {
-                        File unzippedFile = fileHelper.newFile(context.getTempDir(), entryName);
-                        unzippedDataFileMap.put(entryName, unzippedFile);
-                        try {
-                            return fileHelper.getOutputStream(unzippedFile);
-                        } catch (FileNotFoundException ex) {
-                            // BiConsumer doesn't throw, so wrap this in a RuntimeException.
-                            throw new RuntimeException(ex);
-                        }
-                    },
-                    (entryName, outputStream) -> {
-                        try {
-                            outputStream.close();
-                        } catch (IOException ex) {
-                            // BiConsumer doesn't throw, so wrap this in a RuntimeException.
-                            throw new RuntimeException(ex);
-                        }
-                    });
+            unzippedDataFileMap = unzipToTempDir(fileHelper, uploadArchiveService, context.getTempDir(),
+                    zippedFileInputStream);
         } catch (IOException ex) {
             throw new UploadValidationException("Error unzipping file: " + ex.getMessage(), ex);
         }
         context.setUnzippedDataFileMap(unzippedDataFileMap);
     }
+
+    /**
+     * Unzips the given stream, writing each entry to a file in the temp dir. Returns a map from entry name to the
+     * unzipped file. The caller is responsible for closing the stream. Shared with {@link StreamingUnzipHandler}.
+     */
+    static Map<String, File> unzipToTempDir(FileHelper fileHelper, UploadArchiveService uploadArchiveService,
+            File tempDir, InputStream zippedInputStream) {
+        Map<String, File> unzippedDataFileMap = new HashMap<>();
+        uploadArchiveService.unzip(zippedInputStream,
+                entryName -> {
+                    File unzippedFile = fileHelper.newFile(tempDir, entryName);
+                    unzippedDataFileMap.put(entryName, unzippedFile);
+                    try {
+                        return fileHelper.getOutputStream(unzippedFile);
+                    } catch (FileNotFoundException ex) {
+                        // BiConsumer doesn't throw, so wrap this in a RuntimeException.
+                        throw new RuntimeException(ex);
+                    }
+                },
+                (entryName, outputStream) -> {
+                    try {
+                        outputStream.close();
+                    } catch (IOException ex) {
+                        // BiConsumer doesn't throw, so wrap this in a RuntimeException.
+                        throw new RuntimeException(ex);
+                    }
+                });
+        return unzippedDataFileMap;
+    }
 }
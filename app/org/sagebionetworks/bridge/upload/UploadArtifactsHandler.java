@@ -8,11 +8,13 @@ import org.sagebionetworks.bridge.services.HealthDataService;
 
 /**
  * This handler submits the completed Health Data Record to the Health Data Service. This used to do more, but the
- * extra bookkeeping on attachments was deemed unnecessary.
+ * extra bookkeeping on attachments was deemed unnecessary. It does wait for the upload's attachments to finish writing
+ * to S3 first, so that the record never refers to an attachment that doesn't exist.
  */
 @Component
 public class UploadArtifactsHandler implements UploadValidationHandler {
     private HealthDataService healthDataService;
+    private UploadFileHelper uploadFileHelper;
 
     /** Health Data Service, used to submit health data records. */
     @Autowired
@@ -20,11 +22,20 @@ public class UploadArtifactsHandler implements UploadValidationHandler {
         this.healthDataService = healthDataService;
     }
 
+    /** Upload file helper, used to wait for attachment writes. */
+    @Autowired
+    public final void setUploadFileHelper(UploadFileHelper uploadFileHelper) {
+        this.uploadFileHelper = uploadFileHelper;
+    }
+
     /** {@inheritDoc} */
     @Override
-    public void handle(UploadValidationContext context) {
+    public void handle(UploadValidationContext context) throws UploadValidationException {
         String uploadId = context.getUploadId();
 
+        // Attachments are written in the background. Wait for them before the record refers to them.
+        uploadFileHelper.awaitAttachmentWrites(context);
+
         // Upload health data record. Set record ID to be the same as upload ID.
         HealthDataRecord record = context.getHealthDataRecord();
         record.setId(uploadId);
@@ -4,10 +4,16 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 
 import javax.annotation.Resource;
 
+import com.amazonaws.services.s3.transfer.TransferManager;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.TextNode;
 import com.google.common.base.Charsets;
@@ -25,8 +31,16 @@ import org.sagebionetworks.bridge.s3.S3Helper;
 import org.sagebionetworks.bridge.schema.SchemaUtils;
 
 /**
+ * <p>
  * Utility helper class for uploads, which wraps FileHelper and S3Helper and handles various tasks of parsing files and
  * uploading attachments.
+ * </p>
+ * <p>
+ * The methods which take an {@link UploadValidationContext} write attachments to S3 in the background, on the
+ * attachment upload executor, and add the pending writes to the context. Callers must call
+ * {@link #awaitAttachmentWrites} before persisting anything that refers to those attachments. The methods which take
+ * an upload ID write attachments before they return.
+ * </p>
  */
 @Component
 public class UploadFileHelper {
@@ -34,12 +48,16 @@ public class UploadFileHelper {
 
     // Package-scoped for unit tests.
     static final String ATTACHMENT_BUCKET = BridgeConfigFactory.getConfig().getProperty("attachment.bucket");
+    static final int MAX_CONCURRENT_ATTACHMENT_WRITES_PER_UPLOAD = 8;
 
     private FileHelper fileHelper;
     private int inlineFileSizeLimit = UploadUtil.FILE_SIZE_LIMIT_INLINE_FIELD;
     private int parsedJsonFileSizeLimit = UploadUtil.FILE_SIZE_LIMIT_PARSED_JSON;
     private int parsedJsonWarningLimit = UploadUtil.WARNING_LIMIT_PARSED_JSON;
+    private long multipartUploadThreshold = UploadUtil.FILE_SIZE_THRESHOLD_MULTIPART_UPLOAD;
     private S3Helper s3Helper;
+    private ExecutorService attachmentUploadExecutor;
+    private TransferManager attachmentTransferManager;
 
     /** File helper, used to check file sizes before parsing them into memory. */
     @Autowired
@@ -64,12 +82,35 @@ public class UploadFileHelper {
         this.parsedJsonWarningLimit = parsedJsonWarningLimit;
     }
 
+    /**
+     * Sets the file size at which attachment files are written to S3 with a multipart upload. This setter is to allow
+     * unit tests to override.
+     */
+    final void setMultipartUploadThreshold(@SuppressWarnings("SameParameterValue") long multipartUploadThreshold) {
+        this.multipartUploadThreshold = multipartUploadThreshold;
+    }
+
     /** S3 Helper, used to upload attachments. */
     @Resource(name = "s3Helper")
     public final void setS3Helper(S3Helper s3Helper) {
         this.s3Helper = s3Helper;
     }
 
+    /**
+     * Executor which attachment writes run on. The executor is shared by all uploads and bounds the number of
+     * attachment writes across the server.
+     */
+    @Resource(name = "attachmentUploadExecutor")
+    public final void setAttachmentUploadExecutor(ExecutorService attachmentUploadExecutor) {
+        this.attachmentUploadExecutor = attachmentUploadExecutor;
+    }
+
+    /** Transfer manager, used to write large attachment files to S3 as multipart uploads. */
+    @Resource(name = "attachmentTransferManager")
+    public final void setAttachmentTransferManager(TransferManager attachmentTransferManager) {
+        this.attachmentTransferManager = attachmentTransferManager;
+    }
+
     /**
      * Given some upload parameters and a list of files, find the value that matches the given upload schema field. The
      * field definition could refer to a file, or it can refer to the top-level key within a JSON file.
@@ -91,6 +132,26 @@ public class UploadFileHelper {
     public JsonNode findValueForField(String uploadId, Map<String, File> sanitizedUnzippedDataFileMap,
             UploadFieldDefinition fieldDef, Map<String, Map<String, JsonNode>> parsedSanitizedJsonFileCache)
             throws UploadValidationException {
+        return findValueForField(uploadId, null, sanitizedUnzippedDataFileMap, fieldDef,
+                parsedSanitizedJsonFileCache);
+    }
+
+    /**
+     * Same as {@link #findValueForField(String, Map, UploadFieldDefinition, Map)}, except that attachments are written
+     * in the background and added to the context's attachment write list. Call {@link #awaitAttachmentWrites} before
+     * persisting the record.
+     */
+    public JsonNode findValueForField(UploadValidationContext context,
+            Map<String, File> sanitizedUnzippedDataFileMap, UploadFieldDefinition fieldDef,
+            Map<String, Map<String, JsonNode>> parsedSanitizedJsonFileCache) throws UploadValidationException {
+        return findValueForField(context.getUploadId(), context, sanitizedUnzippedDataFileMap, fieldDef,
+                parsedSanitizedJsonFileCache);
+    }
+
+    // If context is null, attachments are written before this method returns.
+    private JsonNode findValueForField(String uploadId, UploadValidationContext context,
+            Map<String, File> sanitizedUnzippedDataFileMap, UploadFieldDefinition fieldDef,
+            Map<String, Map<String, JsonNode>> parsedSanitizedJsonFileCache) throws UploadValidationException {
         String fieldName = fieldDef.getName();
         boolean isAttachment = UploadFieldType.ATTACHMENT_TYPE_SET.contains(fieldDef.getType());
         JsonNode fieldNode;
@@ -100,11 +161,19 @@ public class UploadFileHelper {
             File fieldFile = sanitizedUnzippedDataFileMap.get(fieldName);
 
             if (isAttachment) {
-                if (fileHelper.fileSize(fieldFile) != 0) {
+                long fieldFileSize = fileHelper.fileSize(fieldFile);
+                if (fieldFileSize != 0) {
                     // Case 1a: The whole file is an attachment. Upload the file. Field JSON is attachment filename.
                     String attachmentFilename = uploadId + '-' + fieldName;
                     fieldNode = TextNode.valueOf(attachmentFilename);
-                    s3Helper.writeFileToS3(ATTACHMENT_BUCKET, attachmentFilename, fieldFile);
+                    writeAttachment(context, uploadId, fieldName, () -> {
+                        if (fieldFileSize >= multipartUploadThreshold) {
+                            attachmentTransferManager.upload(ATTACHMENT_BUCKET, attachmentFilename, fieldFile)
+                                    .waitForCompletion();
+                        } else {
+                            s3Helper.writeFileToS3(ATTACHMENT_BUCKET, attachmentFilename, fieldFile);
+                        }
+                    });
                 } else {
                     // Case 1b: The file is an empty attachment. Skip and return null.
                     fieldNode = null;
@@ -195,7 +264,7 @@ public class UploadFileHelper {
                 fieldNode = null;
             } else if (isAttachment) {
                 // Case 2b: This is an attachment. Write the found value as bytes and upload it.
-                fieldNode = uploadJsonNodeAsAttachment(foundValue, uploadId, fieldName);
+                fieldNode = uploadJsonNodeAsAttachment(uploadId, context, foundValue, fieldName);
             } else {
                 // Case 2c: Not an attachment. The field value is just the value we found.
                 fieldNode = foundValue;
@@ -211,14 +280,100 @@ public class UploadFileHelper {
      */
     public JsonNode uploadJsonNodeAsAttachment(JsonNode node, String uploadId, String fieldName)
             throws UploadValidationException {
+        return uploadJsonNodeAsAttachment(uploadId, null, node, fieldName);
+    }
+
+    /**
+     * Same as {@link #uploadJsonNodeAsAttachment(JsonNode, String, String)}, except that the attachment is written in
+     * the background and added to the context's attachment write list. Call {@link #awaitAttachmentWrites} before
+     * persisting the record.
+     */
+    public JsonNode uploadJsonNodeAsAttachment(UploadValidationContext context, JsonNode node, String fieldName)
+            throws UploadValidationException {
+        return uploadJsonNodeAsAttachment(context.getUploadId(), context, node, fieldName);
+    }
+
+    // If context is null, the attachment is written before this method returns.
+    private JsonNode uploadJsonNodeAsAttachment(String uploadId, UploadValidationContext context, JsonNode node,
+            String fieldName) throws UploadValidationException {
         String filename = uploadId + '-' + fieldName;
-        String jsonText = node.toString();
+        byte[] jsonBytes = node.toString().getBytes(Charsets.UTF_8);
+        writeAttachment(context, uploadId, fieldName, () -> s3Helper.writeBytesToS3(ATTACHMENT_BUCKET, filename,
+                jsonBytes));
+        return TextNode.valueOf(filename);
+    }
+
+    /**
+     * Waits for all attachment writes in the context's attachment write list to finish. This must be called before
+     * the health data record is persisted, so that the record never refers to attachments that aren't in S3.
+     *
+     * @throws UploadValidationException
+     *         if any attachment write failed
+     */
+    public void awaitAttachmentWrites(UploadValidationContext context) throws UploadValidationException {
+        String uploadId = context.getUploadId();
+        for (Future<?> attachmentWrite : context.getAttachmentWriteList()) {
+            awaitAttachmentWrite(uploadId, attachmentWrite);
+        }
+    }
+
+    // If context is null, writes the attachment on this thread. Otherwise, submits the write to the attachment upload
+    // executor and adds it to the context. (If the executor's queue is full, the write runs on this thread anyway.)
+    private void writeAttachment(UploadValidationContext context, String uploadId, String fieldName,
+            AttachmentWrite attachmentWrite) throws UploadValidationException {
+        if (context == null) {
+            writeAttachmentNow(uploadId, fieldName, attachmentWrite);
+            return;
+        }
+
+        // Wait for the oldest pending write if this upload already has too many, so that one upload with many
+        // attachments doesn't take over the executor.
+        List<Future<?>> pendingWriteList = context.getAttachmentWriteList().stream()
+                .filter(attachmentFuture -> !attachmentFuture.isDone()).collect(Collectors.toList());
+        if (pendingWriteList.size() >= MAX_CONCURRENT_ATTACHMENT_WRITES_PER_UPLOAD) {
+            awaitAttachmentWrite(uploadId, pendingWriteList.get(0));
+        }
+
+        context.addAttachmentWrite(attachmentUploadExecutor.submit(() -> {
+            writeAttachmentNow(uploadId, fieldName, attachmentWrite);
+            return null;
+        }));
+    }
+
+    private static void writeAttachmentNow(String uploadId, String fieldName, AttachmentWrite attachmentWrite)
+            throws UploadValidationException {
         try {
-            s3Helper.writeBytesToS3(ATTACHMENT_BUCKET, filename, jsonText.getBytes(Charsets.UTF_8));
+            attachmentWrite.write();
         } catch (IOException ex) {
             throw new UploadValidationException("Error writing attachment to S3, uploadId=" + uploadId +
                     ", fieldName=" + fieldName, ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new UploadValidationException("Interrupted writing attachment to S3, uploadId=" + uploadId +
+                    ", fieldName=" + fieldName, ex);
         }
-        return TextNode.valueOf(filename);
+    }
+
+    private static void awaitAttachmentWrite(String uploadId, Future<?> attachmentWrite)
+            throws UploadValidationException {
+        try {
+            attachmentWrite.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new UploadValidationException("Interrupted waiting for attachment writes, uploadId=" + uploadId,
+                    ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof UploadValidationException) {
+                throw (UploadValidationException) cause;
+            }
+            throw new UploadValidationException("Error writing attachment to S3, uploadId=" + uploadId, cause);
+        }
+    }
+
+    /** A single write of an attachment to S3. */
+    @FunctionalInterface
+    private interface AttachmentWrite {
+        void write() throws IOException, InterruptedException;
     }
 }
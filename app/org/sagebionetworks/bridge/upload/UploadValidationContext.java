@@ -4,10 +4,12 @@ import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Future;
 
 import org.sagebionetworks.bridge.models.healthdata.HealthDataRecord;
 import org.sagebionetworks.bridge.models.studies.StudyIdentifier;
 import org.sagebionetworks.bridge.models.upload.Upload;
+import org.sagebionetworks.bridge.models.upload.UploadSchema;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.google.common.collect.ImmutableList;
@@ -24,8 +26,10 @@ public class UploadValidationContext {
     private File decryptedDataFile;
     private Map<String, File> unzippedDataFileMap;
     private JsonNode infoJsonNode;
+    private UploadSchema uploadSchema;
     private HealthDataRecord healthDataRecord;
     private String recordId;
+    private List<Future<?>> attachmentWriteList = new ArrayList<>();
 
     /** Health code of the user contributing the health data. */
     public String getHealthCode() {
@@ -156,6 +160,20 @@ public class UploadValidationContext {
         this.infoJsonNode = infoJsonNode;
     }
 
+    /**
+     * Schema of the uploaded data. This is resolved from info.json by UploadFormatHandler's inner handlers and read by
+     * StrictValidationHandler, so the schema is only fetched once per upload. The schema is shared and must not be
+     * modified.
+     */
+    public UploadSchema getUploadSchema() {
+        return uploadSchema;
+    }
+
+    /** @see #getUploadSchema */
+    public void setUploadSchema(UploadSchema uploadSchema) {
+        this.uploadSchema = uploadSchema;
+    }
+
     /**
      * Health Data Record, created from the uploaded data. This is initially created by InitRecordHandler, is further
      * updated by UploadFormatHandler and its inner handlers and by TranscribeConsentHandler, and is finalized and
@@ -180,6 +198,20 @@ public class UploadValidationContext {
         this.recordId = recordId;
     }
 
+    /**
+     * Attachment writes to S3 which have been started but may not have finished. These are started by
+     * UploadFileHelper on behalf of UploadFormatHandler's inner handlers, and are waited on by UploadArtifactsHandler
+     * before the health data record is persisted.
+     */
+    public List<Future<?>> getAttachmentWriteList() {
+        return ImmutableList.copyOf(attachmentWriteList);
+    }
+
+    /** @see #getAttachmentWriteList */
+    public void addAttachmentWrite(Future<?> attachmentWrite) {
+        attachmentWriteList.add(attachmentWrite);
+    }
+
     /**
      * <p>
      * Makes a shallow copy of this object. The fields of the returned copy can be get and set without affecting the
@@ -189,7 +221,8 @@ public class UploadValidationContext {
      * </p>
      * <p>
      * The one notable exception is the message list, which will be deep copied. This is because the message list is
-     * always treated as mutable and any handler may write to it.
+     * always treated as mutable and any handler may write to it. The attachment write list, on the other hand, is
+     * shared, so that attachments written through the copy are still waited on before the record is persisted.
      * </p>
      * <p>
      * This is most useful for testing new and old versions of handlers, provided that handlers either treat the field
@@ -207,8 +240,10 @@ public class UploadValidationContext {
         copy.decryptedDataFile = this.decryptedDataFile;
         copy.unzippedDataFileMap = this.unzippedDataFileMap;
         copy.infoJsonNode = this.infoJsonNode;
+        copy.uploadSchema = this.uploadSchema;
         copy.healthDataRecord = this.healthDataRecord;
         copy.recordId = this.recordId;
+        copy.attachmentWriteList = this.attachmentWriteList;
 
         // messageList is the only field that gets deep copied
         copy.messageList = new ArrayList<>(this.messageList);
@@ -4,14 +4,19 @@ import javax.annotation.Nonnull;
 import java.io.File;
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.base.Stopwatch;
+import org.joda.time.DateTimeUtils;
 
 import org.sagebionetworks.bridge.BridgeUtils;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
 import org.sagebionetworks.bridge.file.FileHelper;
+import org.sagebionetworks.bridge.json.BridgeObjectMapper;
 import org.sagebionetworks.bridge.models.healthdata.HealthDataRecord;
 import org.sagebionetworks.bridge.services.HealthDataService;
 import org.slf4j.Logger;
@@ -28,6 +33,8 @@ public class UploadValidationTask implements Runnable {
     private static final Logger logger = LoggerFactory.getLogger(UploadValidationTask.class);
 
     private final UploadValidationContext context;
+    private final long createdOn;
+    private final ObjectNode metrics;
 
     private FileHelper fileHelper;
     private List<UploadValidationHandler> handlerList;
@@ -49,6 +56,22 @@ public class UploadValidationTask implements Runnable {
      */
     /* package-scoped */ UploadValidationTask(@Nonnull UploadValidationContext context) {
         this.context = context;
+        this.createdOn = DateTimeUtils.currentTimeMillis();
+        this.metrics = BridgeObjectMapper.get().createObjectNode();
+    }
+
+    /**
+     * Records the state of the validation executor at the time this task was submitted. These are written out with
+     * the rest of the task's metrics when the task completes.
+     */
+    public void setSubmissionStats(int queueDepth, int activeThreads) {
+        metrics.put("queue_depth", queueDepth);
+        metrics.put("active_threads", activeThreads);
+    }
+
+    /** This is package-scoped to facilitate unit tests. */
+    /* package-scoped */ ObjectNode getMetrics() {
+        return metrics;
     }
 
     /** This is package-scoped to facilitate unit tests. */
@@ -93,6 +116,11 @@ public class UploadValidationTask implements Runnable {
         File tempDir = fileHelper.createTempDir();
         context.setTempDir(tempDir);
 
+        // Time spent waiting in the executor queue.
+        long startedOn = DateTimeUtils.currentTimeMillis();
+        metrics.put("queue_wait_ms", startedOn - createdOn);
+        ObjectNode handlerMetrics = metrics.putObject("handler_ms");
+
         Stopwatch stopwatch = Stopwatch.createUnstarted();
         for (UploadValidationHandler oneHandler : handlerList) {
             String handlerName = oneHandler.getClass().getName();
@@ -124,13 +152,13 @@ public class UploadValidationTask implements Runnable {
             } finally {
                 long elapsedMillis = stopwatch.elapsed(TimeUnit.MILLISECONDS);
                 stopwatch.reset();
-                // TODO: send this to somewhere other than the logs
-                logger.info(String.format("Upload validation handler %s took %d ms", handlerName, elapsedMillis));
+                handlerMetrics.put(oneHandler.getClass().getSimpleName(), elapsedMillis);
             }
         }
 
         // write validation status to the upload DAO
         UploadStatus status = context.getSuccess() ? UploadStatus.SUCCEEDED : UploadStatus.VALIDATION_FAILED;
+        logMetrics(status, DateTimeUtils.currentTimeMillis() - startedOn);
         try {
             uploadDao.writeValidationStatus(context.getUpload(), status, context.getMessageList(),
                     context.getRecordId());
@@ -152,6 +180,10 @@ public class UploadValidationTask implements Runnable {
             logErrorMsg(e);
         }
 
+        // Attachment writes may still be running if validation failed before UploadArtifactsHandler waited for them.
+        // Let them finish before deleting the files they read from.
+        awaitAttachmentWrites();
+
         // Finally, delete the temp dir.
         try {
             fileHelper.deleteDirRecursively(tempDir);
@@ -160,6 +192,30 @@ public class UploadValidationTask implements Runnable {
         }
     }
 
+    // Failures are ignored here. Either the record was created (so the writes succeeded) or validation already
+    // failed.
+    private void awaitAttachmentWrites() {
+        for (Future<?> attachmentWrite : context.getAttachmentWriteList()) {
+            try {
+                attachmentWrite.get();
+            } catch (ExecutionException ex) {
+                // Nothing to do.
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    // Writes the task metrics as a single JSON line, in the same manner as the request metrics.
+    private void logMetrics(UploadStatus status, long elapsedMillis) {
+        metrics.put("study", context.getStudy().getIdentifier());
+        metrics.put("upload_id", context.getUpload().getUploadId());
+        metrics.put("status", status.name());
+        metrics.put("elapsed_ms", elapsedMillis);
+        logger.info(metrics.toString());
+    }
+
     // helper method to log exception
     void logErrorMsg(Throwable e) {
         logger.error("An error occurred:", e);
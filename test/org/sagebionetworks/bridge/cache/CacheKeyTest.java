@@ -6,6 +6,7 @@ import static org.junit.Assert.assertTrue;
 
 import org.junit.Test;
 import org.sagebionetworks.bridge.TestConstants;
+import org.sagebionetworks.bridge.models.GuidCreatedOnVersionHolderImpl;
 import org.sagebionetworks.bridge.models.accounts.SignIn;
 import org.sagebionetworks.bridge.models.subpopulations.SubpopulationGuid;
 
@@ -35,6 +36,11 @@ public class CacheKeyTest {
         assertEquals("api:AppConfigList", CacheKey.appConfigList(TestConstants.TEST_STUDY).toString());
     }
     
+    @Test
+    public void appConfigStamp() {
+        assertEquals("api:AppConfigStamp", CacheKey.appConfigStamp(TestConstants.TEST_STUDY).toString());
+    }
+    
     @Test
     public void channelThrottling() {
         assertEquals("userId:email:channel-throttling", CacheKey.channelThrottling("email", "userId").toString());
@@ -83,11 +89,26 @@ public class CacheKeyTest {
                 CacheKey.phoneSignInRequest(signIn).toString());
     }
     
+    @Test
+    public void publishedSurvey() {
+        assertEquals("api:guid:PublishedSurvey", CacheKey.publishedSurvey(TestConstants.TEST_STUDY, "guid").toString());
+    }
+    
     @Test
     public void requestInfo() {
         assertEquals("userId:request-info", CacheKey.requestInfo("userId").toString());
     }
     
+    @Test
+    public void resolvedReferences() {
+        assertEquals("api:ResolvedReferences", CacheKey.resolvedReferences(TestConstants.TEST_STUDY).toString());
+    }
+    
+    @Test
+    public void schedulePlanList() {
+        assertEquals("api:SchedulePlanList", CacheKey.schedulePlanList(TestConstants.TEST_STUDY).toString());
+    }
+    
     @Test
     public void sessionKey() {
         assertEquals("sessionToken:session", CacheKey.session("sessionToken").toString());
@@ -98,6 +119,11 @@ public class CacheKeyTest {
         assertEquals("api:study", CacheKey.study("api").toString());
     }    
     
+    @Test
+    public void studyStamp() {
+        assertEquals("api:StudyStamp", CacheKey.studyStamp("api").toString());
+    }
+    
     @Test
     public void subpop() {
         assertEquals("guid:api:Subpopulation", CacheKey.subpop(SUBPOP_GUID, TestConstants.TEST_STUDY).toString());
@@ -108,11 +134,28 @@ public class CacheKeyTest {
         assertEquals("api:SubpopulationList", CacheKey.subpopList(TestConstants.TEST_STUDY).toString());
     }
     
+    @Test
+    public void survey() {
+        assertEquals("guid:1337:Survey", CacheKey.survey(new GuidCreatedOnVersionHolderImpl("guid", 1337L)).toString());
+    }
+    
     @Test
     public void userSessionKey() {
         assertEquals("userId:session:user", CacheKey.sessionByUserId("userId").toString());
     }
     
+    @Test
+    public void uploadSchema() {
+        assertEquals("api:schemaId:3:UploadSchema",
+                CacheKey.uploadSchema(TestConstants.TEST_STUDY, "schemaId", 3).toString());
+    }
+    
+    @Test
+    public void uploadSchemaRevisions() {
+        assertEquals("api:schemaId:UploadSchemaRevisions",
+                CacheKey.uploadSchemaRevisions(TestConstants.TEST_STUDY, "schemaId").toString());
+    }
+    
     @Test
     public void verificationToken() {
         assertEquals("token", CacheKey.verificationToken("token").toString());
@@ -120,7 +163,13 @@ public class CacheKeyTest {
     
     @Test
     public void viewKey() {
-        assertEquals("a:b:StringBuilder:view", CacheKey.viewKey(StringBuilder.class, "a", "b").toString());
+        assertEquals("a:b:StringBuilder:viewBytes", CacheKey.viewKey(StringBuilder.class, "a", "b").toString());
+    }
+    
+    @Test
+    public void legacyViewKey() {
+        CacheKey viewKey = CacheKey.viewKey(StringBuilder.class, "a", "b");
+        assertEquals("a:b:StringBuilder:view", CacheKey.legacyViewKey(viewKey).toString());
     }
     
     @Test
@@ -1,5 +1,6 @@
 package org.sagebionetworks.bridge.cache;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
@@ -10,20 +11,26 @@ import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
 import org.joda.time.DateTime;
+import org.joda.time.DateTimeUtils;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
@@ -46,7 +53,9 @@ import org.sagebionetworks.bridge.models.subpopulations.SubpopulationGuid;
 import org.sagebionetworks.bridge.redis.JedisOps;
 import org.sagebionetworks.bridge.redis.JedisTransaction;
 
+import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
+import redis.clients.util.SafeEncoder;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.google.common.collect.Lists;
@@ -86,6 +95,11 @@ public class CacheProviderMockTest {
         cacheProvider.setBridgeObjectMapper(BridgeObjectMapper.get());
     }
 
+    @After
+    public void after() {
+        DateTimeUtils.setCurrentMillisSystem();
+    }
+
     private void mockTransaction(JedisTransaction trans) {
         when(trans.setex(any(String.class), anyInt(), any(String.class))).thenReturn(trans);
         when(trans.expire(any(String.class), anyInt())).thenReturn(trans);
@@ -227,6 +241,103 @@ public class CacheProviderMockTest {
         assertNull(cachedString);
     }
 
+    @Test
+    public void getStudyIsServedFromMemoryWithinRevalidationPeriod() throws Exception {
+        DateTimeUtils.setCurrentMillisFixed(1000L);
+        Study study = TestUtils.getValidStudy(CacheProviderMockTest.class);
+        String ser = BridgeObjectMapper.get().writeValueAsString(study);
+        when(jedisOps.get(CacheKey.study(study.getIdentifier()).toString())).thenReturn(ser);
+        when(jedisOps.get(CacheKey.studyStamp(study.getIdentifier()).toString())).thenReturn("stamp");
+        
+        Study first = cacheProvider.getStudy(study.getIdentifier());
+        Study second = cacheProvider.getStudy(study.getIdentifier());
+        
+        assertEquals(study.getIdentifier(), first.getIdentifier());
+        assertEquals(first, second);
+        // Only one read of the study from Redis
+        verify(jedisOps).get(CacheKey.study(study.getIdentifier()).toString());
+    }
+    
+    @Test
+    public void getStudyReturnsCopyThatCanBeModified() throws Exception {
+        Study study = TestUtils.getValidStudy(CacheProviderMockTest.class);
+        String studyKey = CacheKey.study(study.getIdentifier()).toString();
+        String ser = BridgeObjectMapper.get().writeValueAsString(study);
+        when(jedisOps.setex(studyKey, BridgeConstants.BRIDGE_SESSION_EXPIRE_IN_SECONDS, ser)).thenReturn("OK");
+        when(jedisOps.get(studyKey)).thenReturn(ser);
+        String originalName = study.getName();
+        
+        cacheProvider.setStudy(study);
+        
+        // Changing a study from the cache doesn't change the study that other callers get.
+        Study first = cacheProvider.getStudy(study.getIdentifier());
+        assertEquals(originalName, first.getName());
+        
+        first.setName("Changed after getStudy");
+        Study second = cacheProvider.getStudy(study.getIdentifier());
+        assertFalse(first == second);
+        assertEquals(originalName, second.getName());
+        
+        // Loaded once after it was set, then served from memory
+        verify(jedisOps, times(1)).get(studyKey);
+    }
+    
+    @Test
+    public void getStudyReadsStampBeforeStudy() throws Exception {
+        Study study = TestUtils.getValidStudy(CacheProviderMockTest.class);
+        String studyKey = CacheKey.study(study.getIdentifier()).toString();
+        String stampKey = CacheKey.studyStamp(study.getIdentifier()).toString();
+        when(jedisOps.get(studyKey)).thenReturn(BridgeObjectMapper.get().writeValueAsString(study));
+        when(jedisOps.get(stampKey)).thenReturn("stamp");
+        
+        cacheProvider.getStudy(study.getIdentifier());
+        
+        // If the study were read first, a write between the two reads would leave the old study cached under 
+        // the new stamp.
+        InOrder inOrder = inOrder(jedisOps);
+        inOrder.verify(jedisOps).get(stampKey);
+        inOrder.verify(jedisOps).get(studyKey);
+    }
+    
+    @Test
+    public void getStudyRevalidatesAgainstStamp() throws Exception {
+        DateTimeUtils.setCurrentMillisFixed(1000L);
+        Study study = TestUtils.getValidStudy(CacheProviderMockTest.class);
+        String studyKey = CacheKey.study(study.getIdentifier()).toString();
+        String stampKey = CacheKey.studyStamp(study.getIdentifier()).toString();
+        String ser = BridgeObjectMapper.get().writeValueAsString(study);
+        when(jedisOps.get(studyKey)).thenReturn(ser);
+        when(jedisOps.get(stampKey)).thenReturn("stamp");
+        
+        Study first = cacheProvider.getStudy(study.getIdentifier());
+        
+        // Stamp hasn't changed, the in-memory copy is still used
+        DateTimeUtils.setCurrentMillisFixed(1000L + CacheProvider.LOCAL_STUDY_REVALIDATE_MILLIS);
+        assertEquals(first, cacheProvider.getStudy(study.getIdentifier()));
+        verify(jedisOps, times(1)).get(studyKey);
+        
+        // Another node has updated the study, it is reloaded from Redis
+        when(jedisOps.get(stampKey)).thenReturn("stamp2");
+        DateTimeUtils.setCurrentMillisFixed(1000L + 2*CacheProvider.LOCAL_STUDY_REVALIDATE_MILLIS);
+        cacheProvider.getStudy(study.getIdentifier());
+        verify(jedisOps, times(2)).get(studyKey);
+    }
+    
+    @Test
+    public void removeStudyReplacesStampAndClearsMemory() throws Exception {
+        Study study = TestUtils.getValidStudy(CacheProviderMockTest.class);
+        String studyKey = CacheKey.study(study.getIdentifier()).toString();
+        String stampKey = CacheKey.studyStamp(study.getIdentifier()).toString();
+        when(jedisOps.setex(eq(studyKey), anyInt(), anyString())).thenReturn("OK");
+        
+        cacheProvider.setStudy(study);
+        cacheProvider.removeStudy(study.getIdentifier());
+        
+        verify(jedisOps).del(studyKey);
+        verify(jedisOps, times(2)).setex(eq(stampKey), eq(CacheProvider.STAMP_EXPIRE_IN_SECONDS), anyString());
+        assertNull(cacheProvider.getStudy(study.getIdentifier()));
+    }
+
     @Test
     public void newUserSessionDeserializes() {
         String json = TestUtils.createJson("{'authenticated':true,"+
@@ -331,6 +442,35 @@ public class CacheProviderMockTest {
         verify(jedisOps).get(CACHE_KEY.toString());
     }
     
+    @Test
+    public void getBytes() throws Exception {
+        byte[] value = "{}".getBytes(StandardCharsets.UTF_8);
+        Jedis mockJedis = mockJedisPool();
+        when(mockJedis.get(SafeEncoder.encode(CACHE_KEY.toString()))).thenReturn(value);
+        
+        assertArrayEquals(value, cacheProvider.getBytes(CACHE_KEY));
+        verify(mockJedis).close();
+    }
+    
+    @Test
+    public void setBytes() throws Exception {
+        byte[] value = "{}".getBytes(StandardCharsets.UTF_8);
+        Jedis mockJedis = mockJedisPool();
+        when(mockJedis.setex(SafeEncoder.encode(CACHE_KEY.toString()), 100, value)).thenReturn("OK");
+        
+        cacheProvider.setBytes(CACHE_KEY, value, 100);
+        verify(mockJedis).setex(SafeEncoder.encode(CACHE_KEY.toString()), 100, value);
+        verify(mockJedis).close();
+    }
+    
+    private Jedis mockJedisPool() {
+        Jedis mockJedis = mock(Jedis.class);
+        JedisPool mockJedisPool = mock(JedisPool.class);
+        when(mockJedisPool.getResource()).thenReturn(mockJedis);
+        cacheProvider.setJedisPool(mockJedisPool);
+        return mockJedis;
+    }
+    
     @Test
     public void getObjectWithReexpireOfString() throws Exception {
         String ser = BridgeObjectMapper.get().writeValueAsString("Test");
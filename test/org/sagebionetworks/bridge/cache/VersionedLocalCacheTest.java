@@ -0,0 +1,93 @@
+package org.sagebionetworks.bridge.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.joda.time.DateTimeUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class VersionedLocalCacheTest {
+
+    private static final CacheKey KEY = CacheKey.study("api");
+
+    private CacheProvider mockCacheProvider;
+    private VersionedLocalCache<String> cache;
+    private AtomicInteger loadCount;
+
+    @Before
+    public void before() {
+        DateTimeUtils.setCurrentMillisFixed(10000L);
+        mockCacheProvider = mock(CacheProvider.class);
+        cache = new VersionedLocalCache<>(mockCacheProvider, 10);
+        loadCount = new AtomicInteger();
+    }
+
+    @After
+    public void after() {
+        DateTimeUtils.setCurrentMillisSystem();
+    }
+
+    private String load() {
+        return "value" + loadCount.incrementAndGet();
+    }
+
+    @Test
+    public void valueIsLoadedOnceWithinRevalidationPeriod() {
+        when(mockCacheProvider.getStamp(KEY)).thenReturn("stamp");
+
+        assertEquals("value1", cache.get(KEY, this::load));
+        assertEquals("value1", cache.get(KEY, this::load));
+        assertEquals(1, loadCount.get());
+    }
+
+    @Test
+    public void missingStampIsCreated() {
+        when(mockCacheProvider.updateStamp(KEY)).thenReturn("stamp");
+
+        assertEquals("value1", cache.get(KEY, this::load));
+        verify(mockCacheProvider).updateStamp(KEY);
+    }
+
+    @Test
+    public void valueIsReloadedWhenStampChanges() {
+        when(mockCacheProvider.getStamp(KEY)).thenReturn("stamp");
+        assertEquals("value1", cache.get(KEY, this::load));
+
+        // Still current after revalidation
+        DateTimeUtils.setCurrentMillisFixed(10000L + VersionedLocalCache.DEFAULT_REVALIDATE_MILLIS);
+        assertEquals("value1", cache.get(KEY, this::load));
+
+        // Another server changes the stamp
+        when(mockCacheProvider.getStamp(KEY)).thenReturn("stamp2");
+        DateTimeUtils.setCurrentMillisFixed(10000L + VersionedLocalCache.DEFAULT_REVALIDATE_MILLIS*2);
+        assertEquals("value2", cache.get(KEY, this::load));
+    }
+
+    @Test
+    public void invalidateReplacesStampAndDiscardsValue() {
+        when(mockCacheProvider.getStamp(KEY)).thenReturn("stamp");
+        assertEquals("value1", cache.get(KEY, this::load));
+
+        cache.invalidate(KEY);
+        verify(mockCacheProvider).updateStamp(KEY);
+        assertEquals("value2", cache.get(KEY, this::load));
+    }
+
+    @Test
+    public void nullValuesAreNotCached() {
+        when(mockCacheProvider.getStamp(KEY)).thenReturn("stamp");
+
+        assertNull(cache.get(KEY, () -> {
+            loadCount.incrementAndGet();
+            return null;
+        }));
+        assertEquals("value2", cache.get(KEY, this::load));
+    }
+}
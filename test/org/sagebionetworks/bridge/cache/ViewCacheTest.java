@@ -1,11 +1,13 @@
 package org.sagebionetworks.bridge.cache;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
 
 import org.junit.Before;
@@ -22,6 +24,7 @@ import org.sagebionetworks.bridge.models.surveys.Survey;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ser.FilterProvider;
 import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.google.common.base.Strings;
 import com.google.common.base.Supplier;
 import com.google.common.collect.Maps;
 
@@ -45,7 +48,7 @@ public class ViewCacheTest {
         
         CacheKey cacheKey = cache.getCacheKey(Study.class, study.getIdentifier());
         CacheProvider provider = mock(CacheProvider.class);
-        when(provider.getObject(cacheKey, String.class)).thenReturn(null);
+        when(provider.getBytes(cacheKey)).thenReturn(null);
         cache.setCacheProvider(provider);
         
         String json = cache.getView(cacheKey, new Supplier<Study>() {
@@ -69,7 +72,7 @@ public class ViewCacheTest {
         CacheKey cacheKey = cache.getCacheKey(Study.class, study.getIdentifier());
         
         CacheProvider provider = mock(CacheProvider.class);
-        when(provider.getObject(cacheKey, String.class)).thenReturn(null);
+        when(provider.getBytes(cacheKey)).thenReturn(null);
         cache.setCacheProvider(provider);
         
         // It doesn't get wrapped or transformed or anything
@@ -95,7 +98,7 @@ public class ViewCacheTest {
         
         CacheKey cacheKey = cache.getCacheKey(Study.class, study.getIdentifier());
         CacheProvider provider = mock(CacheProvider.class);
-        when(provider.getObject(cacheKey, String.class)).thenReturn(originalStudyJson);
+        when(provider.getBytes(cacheKey)).thenReturn(originalStudyJson.getBytes(StandardCharsets.UTF_8));
         cache.setCacheProvider(provider);
         
         String json = cache.getView(cacheKey, new Supplier<Study>() {
@@ -138,7 +141,7 @@ public class ViewCacheTest {
         ViewCache cache = new ViewCache();
         
         CacheKey cacheKey = cache.getCacheKey(Study.class, "mostRandom", "leastRandom");
-        assertEquals("mostRandom:leastRandom:Study:view", cacheKey.toString());
+        assertEquals("mostRandom:leastRandom:Study:viewBytes", cacheKey.toString());
     }
     
     @Test
@@ -163,35 +166,60 @@ public class ViewCacheTest {
         
         // The string from this mapper doesn't have the "type" attribute, so if this passes, we
         // can be confident that the right mapper has been used.
-        verify(provider).setObject(cacheKey, mapper.writeValueAsString(survey), 1000);
+        verify(provider).setBytes(cacheKey, mapper.writeValueAsBytes(survey), 1000);
+    }
+    
+    @Test
+    public void largeViewIsCompressed() throws Exception {
+        ViewCache cache = new ViewCache();
+        cache.setObjectMapper(BridgeObjectMapper.get());
+        cache.setCachePeriod(BridgeConstants.BRIDGE_VIEW_EXPIRE_IN_SECONDS);
+        
+        CacheKey cacheKey = cache.getCacheKey(Study.class, study.getIdentifier());
+        cache.setCacheProvider(getSimpleCacheProvider(cacheKey, null));
+        
+        String name = Strings.repeat("A long study name. ", 500);
+        study.setName(name);
+        
+        String json = cache.getView(cacheKey, () -> study);
+        assertTrue(json.length() > ViewCache.COMPRESSION_THRESHOLD_BYTES);
+        
+        // Retrieved from the cache and decompressed
+        String cachedJson = cache.getView(cacheKey, () -> {
+            fail("This should not be called");
+            return null;
+        });
+        assertEquals(json, cachedJson);
+        assertEquals(name, BridgeObjectMapper.get().readValue(cachedJson, DynamoStudy.class).getName());
+    }
+    
+    @Test
+    public void removeViewAlsoRemovesViewCachedAsJsonString() throws Exception {
+        ViewCache cache = new ViewCache();
+        CacheProvider provider = mock(CacheProvider.class);
+        cache.setCacheProvider(provider);
+        
+        CacheKey cacheKey = cache.getCacheKey(Study.class, study.getIdentifier());
+        cache.removeView(cacheKey);
+        
+        verify(provider).removeObject(cacheKey);
+        // The key where servers running the earlier version cache the view as a JSON string
+        verify(provider).removeObject(CacheKey.legacyViewKey(cacheKey));
     }
     
     private CacheProvider getSimpleCacheProvider(final CacheKey cacheKey, final String originalStudyJson) {
         return new CacheProvider() {
-            private Map<CacheKey,String> map = Maps.newHashMap();
+            private Map<CacheKey,byte[]> map = Maps.newHashMap();
             {
-                map.put(cacheKey, originalStudyJson);
-            }
-            public <T> T getObject(CacheKey cacheKey, Class<T> clazz) {
-                try {
-                    return BridgeObjectMapper.get().readValue(map.get(cacheKey), clazz);    
-                } catch(Exception e) {
-                    return null;
+                if (originalStudyJson != null) {
+                    map.put(cacheKey, originalStudyJson.getBytes(StandardCharsets.UTF_8));
                 }
             }
-            public void setObject(CacheKey cacheKey, Object object) {
-                try {
-                    String ser = BridgeObjectMapper.get().writeValueAsString(object);
-                    map.put(cacheKey, ser);
-                } catch(Exception e) {
-                }
+            public byte[] getBytes(CacheKey cacheKey) {
+                return map.get(cacheKey);
             }
-            public void setObject(CacheKey cacheKey, Object object, int secondsUntilExpire) {
-                try {
-                    String ser = BridgeObjectMapper.get().writeValueAsString(object);
-                    map.put(cacheKey, ser);
-                } catch(Exception e) {
-                }
+            public void setBytes(CacheKey cacheKey, byte[] value, int secondsUntilExpire) {
+                map.put(cacheKey, value);
             }
             public void removeObject(CacheKey cacheKey) {
                 map.remove(cacheKey);
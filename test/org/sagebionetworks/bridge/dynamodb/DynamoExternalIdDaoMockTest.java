@@ -2,6 +2,7 @@ package org.sagebionetworks.bridge.dynamodb;
 
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.eq;
@@ -13,19 +14,27 @@ import static org.sagebionetworks.bridge.dynamodb.DynamoExternalIdDao.IDENTIFIER
 
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
 import com.amazonaws.services.dynamodbv2.datamodeling.QueryResultPage;
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.amazonaws.services.dynamodbv2.model.ConsumedCapacity;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.common.util.concurrent.RateLimiter;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
+import org.mockito.ArgumentCaptor;
 import org.mockito.MockitoAnnotations;
 
+import org.sagebionetworks.bridge.config.Config;
+import org.sagebionetworks.bridge.dao.ExternalIdDao;
+
 import org.sagebionetworks.bridge.models.ForwardCursorPagedResourceList;
 import org.sagebionetworks.bridge.models.accounts.ExternalIdentifierInfo;
 import org.sagebionetworks.bridge.models.studies.StudyIdentifierImpl;
@@ -54,6 +63,46 @@ public class DynamoExternalIdDaoMockTest {
         dao = new DynamoExternalIdDao();
         dao.setMapper(mapper);
         dao.setGetExternalIdRateLimiter(rateLimiter);
+        dao.setDdbQueryExecutorService(MoreExecutors.newDirectExecutorService());
+    }
+    
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    @Test
+    public void addExternalIdsChecksExistenceInBatches() {
+        Config config = mock(Config.class);
+        when(config.getInt(ExternalIdDao.CONFIG_KEY_ADD_LIMIT)).thenReturn(1000);
+        when(config.getInt(ExternalIdDao.EXTERNAL_ID_GET_RATE)).thenReturn(10);
+        dao.setConfig(config);
+        dao.setGetExternalIdRateLimiter(rateLimiter);
+        
+        List<String> externalIds = Lists.newArrayList();
+        for (int i=0; i < 250; i++) {
+            externalIds.add("id" + i);
+        }
+        // One ID in each batch already exists.
+        when(mapper.batchLoad(any(List.class))).thenAnswer(invocation -> {
+            List<DynamoExternalIdentifier> batch = (List<DynamoExternalIdentifier>) invocation.getArguments()[0];
+            return ImmutableMap.of("table", ImmutableList.of(batch.get(0)));
+        });
+        
+        dao.addExternalIds(new StudyIdentifierImpl("studyId"), externalIds);
+        
+        ArgumentCaptor<List> batchCaptor = ArgumentCaptor.forClass(List.class);
+        verify(mapper, times(3)).batchLoad(batchCaptor.capture());
+        assertEquals(100, batchCaptor.getAllValues().get(0).size());
+        assertEquals(100, batchCaptor.getAllValues().get(1).size());
+        assertEquals(50, batchCaptor.getAllValues().get(2).size());
+        verify(rateLimiter, times(2)).acquire(50);
+        verify(rateLimiter).acquire(25);
+        
+        ArgumentCaptor<List> saveCaptor = ArgumentCaptor.forClass(List.class);
+        verify(mapper).batchSave(saveCaptor.capture());
+        List<String> savedIds = ((List<DynamoExternalIdentifier>) saveCaptor.getValue()).stream()
+                .map(DynamoExternalIdentifier::getIdentifier).collect(Collectors.toList());
+        assertEquals(247, savedIds.size());
+        assertFalse(savedIds.contains("id0"));
+        assertFalse(savedIds.contains("id100"));
+        assertFalse(savedIds.contains("id200"));
     }
     
     @Test
@@ -3,11 +3,13 @@ package org.sagebionetworks.bridge.dynamodb;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 import java.util.Collections;
@@ -21,6 +23,8 @@ import com.amazonaws.services.dynamodbv2.document.ItemCollection;
 import com.amazonaws.services.dynamodbv2.document.internal.IteratorSupport;
 import com.amazonaws.services.dynamodbv2.model.WriteRequest;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 
@@ -133,6 +137,43 @@ public class DynamoHealthDataDaoTest {
         assertEquals("error record", recordKeyList.get(0).getId());
     }
 
+    @Test
+    public void getRecordsByIds() {
+        DynamoHealthDataRecord record1 = new DynamoHealthDataRecord();
+        record1.setId("record-1");
+        DynamoHealthDataRecord record2 = new DynamoHealthDataRecord();
+        record2.setId("record-2");
+
+        // mock mapper
+        DynamoDBMapper mockMapper = mock(DynamoDBMapper.class);
+        ArgumentCaptor<List> arg = ArgumentCaptor.forClass(List.class);
+        when(mockMapper.batchLoad(arg.capture())).thenReturn(
+                ImmutableMap.of("HealthDataRecord3", ImmutableList.of(record1, record2)));
+
+        DynamoHealthDataDao dao = new DynamoHealthDataDao();
+        dao.setMapper(mockMapper);
+
+        // execute and validate
+        List<HealthDataRecord> retVal = dao.getRecordsByIds(ImmutableSet.of("record-1", "record-2", "record-3"));
+        assertEquals(ImmutableList.of(record1, record2), retVal);
+
+        List<HealthDataRecord> keyList = arg.getValue();
+        assertEquals(3, keyList.size());
+        assertEquals("record-1", keyList.get(0).getId());
+        assertEquals("record-2", keyList.get(1).getId());
+        assertEquals("record-3", keyList.get(2).getId());
+    }
+
+    @Test
+    public void getRecordsByIdsEmpty() {
+        DynamoDBMapper mockMapper = mock(DynamoDBMapper.class);
+        DynamoHealthDataDao dao = new DynamoHealthDataDao();
+        dao.setMapper(mockMapper);
+
+        assertTrue(dao.getRecordsByIds(ImmutableSet.of()).isEmpty());
+        verifyZeroInteractions(mockMapper);
+    }
+
     @Test
     public void getRecordsForUploadDate() {
         // mock index helper
@@ -20,6 +20,8 @@ import com.amazonaws.services.dynamodbv2.document.Page;
 import com.amazonaws.services.dynamodbv2.document.QueryOutcome;
 import com.amazonaws.services.dynamodbv2.document.RangeKeyCondition;
 import com.amazonaws.services.dynamodbv2.document.spec.QuerySpec;
+import com.amazonaws.services.dynamodbv2.model.QueryResult;
+import com.amazonaws.services.dynamodbv2.model.Select;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
@@ -74,16 +76,21 @@ public class DynamoIndexHelperTest {
     }
     
     private static class TestPage<T,R> extends Page<T,R> {
+        private final Page<T,R> nextPage;
         public TestPage(List<T> content, R lowLevelResult) {
+            this(content, lowLevelResult, null);
+        }
+        public TestPage(List<T> content, R lowLevelResult, Page<T,R> nextPage) {
             super(content, lowLevelResult);
+            this.nextPage = nextPage;
         }
         @Override
         public boolean hasNextPage() {
-            return false;
+            return nextPage != null;
         }
         @Override
         public Page<T, R> nextPage() {
-            return null;
+            return nextPage;
         }
     }
     
@@ -141,10 +148,29 @@ public class DynamoIndexHelperTest {
     
     @Test
     public void testCount() {
-        mockResultsOfQuery(null);
-        int count = helper.queryKeyCount("test key", "test value", null);
-        // There are two lists of two items each
-        assertEquals(4, count);
+        RangeKeyCondition rangeKeyCondition = new RangeKeyCondition("antwerp").eq("belgium");
+        helper = new DynamoIndexHelper();
+        Index mockIndex = mock(Index.class);
+        helper.setIndex(mockIndex);
+        
+        // Two pages of counts, with no items
+        Page<Item,QueryOutcome> secondPage = new TestPage<>(ImmutableList.of(),
+                new QueryOutcome(new QueryResult().withCount(3)));
+        Page<Item,QueryOutcome> firstPage = new TestPage<>(ImmutableList.of(),
+                new QueryOutcome(new QueryResult().withCount(4)), secondPage);
+        ItemCollection mockItemCollection = mock(ItemCollection.class);
+        when(mockItemCollection.firstPage()).thenReturn(firstPage);
+        ArgumentCaptor<QuerySpec> specCaptor = ArgumentCaptor.forClass(QuerySpec.class);
+        when(mockIndex.query(specCaptor.capture())).thenReturn(mockItemCollection);
+        
+        int count = helper.queryKeyCount("test key", "test value", rangeKeyCondition);
+        assertEquals(7, count);
+        
+        QuerySpec spec = specCaptor.getValue();
+        assertEquals(Select.COUNT.toString(), spec.getSelect());
+        assertEquals("test key", spec.getHashKey().getName());
+        assertEquals("test value", spec.getHashKey().getValue());
+        assertEquals(rangeKeyCondition, spec.getRangeKeyCondition());
     }
     
     @Test
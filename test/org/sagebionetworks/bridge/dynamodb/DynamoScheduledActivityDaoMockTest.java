@@ -7,9 +7,11 @@ import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
+import static org.sagebionetworks.bridge.BridgeConstants.API_MAXIMUM_PAGE_SIZE;
 import static org.sagebionetworks.bridge.TestConstants.ENROLLMENT;
 import static org.sagebionetworks.bridge.TestConstants.TEST_STUDY;
 
@@ -29,6 +31,7 @@ import org.mockito.ArgumentCaptor;
 import org.sagebionetworks.bridge.BridgeUtils;
 import org.sagebionetworks.bridge.TestUtils;
 import org.sagebionetworks.bridge.config.BridgeConfigFactory;
+import org.sagebionetworks.bridge.exceptions.BadRequestException;
 import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
 import org.sagebionetworks.bridge.models.ClientInfo;
 import org.sagebionetworks.bridge.models.schedules.ActivityType;
@@ -40,8 +43,10 @@ import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBQueryExpression;
 import com.amazonaws.services.dynamodbv2.datamodeling.PaginatedQueryList;
 import com.amazonaws.services.dynamodbv2.datamodeling.QueryResultPage;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.MoreExecutors;
 
 public class DynamoScheduledActivityDaoMockTest {
 
@@ -72,6 +77,7 @@ public class DynamoScheduledActivityDaoMockTest {
         when(mapper.load(any(DynamoScheduledActivity.class))).thenReturn(testSchActivity);
         activityDao = new DynamoScheduledActivityDao();
         activityDao.setDdbMapper(mapper);
+        activityDao.setDdbQueryExecutorService(MoreExecutors.newDirectExecutorService());
     }
 
     @After
@@ -175,6 +181,29 @@ public class DynamoScheduledActivityDaoMockTest {
         verifyNoMoreInteractions(mapper);
     }
     
+    @SuppressWarnings("unchecked")
+    @Test
+    public void getActivityHistoriesQueriesEachActivityGuid() throws Exception {
+        DynamoScheduledActivity activity = new DynamoScheduledActivity();
+        activity.setHealthCode(HEALTH_CODE);
+        activity.setGuid("AAA:2015-04-12T13:00:00.000");
+        mockMapperResults(Lists.newArrayList(activity));
+        
+        List<ScheduledActivity> results = activityDao.getActivityHistoriesV2(HEALTH_CODE,
+                ImmutableSet.of("AAA", "BBB"), NOW.minusDays(1), NOW, API_MAXIMUM_PAGE_SIZE);
+        
+        // The mock returns the same page for both queries
+        assertEquals(2, results.size());
+        assertEquals(PACIFIC_TIME_ZONE, results.get(0).getTimeZone());
+        verify(mapper, times(2)).queryPage((Class<DynamoScheduledActivity>) any(Class.class),
+                (DynamoDBQueryExpression<DynamoScheduledActivity>) any(DynamoDBQueryExpression.class));
+    }
+    
+    @Test(expected = BadRequestException.class)
+    public void getActivityHistoriesRethrowsDaoException() {
+        activityDao.getActivityHistoriesV2(HEALTH_CODE, ImmutableSet.of("AAA"), NOW.minusDays(1), NOW, 1);
+    }
+    
     @SuppressWarnings("unchecked")
     public void testOnlyPersistedActivitiesReturned() {
         DateTime endsOn = NOW.plus(Period.parse("P2D"));
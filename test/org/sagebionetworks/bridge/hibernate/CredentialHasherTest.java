@@ -0,0 +1,64 @@
+package org.sagebionetworks.bridge.hibernate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.sagebionetworks.bridge.exceptions.ServiceUnavailableException;
+import org.sagebionetworks.bridge.models.accounts.PasswordAlgorithm;
+
+import com.google.common.util.concurrent.MoreExecutors;
+
+public class CredentialHasherTest {
+    private static final String PASSWORD = "P4ssword!";
+
+    private CredentialHasher hasher;
+
+    @Before
+    public void before() {
+        hasher = new CredentialHasher();
+        hasher.setCredentialHashingExecutor(MoreExecutors.newDirectExecutorService());
+    }
+
+    @Test
+    public void generateAndCheckHash() throws Exception {
+        String hash = hasher.generateHash(PasswordAlgorithm.BCRYPT, PASSWORD);
+
+        assertTrue(hasher.checkHash(PasswordAlgorithm.BCRYPT, hash, PASSWORD));
+        assertFalse(hasher.checkHash(PasswordAlgorithm.BCRYPT, hash, "wrong password"));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void fullQueueRejectsWithRetryAfter() throws Exception {
+        ExecutorService mockExecutor = mock(ExecutorService.class);
+        when(mockExecutor.submit(any(Callable.class))).thenThrow(new RejectedExecutionException());
+        hasher.setCredentialHashingExecutor(mockExecutor);
+
+        try {
+            hasher.checkHash(PasswordAlgorithm.BCRYPT, "hash", PASSWORD);
+            fail("Should have thrown exception");
+        } catch (ServiceUnavailableException e) {
+            assertEquals(503, e.getStatusCode());
+            assertEquals(CredentialHasher.CAPACITY_ERROR, e.getMessage());
+            assertEquals((Integer) CredentialHasher.RETRY_AFTER_SECONDS, e.getRetryAfterSeconds());
+        }
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void hashingExceptionsArePropagated() throws Exception {
+        // The PBKDF2 hash must start with the number of iterations
+        hasher.checkHash(PasswordAlgorithm.PBKDF2_HMAC_SHA_256, "abc$salt$hash", PASSWORD);
+    }
+}
@@ -26,6 +26,7 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.MoreExecutors;
 
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeUtils;
@@ -41,18 +42,23 @@ import org.mockito.runners.MockitoJUnitRunner;
 import org.sagebionetworks.bridge.Roles;
 import org.sagebionetworks.bridge.TestConstants;
 import org.sagebionetworks.bridge.TestUtils;
+import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.dao.AccountDao;
 import org.sagebionetworks.bridge.exceptions.AccountDisabledException;
+import org.sagebionetworks.bridge.exceptions.BadRequestException;
 import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
 import org.sagebionetworks.bridge.exceptions.ConcurrentModificationException;
 import org.sagebionetworks.bridge.exceptions.EntityAlreadyExistsException;
 import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
 import org.sagebionetworks.bridge.exceptions.UnauthorizedException;
 import org.sagebionetworks.bridge.models.AccountSummarySearch;
+import org.sagebionetworks.bridge.models.ForwardCursorPagedResourceList;
 import org.sagebionetworks.bridge.models.PagedResourceList;
 import org.sagebionetworks.bridge.models.ResourceList;
 import org.sagebionetworks.bridge.models.accounts.Account;
 import org.sagebionetworks.bridge.models.accounts.AccountId;
+import org.sagebionetworks.bridge.models.accounts.AccountRecordAttributes;
 import org.sagebionetworks.bridge.models.accounts.AccountStatus;
 import org.sagebionetworks.bridge.models.accounts.AccountSummary;
 import org.sagebionetworks.bridge.models.accounts.GenericAccount;
@@ -122,6 +128,7 @@ public class HibernateAccountDaoTest {
     private HealthCodeService mockHealthCodeService;
     private HibernateAccountDao dao;
     private HibernateHelper mockHibernateHelper;
+    private CacheProvider mockCacheProvider;
 
     @BeforeClass
     public static void mockNow() {
@@ -137,6 +144,7 @@ public class HibernateAccountDaoTest {
     public void before() {
         mockHealthCodeService = mock(HealthCodeService.class);
         mockHibernateHelper = mock(HibernateHelper.class);
+        mockCacheProvider = mock(CacheProvider.class);
         
         // Mock successful update.
         when(mockHibernateHelper.update(any())).thenAnswer(invocation -> {
@@ -148,6 +156,11 @@ public class HibernateAccountDaoTest {
         dao = new HibernateAccountDao();
         dao.setHealthCodeService(mockHealthCodeService);
         dao.setHibernateHelper(mockHibernateHelper);
+        dao.setCacheProvider(mockCacheProvider);
+        
+        CredentialHasher credentialHasher = new CredentialHasher();
+        credentialHasher.setCredentialHashingExecutor(MoreExecutors.newDirectExecutorService());
+        dao.setCredentialHasher(credentialHasher);
         
         when(mockHealthCodeService.createMapping(TestConstants.TEST_STUDY)).thenReturn(new HealthIdImpl(HEALTH_ID,
                 HEALTH_CODE));
@@ -581,6 +594,21 @@ public class HibernateAccountDaoTest {
         assertNotEquals(account.getReauthToken(), hibernateAccount.getReauthTokenHash());
     }
     
+    @Test
+    public void reauthenticateMigratesReauthTokenToTokenAlgorithm() throws Exception {
+        // The existing token was hashed with the password algorithm
+        HibernateAccount hibernateAccount = makeValidHibernateAccount(false, true);
+        when(mockHibernateHelper.queryGet(any(), any(), any(), any(), any())).thenReturn(ImmutableList.of(hibernateAccount));
+        assertEquals(PasswordAlgorithm.DEFAULT_PASSWORD_ALGORITHM, hibernateAccount.getReauthTokenAlgorithm());
+        
+        Account account = dao.reauthenticate(study, REAUTH_SIGNIN);
+        
+        // The new token is hashed with the token algorithm
+        assertEquals(PasswordAlgorithm.DEFAULT_TOKEN_ALGORITHM, hibernateAccount.getReauthTokenAlgorithm());
+        assertTrue(PasswordAlgorithm.DEFAULT_TOKEN_ALGORITHM.checkHash(hibernateAccount.getReauthTokenHash(),
+                account.getReauthToken()));
+    }
+    
     @Test
     public void reauthenticationDisabled() throws Exception {
         study.setReauthenticationEnabled(false);
@@ -682,7 +710,7 @@ public class HibernateAccountDaoTest {
 
         Account account = dao.getAccountAfterAuthentication(ACCOUNT_ID_WITH_EMAIL);
         
-        String newHash = PasswordAlgorithm.DEFAULT_PASSWORD_ALGORITHM.generateHash(account.getReauthToken());
+        String newHash = PasswordAlgorithm.DEFAULT_TOKEN_ALGORITHM.generateHash(account.getReauthToken());
         assertNotEquals(originalReauthTokenHash, newHash);
         
         ArgumentCaptor<HibernateAccount> accountCaptor = ArgumentCaptor.forClass(HibernateAccount.class);
@@ -691,7 +719,8 @@ public class HibernateAccountDaoTest {
         
         HibernateAccount captured = accountCaptor.getValue();
         
-        assertTrue(PasswordAlgorithm.DEFAULT_PASSWORD_ALGORITHM.checkHash(captured.getReauthTokenHash(),
+        assertEquals(PasswordAlgorithm.DEFAULT_TOKEN_ALGORITHM, captured.getReauthTokenAlgorithm());
+        assertTrue(PasswordAlgorithm.DEFAULT_TOKEN_ALGORITHM.checkHash(captured.getReauthTokenHash(),
                 account.getReauthToken()));
     }
 
@@ -928,6 +957,7 @@ public class HibernateAccountDaoTest {
         // weren't modified.
         HibernateAccount persistedAccount = new HibernateAccount();
         persistedAccount.setStudyId("persisted-study");
+        persistedAccount.setHealthCode(HEALTH_CODE);
         persistedAccount.setEmail("persisted@example.com");
         persistedAccount.setCreatedOn(1234L);
         persistedAccount.setPasswordModifiedOn(5678L);
@@ -968,6 +998,9 @@ public class HibernateAccountDaoTest {
         assertEquals(5678, updatedHibernateAccount.getPasswordModifiedOn().longValue());
         assertEquals(MOCK_NOW_MILLIS, updatedHibernateAccount.getModifiedOn().longValue());
         assertEquals(EXTERNAL_ID, updatedHibernateAccount.getExternalId());
+        
+        // Servers holding the account's record attributes in memory are told they changed.
+        verify(mockCacheProvider).updateStamp(CacheKey.accountRecordAttributes("persisted-study", HEALTH_CODE));
     }
     
     @Test
@@ -1347,7 +1380,49 @@ public class HibernateAccountDaoTest {
         assertEquals("email2@example.com", accountSummaryList.get(1).getEmail());
 
         // verify hibernate call
-        verify(mockHibernateHelper).queryGet("from HibernateAccount", null, null, null, HibernateAccount.class);
+        verify(mockHibernateHelper).queryGet(HibernateAccountDao.ACCOUNT_SUMMARY_QUERY_PREFIX +
+                "from HibernateAccount order by id", ImmutableMap.of(), null,
+                HibernateAccountDao.ACCOUNT_ITERATOR_PAGE_SIZE, HibernateAccount.class);
+    }
+
+    @Test
+    public void getAllInStudyLoadsPagesByLastId() throws Exception {
+        // A full page, followed by a partial page
+        List<HibernateAccount> firstPage = Lists.newArrayList();
+        for (int i=0; i < HibernateAccountDao.ACCOUNT_ITERATOR_PAGE_SIZE; i++) {
+            HibernateAccount account = makeValidHibernateAccount(false, false);
+            account.setId(String.format("account-%03d", i));
+            firstPage.add(account);
+        }
+        HibernateAccount lastAccount = makeValidHibernateAccount(false, false);
+        lastAccount.setId("account-999");
+        
+        String lastIdOfFirstPage = firstPage.get(firstPage.size()-1).getId();
+        Map<String,Object> secondPageParams = new ImmutableMap.Builder<String,Object>()
+                .put("studyId", TestConstants.TEST_STUDY_IDENTIFIER)
+                .put("lastId", lastIdOfFirstPage).build();
+        
+        String prefix = HibernateAccountDao.ACCOUNT_SUMMARY_QUERY_PREFIX;
+        when(mockHibernateHelper.queryGet(prefix + "from HibernateAccount where studyId=:studyId order by id",
+                STUDY_QUERY_PARAMS, null, HibernateAccountDao.ACCOUNT_ITERATOR_PAGE_SIZE, HibernateAccount.class))
+                .thenReturn(firstPage);
+        when(mockHibernateHelper.queryGet(
+                prefix + "from HibernateAccount where studyId=:studyId and id > :lastId order by id",
+                secondPageParams, null, HibernateAccountDao.ACCOUNT_ITERATOR_PAGE_SIZE, HibernateAccount.class))
+                .thenReturn(ImmutableList.of(lastAccount));
+        
+        Iterator<AccountSummary> accountSummaryIter = dao.getStudyAccounts(study);
+        
+        // Nothing is loaded until the iterator is used
+        verify(mockHibernateHelper, never()).queryGet(any(), any(), any(), any(), any());
+        
+        List<AccountSummary> accountSummaryList = ImmutableList.copyOf(accountSummaryIter);
+        assertEquals(HibernateAccountDao.ACCOUNT_ITERATOR_PAGE_SIZE + 1, accountSummaryList.size());
+        assertEquals("account-000", accountSummaryList.get(0).getId());
+        assertEquals("account-999", accountSummaryList.get(accountSummaryList.size()-1).getId());
+        
+        // The partial page is the last page
+        verify(mockHibernateHelper, times(2)).queryGet(any(), any(), any(), any(), any());
     }
 
     @Test
@@ -1378,8 +1453,9 @@ public class HibernateAccountDaoTest {
         assertEquals("email2@example.com", accountSummaryList.get(1).getEmail());
 
         // verify hibernate call
-        verify(mockHibernateHelper).queryGet("from HibernateAccount where studyId=:studyId", STUDY_QUERY_PARAMS, null,
-                null, HibernateAccount.class);
+        verify(mockHibernateHelper).queryGet(HibernateAccountDao.ACCOUNT_SUMMARY_QUERY_PREFIX +
+                "from HibernateAccount where studyId=:studyId order by id", STUDY_QUERY_PARAMS, null,
+                HibernateAccountDao.ACCOUNT_ITERATOR_PAGE_SIZE, HibernateAccount.class);
     }
 
     @Test
@@ -1429,6 +1505,107 @@ public class HibernateAccountDaoTest {
         verify(mockHibernateHelper).queryCount(expectedQueryString, STUDY_QUERY_PARAMS);
     }
 
+    @Test
+    public void getByCursorFirstPage() throws Exception {
+        // One more account than the page size indicates there's another page
+        HibernateAccount hibernateAccount1 = makeValidHibernateAccount(false, false);
+        hibernateAccount1.setId("account-1");
+        hibernateAccount1.setCreatedOn(1000L);
+        HibernateAccount hibernateAccount2 = makeValidHibernateAccount(false, false);
+        hibernateAccount2.setId("account-2");
+        hibernateAccount2.setCreatedOn(2000L);
+        HibernateAccount hibernateAccount3 = makeValidHibernateAccount(false, false);
+        hibernateAccount3.setId("account-3");
+        hibernateAccount3.setCreatedOn(3000L);
+
+        when(mockHibernateHelper.queryGet(any(), any(), any(), any(), any())).thenReturn(ImmutableList.of(
+                hibernateAccount1, hibernateAccount2, hibernateAccount3));
+
+        AccountSummarySearch search = new AccountSummarySearch.Builder().withPageSize(2).build();
+        ForwardCursorPagedResourceList<AccountSummary> page = dao.getAccountSummariesByCursor(study, search);
+        
+        assertEquals(2, page.getItems().size());
+        assertEquals("account-1", page.getItems().get(0).getId());
+        assertEquals("account-2", page.getItems().get(1).getId());
+        assertEquals("2000:account-2", page.getNextPageOffsetKey());
+        assertEquals(2, page.getRequestParams().get("pageSize"));
+        
+        String expectedQuery = HibernateAccountDao.ACCOUNT_SUMMARY_QUERY_PREFIX
+                + "from HibernateAccount as acct where studyId=:studyId order by createdOn, id";
+        verify(mockHibernateHelper).queryGet(expectedQuery, STUDY_QUERY_PARAMS, null, 3, HibernateAccount.class);
+        verify(mockHibernateHelper, never()).queryCount(any(), any());
+    }
+
+    @Test
+    public void getByCursorLastPage() throws Exception {
+        HibernateAccount hibernateAccount = makeValidHibernateAccount(false, false);
+        hibernateAccount.setId("account-3");
+        hibernateAccount.setCreatedOn(3000L);
+
+        when(mockHibernateHelper.queryGet(any(), any(), any(), any(), any()))
+                .thenReturn(ImmutableList.of(hibernateAccount));
+
+        AccountSummarySearch search = new AccountSummarySearch.Builder().withPageSize(2)
+                .withOffsetKey("2000:account-2").build();
+        ForwardCursorPagedResourceList<AccountSummary> page = dao.getAccountSummariesByCursor(study, search);
+        
+        assertEquals(1, page.getItems().size());
+        assertNull(page.getNextPageOffsetKey());
+        assertEquals("2000:account-2", page.getRequestParams().get("offsetKey"));
+        
+        String expectedQuery = HibernateAccountDao.ACCOUNT_SUMMARY_QUERY_PREFIX
+                + "from HibernateAccount as acct where studyId=:studyId and (createdOn > :lastCreatedOn or "
+                + "(createdOn = :lastCreatedOn and id > :lastId)) order by createdOn, id";
+        Map<String,Object> expectedParams = new ImmutableMap.Builder<String,Object>()
+                .put("studyId", TestConstants.TEST_STUDY_IDENTIFIER)
+                .put("lastCreatedOn", 2000L)
+                .put("lastId", "account-2").build();
+        verify(mockHibernateHelper).queryGet(expectedQuery, expectedParams, null, 3, HibernateAccount.class);
+    }
+
+    @Test(expected = BadRequestException.class)
+    public void getByCursorWithInvalidOffsetKey() throws Exception {
+        AccountSummarySearch search = new AccountSummarySearch.Builder().withOffsetKey("not-a-key").build();
+        dao.getAccountSummariesByCursor(study, search);
+    }
+
+    @Test(expected = BadRequestException.class)
+    public void getByCursorWithOverflowingOffsetKey() throws Exception {
+        AccountSummarySearch search = new AccountSummarySearch.Builder()
+                .withOffsetKey("99999999999999999999:account-2").build();
+        dao.getAccountSummariesByCursor(study, search);
+    }
+
+    @Test
+    public void getByCursorWithoutCreatedOn() throws Exception {
+        HibernateAccount hibernateAccount1 = makeValidHibernateAccount(false, false);
+        hibernateAccount1.setId("account-1");
+        hibernateAccount1.setCreatedOn(null);
+        HibernateAccount hibernateAccount2 = makeValidHibernateAccount(false, false);
+        hibernateAccount2.setId("account-2");
+        hibernateAccount2.setCreatedOn(1000L);
+
+        when(mockHibernateHelper.queryGet(any(), any(), any(), any(), any())).thenReturn(ImmutableList.of(
+                hibernateAccount1, hibernateAccount2));
+
+        AccountSummarySearch search = new AccountSummarySearch.Builder().withPageSize(1).build();
+        ForwardCursorPagedResourceList<AccountSummary> page = dao.getAccountSummariesByCursor(study, search);
+        assertEquals(":account-1", page.getNextPageOffsetKey());
+
+        // The returned key reads back as a seek past the accounts without a createdOn.
+        search = new AccountSummarySearch.Builder().withPageSize(1).withOffsetKey(page.getNextPageOffsetKey())
+                .build();
+        dao.getAccountSummariesByCursor(study, search);
+
+        String expectedQuery = HibernateAccountDao.ACCOUNT_SUMMARY_QUERY_PREFIX
+                + "from HibernateAccount as acct where studyId=:studyId and (createdOn is not null or id > :lastId) "
+                + "order by createdOn, id";
+        Map<String,Object> expectedParams = new ImmutableMap.Builder<String,Object>()
+                .put("studyId", TestConstants.TEST_STUDY_IDENTIFIER)
+                .put("lastId", "account-1").build();
+        verify(mockHibernateHelper).queryGet(expectedQuery, expectedParams, null, 2, HibernateAccount.class);
+    }
+
     @Test
     public void getPagedWithOptionalParams() throws Exception {
         // Setup start and end dates.
@@ -1612,6 +1789,40 @@ public class HibernateAccountDaoTest {
         assertNull(healthCode);
     }
 
+    @Test
+    public void getAccountRecordAttributes() {
+        List<Object[]> rows = ImmutableList.of(
+                new Object[] { SharingScope.ALL_QUALIFIED_RESEARCHERS, EXTERNAL_ID, "group1" },
+                new Object[] { SharingScope.ALL_QUALIFIED_RESEARCHERS, EXTERNAL_ID, "group2" });
+        when(mockHibernateHelper.queryGet(HibernateAccountDao.RECORD_ATTRIBUTES_QUERY, HEALTHCODE_QUERY_PARAMS, null,
+                null, Object[].class)).thenReturn(rows);
+
+        AccountRecordAttributes attributes = dao.getAccountRecordAttributes(TestConstants.TEST_STUDY, HEALTH_CODE);
+        assertEquals(SharingScope.ALL_QUALIFIED_RESEARCHERS, attributes.getSharingScope());
+        assertEquals(EXTERNAL_ID, attributes.getExternalId());
+        assertEquals(ImmutableSet.of("group1", "group2"), attributes.getDataGroups());
+    }
+
+    @Test
+    public void getAccountRecordAttributesNoDataGroups() {
+        List<Object[]> rows = ImmutableList.<Object[]>of(new Object[] { SharingScope.NO_SHARING, null, null });
+        when(mockHibernateHelper.queryGet(HibernateAccountDao.RECORD_ATTRIBUTES_QUERY, HEALTHCODE_QUERY_PARAMS, null,
+                null, Object[].class)).thenReturn(rows);
+
+        AccountRecordAttributes attributes = dao.getAccountRecordAttributes(TestConstants.TEST_STUDY, HEALTH_CODE);
+        assertEquals(SharingScope.NO_SHARING, attributes.getSharingScope());
+        assertNull(attributes.getExternalId());
+        assertTrue(attributes.getDataGroups().isEmpty());
+    }
+
+    @Test
+    public void getAccountRecordAttributesNoAccount() {
+        when(mockHibernateHelper.queryGet(HibernateAccountDao.RECORD_ATTRIBUTES_QUERY, HEALTHCODE_QUERY_PARAMS, null,
+                null, Object[].class)).thenReturn(ImmutableList.of());
+
+        assertNull(dao.getAccountRecordAttributes(TestConstants.TEST_STUDY, HEALTH_CODE));
+    }
+
     @Test
     public void marshallSuccess() {
         // create a fully populated GenericAccount
@@ -36,6 +36,7 @@ public class AccountSummarySearchTest {
         
         AccountSummarySearch search1 = new AccountSummarySearch.Builder()
                 .withOffsetBy(10)
+                .withOffsetKey("offsetKey")
                 .withPageSize(100)
                 .withEmailFilter("email")
                 .withPhoneFilter("phone")
@@ -62,6 +63,7 @@ public class AccountSummarySearchTest {
         
         AccountSummarySearch search = new AccountSummarySearch.Builder()
             .withOffsetBy(10)
+            .withOffsetKey("offsetKey")
             .withPageSize(100)
             .withEmailFilter("email")
             .withPhoneFilter("phone")
@@ -80,6 +82,7 @@ public class AccountSummarySearchTest {
         AccountSummarySearch deser = BridgeObjectMapper.get().readValue(json, AccountSummarySearch.class);
         
         assertEquals(10, deser.getOffsetBy());
+        assertEquals("offsetKey", deser.getOffsetKey());
         assertEquals(100, deser.getPageSize());
         assertEquals("email", deser.getEmailFilter());
         assertEquals("phone", deser.getPhoneFilter());
@@ -0,0 +1,97 @@
+package org.sagebionetworks.bridge.models;
+
+import static org.junit.Assert.assertEquals;
+import static org.sagebionetworks.bridge.models.OperatingSystem.ANDROID;
+import static org.sagebionetworks.bridge.models.OperatingSystem.IOS;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import org.sagebionetworks.bridge.TestConstants;
+import org.sagebionetworks.bridge.TestUtils;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+public class CriteriaMatcherTest {
+
+    private static final ClientInfo IOS_CLIENT_INFO = ClientInfo
+            .fromUserAgentCache("app/4 (deviceName; iPhone OS/3.9) BridgeJavaSDK/12");
+    private static final ClientInfo ANDROID_CLIENT_INFO = ClientInfo
+            .fromUserAgentCache("app/4 (deviceName; Android/3.9) BridgeJavaSDK/12");
+
+    @Test
+    public void matchesSameAsCriteriaUtils() {
+        List<Criteria> criteriaList = ImmutableList.of(
+                criteria(null, ImmutableSet.of(), ImmutableSet.of(), null, null, null),
+                criteria(null, ImmutableSet.of("A"), ImmutableSet.of(), null, null, null),
+                criteria(null, ImmutableSet.of("A", "B"), ImmutableSet.of("C"), null, null, null),
+                criteria(null, ImmutableSet.of(), ImmutableSet.of("A"), null, null, null),
+                criteria("en", ImmutableSet.of(), ImmutableSet.of(), null, null, null),
+                criteria("FR", ImmutableSet.of(), ImmutableSet.of(), null, null, null),
+                criteria(null, ImmutableSet.of(), ImmutableSet.of(), IOS, 1, 4),
+                criteria(null, ImmutableSet.of(), ImmutableSet.of(), IOS, 5, null),
+                criteria(null, ImmutableSet.of(), ImmutableSet.of(), ANDROID, null, 2),
+                criteria("en", ImmutableSet.of("B"), ImmutableSet.of("A"), ANDROID, 2, 6));
+        CriteriaMatcher<Criteria> matcher = new CriteriaMatcher<>(criteriaList, criteria -> criteria);
+        assertEquals(criteriaList.size(), matcher.size());
+
+        List<CriteriaContext> contexts = Lists.newArrayList();
+        for (ClientInfo info : ImmutableList.of(IOS_CLIENT_INFO, ANDROID_CLIENT_INFO, ClientInfo.UNKNOWN_CLIENT)) {
+            for (Set<String> groups : ImmutableList.<Set<String>>of(ImmutableSet.of(), ImmutableSet.of("A"),
+                    ImmutableSet.of("A", "B"), ImmutableSet.of("B", "D"), ImmutableSet.of("A", "B", "C"))) {
+                for (String lang : Lists.newArrayList(null, "en", "fr")) {
+                    contexts.add(context(info, groups, lang));
+                }
+            }
+        }
+        for (CriteriaContext context : contexts) {
+            List<Criteria> expected = criteriaList.stream()
+                    .filter(criteria -> CriteriaUtils.matchCriteria(context, criteria))
+                    .collect(Collectors.toList());
+            assertEquals(expected, matcher.match(context));
+        }
+    }
+
+    @Test
+    public void matchesWithManyDataGroups() {
+        Set<String> allGroups = Sets.newHashSet();
+        List<Criteria> criteriaList = Lists.newArrayList();
+        for (int i=0; i < 100; i++) {
+            allGroups.add("group" + i);
+            criteriaList.add(criteria(null, ImmutableSet.of("group" + i), ImmutableSet.of(), null, null, null));
+        }
+        CriteriaMatcher<Criteria> matcher = new CriteriaMatcher<>(criteriaList, criteria -> criteria);
+
+        assertEquals(ImmutableList.of(criteriaList.get(99)),
+                matcher.match(context(IOS_CLIENT_INFO, ImmutableSet.of("group99", "other"), null)));
+        assertEquals(criteriaList, matcher.match(context(IOS_CLIENT_INFO, allGroups, null)));
+    }
+
+    private static Criteria criteria(String language, Set<String> allOfGroups, Set<String> noneOfGroups, String os,
+            Integer min, Integer max) {
+        Criteria criteria = Criteria.create();
+        criteria.setLanguage(language);
+        criteria.setAllOfGroups(allOfGroups);
+        criteria.setNoneOfGroups(noneOfGroups);
+        if (min != null) {
+            criteria.setMinAppVersion(os, min);
+        }
+        if (max != null) {
+            criteria.setMaxAppVersion(os, max);
+        }
+        return criteria;
+    }
+
+    private static CriteriaContext context(ClientInfo clientInfo, Set<String> dataGroups, String lang) {
+        return new CriteriaContext.Builder().withStudyIdentifier(TestConstants.TEST_STUDY)
+                .withClientInfo(clientInfo).withUserDataGroups(dataGroups)
+                .withLanguages(lang == null ? TestUtils.newLinkedHashSet() : TestUtils.newLinkedHashSet(lang))
+                .build();
+    }
+}
@@ -1,8 +1,10 @@
 package org.sagebionetworks.bridge.models.accounts;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import org.apache.commons.codec.binary.Base64;
 import org.apache.commons.lang3.StringUtils;
 import org.junit.Test;
 
@@ -25,6 +27,44 @@ public class PasswordAlgorithmTest {
         test(PasswordAlgorithm.PBKDF2_HMAC_SHA_256);
     }
 
+    @Test
+    public void serverHmac() throws Exception {
+        test(PasswordAlgorithm.SERVER_HMAC_SHA_256);
+    }
+
+    @Test
+    public void serverHmacRejectsOtherHashes() throws Exception {
+        String hash = PasswordAlgorithm.BCRYPT.generateHash(TEST_PASSWORD);
+        assertFalse(PasswordAlgorithm.SERVER_HMAC_SHA_256.checkHash(hash, TEST_PASSWORD));
+    }
+
+    @Test
+    public void decodePepper() {
+        byte[] pepper = PasswordAlgorithm.decodePepper(Base64.encodeBase64String(
+                new byte[PasswordAlgorithm.MIN_PEPPER_BYTES]));
+        assertEquals(PasswordAlgorithm.MIN_PEPPER_BYTES, pepper.length);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void decodePepperMissing() {
+        PasswordAlgorithm.decodePepper(null);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void decodePepperBlank() {
+        PasswordAlgorithm.decodePepper("  ");
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void decodePepperTooShort() {
+        PasswordAlgorithm.decodePepper(Base64.encodeBase64String(new byte[PasswordAlgorithm.MIN_PEPPER_BYTES - 1]));
+    }
+
+    @Test
+    public void configuredPepperIsValid() {
+        PasswordAlgorithm.checkServerPepper();
+    }
+
     private static void test(PasswordAlgorithm passwordAlgorithm) throws Exception {
         String hash = passwordAlgorithm.generateHash(TEST_PASSWORD);
         assertTrue(StringUtils.isNotBlank(hash));
@@ -11,10 +11,13 @@ import static org.sagebionetworks.bridge.TestUtils.mockPlayContextWithJson;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -33,7 +36,10 @@ import org.sagebionetworks.bridge.TestUtils;
 import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.cache.CacheKey;
 import org.sagebionetworks.bridge.cache.ViewCache;
+import org.sagebionetworks.bridge.dao.AppConfigDao;
+import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
 import org.sagebionetworks.bridge.json.BridgeObjectMapper;
+import org.sagebionetworks.bridge.models.Criteria;
 import org.sagebionetworks.bridge.models.CriteriaContext;
 import org.sagebionetworks.bridge.models.ResourceList;
 import org.sagebionetworks.bridge.models.accounts.StudyParticipant;
@@ -42,7 +48,9 @@ import org.sagebionetworks.bridge.models.appconfig.AppConfig;
 import org.sagebionetworks.bridge.models.studies.Study;
 import org.sagebionetworks.bridge.services.AppConfigService;
 import org.sagebionetworks.bridge.services.StudyService;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
@@ -235,7 +243,7 @@ public class AppConfigControllerTest {
         
         controller.getStudyAppConfig(TestConstants.TEST_STUDY_IDENTIFIER);
         
-        verify(mockCacheProvider).addCacheKeyToSet(CACHE_KEY, "26:iPhone OS:en:api:AppConfig:view");
+        verify(mockCacheProvider).addCacheKeyToSet(CACHE_KEY, "26:iPhone OS:en:api:AppConfig:viewBytes");
     }
     
     @Test
@@ -265,6 +273,36 @@ public class AppConfigControllerTest {
         verify(mockCacheProvider).removeSetOfCacheKeys(CACHE_KEY);
     }
     
+    // The controller keeps a Redis set of cached views under one key, and the service keeps a version stamp
+    // (a string) under another. Redis rejects set operations on strings and vice versa, so verify that both
+    // paths can be used on the same study.
+    @Test
+    public void controllerViewSetAndServiceStampDoNotCollide() throws Exception {
+        CacheProvider redisCacheProvider = getRedisTypeCheckingCacheProvider();
+        controller.setCacheProvider(redisCacheProvider);
+        viewCache.setCacheProvider(redisCacheProvider);
+        
+        appConfig.setCreatedOn(1000L);
+        appConfig.setCriteria(Criteria.create());
+        AppConfigDao mockAppConfigDao = mock(AppConfigDao.class);
+        when(mockAppConfigDao.getAppConfigs(TEST_STUDY, false)).thenReturn(ImmutableList.of(appConfig));
+        
+        AppConfigService service = new AppConfigService();
+        ReflectionTestUtils.invokeSetterMethod(service, "appConfigDao", mockAppConfigDao, AppConfigDao.class);
+        ReflectionTestUtils.invokeSetterMethod(service, "cacheProvider", redisCacheProvider, CacheProvider.class);
+        controller.setAppConfigService(service);
+        
+        mockContext(TEST_UA, TEST_LANG);
+        when(mockStudyService.getStudy(TestConstants.TEST_STUDY_IDENTIFIER)).thenReturn(study);
+        
+        assertResult(controller.getStudyAppConfig(TestConstants.TEST_STUDY_IDENTIFIER), 200);
+        assertResult(controller.deleteAppConfig(GUID, null), 200, "App config deleted.");
+        assertResult(controller.getStudyAppConfig(TestConstants.TEST_STUDY_IDENTIFIER), 200);
+        
+        // The service reloaded the study's app configs after the delete.
+        verify(mockAppConfigDao, times(2)).getAppConfigs(TEST_STUDY, false);
+    }
+    
     private void mockContext(String userAgent, String langs) throws Exception {
         Map<String,String[]> headers = Maps.newHashMap();
         headers.put("User-Agent", new String[] {userAgent});
@@ -273,4 +311,59 @@ public class AppConfigControllerTest {
         String json = BridgeObjectMapper.get().writeValueAsString(appConfig);
         TestUtils.mockPlayContextWithJson(json, headers);
     }
+    
+    // Holds strings and sets under their keys like Redis does, and fails like Redis (WRONGTYPE) when a key 
+    // is used as the other type.
+    private CacheProvider getRedisTypeCheckingCacheProvider() {
+        return new CacheProvider() {
+            private final Map<String,Object> map = Maps.newHashMap();
+            
+            private <T> T get(CacheKey cacheKey, Class<T> clazz) {
+                Object value = map.get(cacheKey.toString());
+                if (value != null && !clazz.isInstance(value)) {
+                    throw new BridgeServiceException(
+                            "WRONGTYPE Operation against a key holding the wrong kind of value");
+                }
+                return clazz.cast(value);
+            }
+            public String getStamp(CacheKey stampKey) {
+                return get(stampKey, String.class);
+            }
+            public String updateStamp(CacheKey stampKey) {
+                get(stampKey, String.class);
+                String stamp = BridgeUtils.generateGuid();
+                map.put(stampKey.toString(), stamp);
+                return stamp;
+            }
+            public byte[] getBytes(CacheKey cacheKey) {
+                return get(cacheKey, byte[].class);
+            }
+            public void setBytes(CacheKey cacheKey, byte[] value, int expireInSeconds) {
+                get(cacheKey, byte[].class);
+                map.put(cacheKey.toString(), value);
+            }
+            public void removeObject(CacheKey cacheKey) {
+                map.remove(cacheKey.toString());
+            }
+            @SuppressWarnings("unchecked")
+            public void addCacheKeyToSet(CacheKey cacheKeyOfSet, String cacheKeyInSet) {
+                Set<String> set = get(cacheKeyOfSet, Set.class);
+                if (set == null) {
+                    set = Sets.newHashSet();
+                    map.put(cacheKeyOfSet.toString(), set);
+                }
+                set.add(cacheKeyInSet);
+            }
+            @SuppressWarnings("unchecked")
+            public void removeSetOfCacheKeys(CacheKey cacheKeyOfSet) {
+                Set<String> set = get(cacheKeyOfSet, Set.class);
+                if (set != null) {
+                    for (String oneMember : set) {
+                        map.remove(oneMember);
+                    }
+                    map.remove(cacheKeyOfSet.toString());
+                }
+            }
+        };
+    }
 }
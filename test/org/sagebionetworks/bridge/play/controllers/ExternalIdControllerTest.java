@@ -150,6 +150,28 @@ public class ExternalIdControllerTest {
         verify(externalIdService).addExternalIds(study, Lists.newArrayList());
     }
     
+    @Test
+    public void importExternalIds() throws Exception {
+        Http.RequestBody body = mock(Http.RequestBody.class);
+        when(body.asText()).thenReturn("AAA\nBBB\nCCC\n");
+        Http.Request request = mock(Http.Request.class);
+        when(request.body()).thenReturn(body);
+        TestUtils.mockPlayContext(request);
+        when(externalIdService.importExternalIds(eq(study), any())).thenReturn(3);
+        
+        Result result = controller.importExternalIds();
+        assertResult(result, 201, "3 external identifiers imported.");
+    }
+    
+    @Test(expected = BadRequestException.class)
+    public void importExternalIdsNoBody() throws Exception {
+        Http.Request request = mock(Http.Request.class);
+        when(request.body()).thenReturn(mock(Http.RequestBody.class));
+        TestUtils.mockPlayContext(request);
+        
+        controller.importExternalIds();
+    }
+    
     @Test
     public void deleteIdentifiers() throws Exception {
         Map<String,String[]> map = Maps.newHashMap();
@@ -101,6 +101,8 @@ public class ParticipantControllerTest {
     };
     
     private static final TypeReference<PagedResourceList<AccountSummary>> ACCOUNT_SUMMARY_PAGE = new TypeReference<PagedResourceList<AccountSummary>>(){};
+    private static final TypeReference<ForwardCursorPagedResourceList<AccountSummary>> ACCOUNT_SUMMARY_CURSOR_PAGE =
+            new TypeReference<ForwardCursorPagedResourceList<AccountSummary>>(){};
     
     private static final TypeReference<ForwardCursorPagedResourceList<? extends Upload>> UPLOADS_REF = new TypeReference<ForwardCursorPagedResourceList<? extends Upload>>(){};
     
@@ -1327,6 +1329,73 @@ public class ParticipantControllerTest {
         assertEquals(payload, search);
     }
     
+    @Test
+    public void searchForAccountSummariesByCursor() throws Exception {
+        AccountSummarySearch payload = setAccountSummarySearchByCursor();
+        when(mockParticipantService.getAccountSummariesByCursor(eq(study), any())).thenReturn(
+                new ForwardCursorPagedResourceList<>(Lists.newArrayList(SUMMARY, SUMMARY), "nextPageKey"));
+        
+        Result result = controller.searchForAccountSummariesByCursor();
+        assertEquals(200, result.status());
+        
+        ForwardCursorPagedResourceList<AccountSummary> page = TestUtils.getResponsePayload(result,
+                ACCOUNT_SUMMARY_CURSOR_PAGE);
+        assertEquals(2, page.getItems().size());
+        assertEquals("nextPageKey", page.getNextPageOffsetKey());
+        assertTrue(page.hasNext());
+        
+        verify(mockParticipantService).getAccountSummariesByCursor(eq(study), searchCaptor.capture());
+        
+        AccountSummarySearch search = searchCaptor.getValue();
+        assertEquals(payload, search);
+        assertEquals("offsetKey", search.getOffsetKey());
+    }
+    
+    @Test(expected = UnauthorizedException.class)
+    public void searchForAccountSummariesByCursorNotResearcher() throws Exception {
+        session.setParticipant(new StudyParticipant.Builder().copyOf(session.getParticipant())
+                .withRoles(Sets.newHashSet(Roles.WORKER)).build());
+        setAccountSummarySearchByCursor();
+        
+        controller.searchForAccountSummariesByCursor();
+    }
+    
+    @Test
+    public void searchForAccountSummariesByCursorForWorker() throws Exception {
+        session.setParticipant(new StudyParticipant.Builder().copyOf(session.getParticipant())
+                .withRoles(Sets.newHashSet(Roles.WORKER)).build());
+        
+        // The worker names the study to search, which isn't the study of its session.
+        Study otherStudy = new DynamoStudy();
+        otherStudy.setIdentifier("other-study");
+        when(mockStudyService.getStudy("other-study")).thenReturn(otherStudy);
+        when(mockParticipantService.getAccountSummariesByCursor(eq(otherStudy), any())).thenReturn(
+                new ForwardCursorPagedResourceList<>(Lists.newArrayList(SUMMARY), null));
+        
+        AccountSummarySearch payload = setAccountSummarySearchByCursor();
+        
+        Result result = controller.searchForAccountSummariesByCursorForWorker("other-study");
+        assertEquals(200, result.status());
+        
+        ForwardCursorPagedResourceList<AccountSummary> page = TestUtils.getResponsePayload(result,
+                ACCOUNT_SUMMARY_CURSOR_PAGE);
+        assertEquals(1, page.getItems().size());
+        assertNull(page.getNextPageOffsetKey());
+        assertFalse(page.hasNext());
+        
+        verify(mockParticipantService).getAccountSummariesByCursor(eq(otherStudy), searchCaptor.capture());
+        
+        AccountSummarySearch search = searchCaptor.getValue();
+        assertEquals(payload, search);
+    }
+    
+    @Test(expected = UnauthorizedException.class)
+    public void searchForAccountSummariesByCursorForWorkerOnly() throws Exception {
+        setAccountSummarySearchByCursor();
+        
+        controller.searchForAccountSummariesByCursorForWorker(study.getIdentifier());
+    }
+    
     private AccountSummarySearch setAccountSummarySearch() throws Exception {
         AccountSummarySearch search = new AccountSummarySearch.Builder()
                 .withOffsetBy(10)
@@ -1342,6 +1411,18 @@ public class ParticipantControllerTest {
         return search;
     }
     
+    private AccountSummarySearch setAccountSummarySearchByCursor() throws Exception {
+        AccountSummarySearch search = new AccountSummarySearch.Builder()
+                .withOffsetKey("offsetKey")
+                .withPageSize(100)
+                .withEmailFilter("email")
+                .withAllOfGroups(Sets.newHashSet("group1"))
+                .withStartTime(START_TIME)
+                .withEndTime(END_TIME).build();
+        TestUtils.mockPlayContextWithJson(search);
+        return search;
+    }
+    
     private ForwardCursorPagedResourceList<ScheduledActivity> createActivityResultsV2(String offsetKey, int pageSize) {
         List<ScheduledActivity> list = Lists.newArrayList();
         
@@ -95,7 +95,7 @@ public class SurveyControllerTest {
     
     private ViewCache viewCache;
     
-    private Map<CacheKey,String> cacheMap;
+    private Map<CacheKey,byte[]> cacheMap;
     
     private UserSession session;
     
@@ -111,9 +111,9 @@ public class SurveyControllerTest {
         viewCache.setCachePeriod(BridgeConstants.BRIDGE_VIEW_EXPIRE_IN_SECONDS);
         
         CacheProvider provider = mock(CacheProvider.class);
-        when(provider.getObject(anyObject(), eq(String.class))).thenAnswer(new Answer<String>() {
+        when(provider.getBytes(anyObject())).thenAnswer(new Answer<byte[]>() {
             @Override
-            public String answer(InvocationOnMock invocation) throws Throwable {
+            public byte[] answer(InvocationOnMock invocation) throws Throwable {
                 CacheKey key = invocation.getArgumentAt(0, CacheKey.class);
                 return cacheMap.get(key);
             }
@@ -122,11 +122,11 @@ public class SurveyControllerTest {
             @Override
             public Void answer(InvocationOnMock invocation) throws Throwable {
                 CacheKey key = invocation.getArgumentAt(0, CacheKey.class);
-                String value = invocation.getArgumentAt(1, String.class);
+                byte[] value = invocation.getArgumentAt(1, byte[].class);
                 cacheMap.put(key, value);
                 return null;
             }
-        }).when(provider).setObject(anyObject(), anyString(), anyInt());
+        }).when(provider).setBytes(anyObject(), any(byte[].class), anyInt());
         doAnswer(new Answer<Void>() {
             @Override
             public Void answer(InvocationOnMock invocation) throws Throwable {
@@ -6,6 +6,7 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static play.test.Helpers.contentAsString;
 
@@ -20,6 +21,7 @@ import org.sagebionetworks.bridge.config.Environment;
 import org.sagebionetworks.bridge.dynamodb.DynamoStudy;
 import org.sagebionetworks.bridge.exceptions.ConsentRequiredException;
 import org.sagebionetworks.bridge.exceptions.InvalidEntityException;
+import org.sagebionetworks.bridge.exceptions.ServiceUnavailableException;
 import org.sagebionetworks.bridge.models.accounts.SharingScope;
 import org.sagebionetworks.bridge.models.accounts.StudyParticipant;
 import org.sagebionetworks.bridge.models.accounts.UserSession;
@@ -42,6 +44,7 @@ import play.mvc.Result;
 public class ExceptionInterceptorTest {
 
     private ExceptionInterceptor interceptor;
+    private Http.Response response;
     
     @Before
     public void before() throws Exception {
@@ -63,8 +66,11 @@ public class ExceptionInterceptorTest {
         Http.Request request = mock(Http.Request.class);
         when(request.queryString()).thenReturn(map);
         
+        response = mock(Http.Response.class);
+        
         Http.Context context = mock(Http.Context.class);
         when(context.request()).thenReturn(request);
+        when(context.response()).thenReturn(response);
 
         Http.Context.current.set(context);
     }
@@ -196,6 +202,19 @@ public class ExceptionInterceptorTest {
         }
     }
 
+    @Test
+    public void serviceUnavailableSetsRetryAfterHeader() throws Throwable {
+        MethodInvocation invocation = mock(MethodInvocation.class);
+        when(invocation.proceed()).thenThrow(new ServiceUnavailableException("Try again later", 5));
+        
+        Result result = (Result)interceptor.invoke(invocation);
+        JsonNode node = new ObjectMapper().readTree(contentAsString(result));
+        
+        assertStatusCode(503, result, node);
+        assertFalse(node.has("retryAfterSeconds"));
+        verify(response).setHeader("Retry-After", "5");
+    }
+
     private static void assertStatusCode(int expectedStatus, Result result, JsonNode node) {
         assertEquals(expectedStatus, result.status());
         assertEquals(expectedStatus, node.get("statusCode").intValue());
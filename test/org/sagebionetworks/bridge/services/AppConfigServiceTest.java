@@ -6,7 +6,9 @@ import static org.junit.Assert.assertNull;
 import static org.sagebionetworks.bridge.TestConstants.TEST_STUDY;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyBoolean;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -23,6 +25,8 @@ import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.sagebionetworks.bridge.BridgeUtils;
+import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.dao.AppConfigDao;
 import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
 import org.sagebionetworks.bridge.exceptions.InvalidEntityException;
@@ -85,6 +89,7 @@ public class AppConfigServiceTest {
         service.setAppConfigDao(mockDao);
         service.setStudyService(mockStudyService);
         service.setSurveyService(surveyService);    
+        service.setCacheProvider(mock(CacheProvider.class));
         
         when(service.getCurrentTimestamp()).thenReturn(TIMESTAMP.getMillis());
         when(service.getGUID()).thenReturn(GUID);
@@ -176,10 +181,13 @@ public class AppConfigServiceTest {
         AppConfig appConfig2 = setupConfigsForUser();
         
         AppConfig match = service.getAppConfigForUser(context, true);
-        assertEquals(appConfig2, match);
+        assertEquals(appConfig2.getLabel(), match.getLabel());
+        assertEquals(appConfig2.getCreatedOn(), match.getCreatedOn());
         
         // Verify that we called the resolver on this as well
         assertEquals("theIdentifier", match.getSurveyReferences().get(0).getIdentifier());
+        // The app config itself was not modified
+        assertNull(appConfig2.getSurveyReferences().get(0).getIdentifier());
     }
 
     @Test
@@ -251,6 +259,28 @@ public class AppConfigServiceTest {
         assertEquals(EARLIER_TIMESTAMP, appConfig.getCreatedOn());
     }
     
+    @Test
+    public void getAppConfigForUserUsesCachedAppConfigsUntilChanged() {
+        CacheProvider mockCacheProvider = mock(CacheProvider.class);
+        when(mockCacheProvider.getStamp(CacheKey.appConfigStamp(TEST_STUDY))).thenReturn("stamp");
+        service.setCacheProvider(mockCacheProvider);
+        
+        CriteriaContext context = new CriteriaContext.Builder()
+                .withClientInfo(ClientInfo.fromUserAgentCache("app/4 (Motorola Flip-Phone; Android/14) BridgeJavaSDK/10"))
+                .withStudyIdentifier(TEST_STUDY).build();
+        setupConfigsForUser();
+        
+        assertEquals("AppConfig1", service.getAppConfigForUser(context, true).getLabel());
+        assertEquals("AppConfig1", service.getAppConfigForUser(context, true).getLabel());
+        verify(mockDao, times(1)).getAppConfigs(TEST_STUDY, false);
+        
+        service.deleteAppConfig(TEST_STUDY, GUID);
+        verify(mockCacheProvider).updateStamp(CacheKey.appConfigStamp(TEST_STUDY));
+        
+        service.getAppConfigForUser(context, true);
+        verify(mockDao, times(2)).getAppConfigs(TEST_STUDY, false);
+    }
+    
     @Test
     public void createAppConfig() {
         when(mockStudyService.getStudy(TEST_STUDY)).thenReturn(study);
@@ -2,7 +2,10 @@ package org.sagebionetworks.bridge.services;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.Set;
@@ -10,13 +13,17 @@ import java.util.Set;
 import org.junit.Before;
 import org.junit.Test;
 import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
 import org.sagebionetworks.bridge.models.surveys.Survey;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
 
 public class CacheAdminServiceTest {
 
@@ -28,9 +35,14 @@ public class CacheAdminServiceTest {
     
     private CacheAdminService adminService;
     
+    private CacheProvider mockCacheProvider;
+    
     @Before
     public void before() {
+        mockCacheProvider = mock(CacheProvider.class);
+        
         adminService = new CacheAdminService();
+        adminService.setCacheProvider(mockCacheProvider);
         
         JedisPool pool = mock(JedisPool.class);
         when(pool.getResource()).thenReturn(createStubJedis());
@@ -43,7 +55,7 @@ public class CacheAdminServiceTest {
         Set<String> set = adminService.listItems();
         assertEquals(2, set.size());
         assertTrue(set.contains("foo:study"));
-        assertTrue(set.contains("baz:Survey:view"));
+        assertTrue(set.contains("baz:Survey:viewBytes"));
     }
     
     
@@ -52,6 +64,16 @@ public class CacheAdminServiceTest {
         adminService.removeItem("foo:study");
         Set<String> set = adminService.listItems();
         assertEquals(1, set.size());
+        
+        // The study held in memory on each server is discarded as well
+        verify(mockCacheProvider).removeStudy("foo");
+    }
+    
+    @Test
+    public void removeItemOtherThanStudy() {
+        adminService.removeItem("baz:Survey:viewBytes");
+        
+        verify(mockCacheProvider, never()).removeStudy(any());
     }
     
     @Test(expected = BridgeServiceException.class)
@@ -84,15 +106,38 @@ public class CacheAdminServiceTest {
         adminService.removeItem(REQUEST_INFO_KEY);
     }
     
+    @Test
+    public void listsItemsAcrossScanPages() {
+        Jedis jedis = new Jedis("") {
+            @Override
+            public ScanResult<String> scan(String cursor, ScanParams params) {
+                if (ScanParams.SCAN_POINTER_START.equals(cursor)) {
+                    return new ScanResult<>("17", Lists.newArrayList("foo:study"));
+                }
+                assertEquals("17", cursor);
+                return new ScanResult<>(ScanParams.SCAN_POINTER_START,
+                        Lists.newArrayList("bar:study", "xh7YDmjGQuTKnfdv9iJb0:session:user"));
+            }
+        };
+        JedisPool pool = mock(JedisPool.class);
+        when(pool.getResource()).thenReturn(jedis);
+        adminService.setJedisPool(pool);
+        
+        Set<String> set = adminService.listItems();
+        assertEquals(Sets.newHashSet("foo:study", "bar:study"), set);
+    }
+    
     private Jedis createStubJedis() {
+        // Each test removes keys from its own copy
+        Set<String> keys = Sets.newHashSet(KEYS);
         return new Jedis("") {
             @Override
-            public Set<String> keys(String pattern) {
-                return KEYS;
+            public ScanResult<String> scan(String cursor, ScanParams params) {
+                return new ScanResult<>(ScanParams.SCAN_POINTER_START, Lists.newArrayList(keys));
             }
             @Override
             public Long del(String key) {
-                return (KEYS.remove(key)) ? 1L : 0L;
+                return (keys.remove(key)) ? 1L : 0L;
             }
         };
     }
@@ -0,0 +1,84 @@
+package org.sagebionetworks.bridge.services;
+
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import org.sagebionetworks.bridge.crypto.CmsEncryptor;
+import org.sagebionetworks.bridge.models.studies.Study;
+
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.MoreExecutors;
+
+public class CmsEncryptorCachePreloaderTest {
+
+    private LoadingCache<String, CmsEncryptor> mockCache;
+    private StudyService mockStudyService;
+    private ScheduledExecutorService mockStatsExecutorService;
+    private CmsEncryptorCachePreloader preloader;
+
+    @SuppressWarnings("unchecked")
+    @Before
+    public void before() {
+        mockCache = mock(LoadingCache.class);
+        when(mockCache.stats()).thenReturn(new CacheStats(0, 0, 0, 0, 0, 0));
+        mockStudyService = mock(StudyService.class);
+        mockStatsExecutorService = mock(ScheduledExecutorService.class);
+        preloader = new CmsEncryptorCachePreloader(mockCache, mockStudyService,
+                MoreExecutors.newDirectExecutorService(), mockStatsExecutorService, 15);
+    }
+
+    @Test
+    public void preloadsActiveStudies() throws Exception {
+        Study failing = study("failing", true);
+        Study active = study("active", true);
+        Study inactive = study("inactive", false);
+        when(mockStudyService.getStudies()).thenReturn(ImmutableList.of(failing, active, inactive));
+        when(mockCache.get("failing")).thenThrow(new ExecutionException(new RuntimeException("no PEM file")));
+
+        preloader.start();
+
+        // A study that fails to load doesn't stop the others from loading.
+        verify(mockCache).get("failing");
+        verify(mockCache).get("active");
+        verify(mockCache, never()).get("inactive");
+        verify(mockCache).stats();
+    }
+
+    @Test
+    public void logsStatsPeriodically() {
+        when(mockStudyService.getStudies()).thenReturn(ImmutableList.of());
+
+        preloader.start();
+
+        ArgumentCaptor<Runnable> statsTaskCaptor = ArgumentCaptor.forClass(Runnable.class);
+        verify(mockStatsExecutorService).scheduleAtFixedRate(statsTaskCaptor.capture(), eq(15L), eq(15L),
+                eq(TimeUnit.MINUTES));
+
+        // Once at the end of the preload, then once per scheduled run.
+        statsTaskCaptor.getValue().run();
+        statsTaskCaptor.getValue().run();
+        verify(mockCache, times(3)).stats();
+        verify(mockCache, times(2)).size();
+    }
+
+    private static Study study(String identifier, boolean active) {
+        Study study = Study.create();
+        study.setIdentifier(identifier);
+        study.setActive(active);
+        return study;
+    }
+}
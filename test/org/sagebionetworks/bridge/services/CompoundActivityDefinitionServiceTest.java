@@ -49,6 +49,7 @@ public class CompoundActivityDefinitionServiceTest {
         service = new CompoundActivityDefinitionService();
         service.setSchedulePlanService(schedulePlanService);
         service.setCompoundActivityDefDao(dao);
+        service.setResolvedReferenceCache(mock(ResolvedReferenceCache.class));
     }
 
     // CREATE
@@ -7,9 +7,13 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
@@ -19,10 +23,17 @@ import java.io.IOException;
 import java.net.URL;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import com.amazonaws.HttpMethod;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.SetMultimap;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.MoreExecutors;
 
 import org.apache.commons.io.IOUtils;
 import org.joda.time.DateTime;
@@ -36,6 +47,8 @@ import org.mockito.runners.MockitoJUnitRunner;
 import org.sagebionetworks.bridge.BridgeConstants;
 import org.sagebionetworks.bridge.TestConstants;
 import org.sagebionetworks.bridge.TestUtils;
+import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.dao.AccountDao;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
 import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
@@ -115,6 +128,10 @@ public class ConsentServiceMockTest {
     private Subpopulation subpopulation;
     @Mock
     private StudyConsentView studyConsentView;
+    @Mock
+    private ScheduledExecutorService consentRetryExecutorService;
+    @Mock
+    private CacheProvider cacheProvider;
     @Captor
     private ArgumentCaptor<BasicEmailProvider> emailCaptor;
     @Captor
@@ -142,6 +159,16 @@ public class ConsentServiceMockTest {
         consentService.setUrlShortenerService(urlShortenerService);
         consentService.setNotificationsService(notificationsService);
         consentService.setConsentTemplate(new ByteArrayResource((documentString).getBytes()));
+        // Run consent delivery on the calling thread, so it can be verified.
+        consentService.setConsentDeliveryExecutorService(MoreExecutors.newDirectExecutorService());
+        // Likewise, run scheduled retries right away.
+        when(consentRetryExecutorService.schedule(any(Runnable.class), anyLong(), eq(TimeUnit.MILLISECONDS)))
+                .thenAnswer(invocation -> {
+                    invocation.getArgumentAt(0, Runnable.class).run();
+                    return null;
+                });
+        consentService.setConsentRetryExecutorService(consentRetryExecutorService);
+        consentService.setCacheProvider(cacheProvider);
         
         study = TestUtils.getValidStudy(ConsentServiceMockTest.class);
 
@@ -806,6 +833,134 @@ public class ConsentServiceMockTest {
         consentService.resendConsentAgreement(study, SUBPOP_GUID, noPhoneOrEmail);
     }
     
+    @Test
+    public void consentDeliveryIsQueued() {
+        ExecutorService mockExecutor = mock(ExecutorService.class);
+        consentService.setConsentDeliveryExecutorService(mockExecutor);
+        
+        consentService.consentToResearch(study, SUBPOP_GUID, PARTICIPANT, CONSENT_SIGNATURE, SharingScope.NO_SHARING, true);
+        
+        // Account is updated before returning, but the consent is not rendered or sent until the handler runs.
+        verify(accountDao).updateAccount(any(), eq(false));
+        verify(mockExecutor).execute(any(ConsentService.ConsentDeliveryHandler.class));
+        verify(sendMailService, never()).sendEmail(any());
+    }
+    
+    @Test
+    public void consentDeliveryIsRetried() {
+        doThrow(new BridgeServiceException("SES unavailable")).doNothing().when(sendMailService).sendEmail(any());
+        
+        consentService.consentToResearch(study, SUBPOP_GUID, PARTICIPANT, CONSENT_SIGNATURE, SharingScope.NO_SHARING, true);
+        
+        verify(sendMailService, times(2)).sendEmail(any());
+        verify(consentRetryExecutorService).schedule(any(Runnable.class),
+                eq(ConsentService.CONSENT_DELIVERY_RETRY_DELAY_MILLIS), eq(TimeUnit.MILLISECONDS));
+    }
+    
+    @Test
+    public void consentDeliveryStopsRetrying() {
+        doThrow(new BridgeServiceException("SES unavailable")).when(sendMailService).sendEmail(any());
+        
+        // The async handler logs the final failure rather than throwing it.
+        consentService.consentToResearch(study, SUBPOP_GUID, PARTICIPANT, CONSENT_SIGNATURE, SharingScope.NO_SHARING, true);
+        
+        verify(sendMailService, times(ConsentService.CONSENT_DELIVERY_MAX_ATTEMPTS)).sendEmail(any());
+        
+        // Each retry waits twice as long as the one before it.
+        verify(consentRetryExecutorService).schedule(any(Runnable.class),
+                eq(ConsentService.CONSENT_DELIVERY_RETRY_DELAY_MILLIS), eq(TimeUnit.MILLISECONDS));
+        verify(consentRetryExecutorService).schedule(any(Runnable.class),
+                eq(ConsentService.CONSENT_DELIVERY_RETRY_DELAY_MILLIS * 2), eq(TimeUnit.MILLISECONDS));
+    }
+    
+    @Test
+    public void consentDeliveryRetryIsScheduled() {
+        ScheduledExecutorService mockScheduler = mock(ScheduledExecutorService.class);
+        consentService.setConsentRetryExecutorService(mockScheduler);
+        doThrow(new BridgeServiceException("SES unavailable")).when(sendMailService).sendEmail(any());
+        
+        // The failed delivery returns right away, leaving the retry to the scheduler.
+        consentService.consentToResearch(study, SUBPOP_GUID, PARTICIPANT, CONSENT_SIGNATURE, SharingScope.NO_SHARING, true);
+        
+        verify(sendMailService, times(1)).sendEmail(any());
+        verify(mockScheduler).schedule(any(Runnable.class), eq(ConsentService.CONSENT_DELIVERY_RETRY_DELAY_MILLIS),
+                eq(TimeUnit.MILLISECONDS));
+    }
+    
+    @Test
+    public void consentDeliveryIsRecordedUntilDelivered() {
+        consentService.consentToResearch(study, SUBPOP_GUID, PARTICIPANT, CONSENT_SIGNATURE, SharingScope.NO_SHARING, true);
+        
+        CacheKey setKey = CacheKey.undeliveredConsents(study.getStudyIdentifier());
+        verify(cacheProvider).addToSet(setKey, ID + ":" + SUBPOP_GUID.getGuid());
+        verify(sendMailService).sendEmail(any());
+        verify(cacheProvider).removeFromSet(setKey, ID + ":" + SUBPOP_GUID.getGuid());
+    }
+    
+    @Test
+    public void consentDeliveryFailureIsRecorded() {
+        doThrow(new BridgeServiceException("SES unavailable")).when(sendMailService).sendEmail(any());
+        
+        consentService.consentToResearch(study, SUBPOP_GUID, PARTICIPANT, CONSENT_SIGNATURE, SharingScope.NO_SHARING, true);
+        
+        // The consent stays recorded as undelivered after the last attempt fails.
+        verify(sendMailService, times(ConsentService.CONSENT_DELIVERY_MAX_ATTEMPTS)).sendEmail(any());
+        verify(cacheProvider).addToSet(CacheKey.undeliveredConsents(study.getStudyIdentifier()),
+                ID + ":" + SUBPOP_GUID.getGuid());
+        verify(cacheProvider, never()).removeFromSet(any(), any());
+    }
+    
+    @Test
+    public void consentDeliveryQueueFullIsRecorded() {
+        ExecutorService mockExecutor = mock(ExecutorService.class);
+        doThrow(new RejectedExecutionException()).when(mockExecutor).execute(any());
+        consentService.setConsentDeliveryExecutorService(mockExecutor);
+        
+        // The consent itself still succeeds.
+        consentService.consentToResearch(study, SUBPOP_GUID, PARTICIPANT, CONSENT_SIGNATURE, SharingScope.NO_SHARING, true);
+        
+        verify(accountDao).updateAccount(any(), eq(false));
+        verify(cacheProvider).addToSet(CacheKey.undeliveredConsents(study.getStudyIdentifier()),
+                ID + ":" + SUBPOP_GUID.getGuid());
+        verify(cacheProvider, never()).removeFromSet(any(), any());
+    }
+    
+    @Test
+    public void consentDeliveryWaitsForAllChannels() {
+        ConsentService.PendingConsentDelivery pending = new ConsentService.PendingConsentDelivery(
+                study.getStudyIdentifier(), ID, SUBPOP_GUID, 2);
+        
+        consentService.deliverWithRetries(() -> {}, pending);
+        verify(cacheProvider, never()).removeFromSet(any(), any());
+        
+        consentService.deliverWithRetries(() -> {}, pending);
+        verify(cacheProvider).removeFromSet(pending.getSetKey(), pending.getMember());
+    }
+    
+    @Test
+    public void resendClearsUndeliveredConsent() {
+        account.setConsentSignatureHistory(SUBPOP_GUID, ImmutableList.of(CONSENT_SIGNATURE));
+        
+        consentService.resendConsentAgreement(study, SUBPOP_GUID, PARTICIPANT);
+        
+        verify(sendMailService).sendEmail(any());
+        verify(cacheProvider).removeFromSet(CacheKey.undeliveredConsents(study.getStudyIdentifier()),
+                ID + ":" + SUBPOP_GUID.getGuid());
+    }
+    
+    @Test
+    public void getUndeliveredConsents() {
+        when(cacheProvider.getSetMembers(CacheKey.undeliveredConsents(study.getStudyIdentifier())))
+                .thenReturn(ImmutableSet.of("userA:subpop1", "userA:subpop2", "userB:subpop1"));
+        
+        SetMultimap<String, SubpopulationGuid> undelivered = consentService
+                .getUndeliveredConsents(study.getStudyIdentifier());
+        
+        assertEquals(ImmutableSet.of(SubpopulationGuid.create("subpop1"), SubpopulationGuid.create("subpop2")),
+                undelivered.get("userA"));
+        assertEquals(ImmutableSet.of(SubpopulationGuid.create("subpop1")), undelivered.get("userB"));
+    }
+    
     private void setupWithdrawTest(boolean subpop1Required, boolean subpop2Required) {
         // two consents, withdrawing one does not turn sharing entirely off.
         account.setSharingScope(SharingScope.ALL_QUALIFIED_RESEARCHERS);
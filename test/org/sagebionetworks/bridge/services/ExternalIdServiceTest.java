@@ -1,11 +1,16 @@
 package org.sagebionetworks.bridge.services;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
+import java.io.StringReader;
 import java.util.List;
 
 import org.junit.Before;
@@ -70,6 +75,67 @@ public class ExternalIdServiceTest {
         verify(externalIdDao).addExternalIds(STUDY.getStudyIdentifier(), EXT_IDS);
     }
     
+    @Test
+    public void importExternalIdsInChunks() {
+        // The header row is skipped.
+        StringBuilder builder = new StringBuilder(ExternalIdService.IMPORT_HEADER + ",notes\n");
+        List<String> expected = Lists.newArrayList();
+        for (int i=0; i < 25; i++) {
+            // Mix of CSV rows (with quoted columns), JSON strings and blank lines
+            String id = "id" + i;
+            builder.append((i % 2 == 0) ? (id + ", \"other, column\"") : ("\"" + id + "\"")).append("\n\n");
+            expected.add(id);
+        }
+        
+        int count = externalIdService.importExternalIds(STUDY, new StringReader(builder.toString()));
+        
+        assertEquals(25, count);
+        verify(externalIdDao).addExternalIds(STUDY.getStudyIdentifier(), expected.subList(0, 10));
+        verify(externalIdDao).addExternalIds(STUDY.getStudyIdentifier(), expected.subList(10, 20));
+        verify(externalIdDao).addExternalIds(STUDY.getStudyIdentifier(), expected.subList(20, 25));
+        verifyNoMoreInteractions(externalIdDao);
+    }
+    
+    @Test
+    public void importExternalIdsValidatesChunks() {
+        // The first chunk of 10 IDs is imported, the second has an invalid ID.
+        StringBuilder builder = new StringBuilder();
+        for (int i=0; i < 12; i++) {
+            builder.append("id").append(i).append("\n");
+        }
+        builder.append("not valid!\n");
+        try {
+            externalIdService.importExternalIds(STUDY, new StringReader(builder.toString()));
+            fail("Should have thrown exception");
+        } catch(BadRequestException e) {
+            assertTrue(e.getMessage().startsWith(
+                    "Invalid external IDs on lines 11-13 (10 external IDs before these lines were imported)"));
+        }
+        verify(externalIdDao).addExternalIds(any(), any());
+    }
+    
+    @Test
+    public void importExternalIdsInvalidCsv() {
+        try {
+            externalIdService.importExternalIds(STUDY, new StringReader("AAA\n\"BBB\n"));
+            fail("Should have thrown exception");
+        } catch(BadRequestException e) {
+            assertTrue(e.getMessage().startsWith(
+                    "Line 2 is not valid CSV (0 external IDs before this line were imported)"));
+        }
+        verify(externalIdDao, never()).addExternalIds(any(), any());
+    }
+    
+    @Test
+    public void importExternalIdsEmptyBody() {
+        try {
+            externalIdService.importExternalIds(STUDY, new StringReader("\n  \n"));
+            fail("Should have thrown exception");
+        } catch(BadRequestException e) {
+            verify(externalIdDao, never()).addExternalIds(any(), any());
+        }
+    }
+    
     @Test
     public void assignExternalIdDoesOK() {
         STUDY.setExternalIdValidationEnabled(true);
@@ -117,7 +117,8 @@ public class HealthDataServiceSubmitHealthDataTest {
 
         // Mock upload file helper
         UploadFileHelper mockUploadFileHelper = mock(UploadFileHelper.class);
-        when(mockUploadFileHelper.uploadJsonNodeAsAttachment(any(), any(), any())).thenReturn(ATTACHMENT_ID_NODE);
+        when(mockUploadFileHelper.uploadJsonNodeAsAttachment(any(JsonNode.class), any(), any())).thenReturn(
+                ATTACHMENT_ID_NODE);
 
         // mock handlers
         StrictValidationHandler mockStrictValidationHandler = mock(StrictValidationHandler.class);
@@ -6,13 +6,22 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -39,6 +48,7 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.MoreExecutors;
 
 @RunWith(MockitoJUnitRunner.class)
 public class NotificationTopicServiceTest {
@@ -73,6 +83,7 @@ public class NotificationTopicServiceTest {
         service.setSnsClient(mockSnsClient);
         service.setNotificationRegistrationDao(mockRegistrationDao);
         service.setTopicSubscriptionDao(mockSubscriptionDao);
+        service.setSnsExecutorService(MoreExecutors.newDirectExecutorService());
     }
     
     @Test
@@ -242,4 +253,34 @@ public class NotificationTopicServiceTest {
         verify(mockSubscriptionDao, times(1)).unsubscribe(eq(mockNotificationRegistration), topicCaptor.capture());
         assertEquals("arn:topicC", topicCaptor.getValue().getTopicARN());
     }
+    
+    @SuppressWarnings("unchecked")
+    @Test
+    public void subscribeTimeoutReported() throws Exception {
+        List<NotificationTopic> allTopics = Lists.newArrayList(createTopic("topicA"), createTopic("topicB"));
+        
+        doReturn(mockNotificationRegistration).when(mockRegistrationDao).getRegistration("healthCode", "registrationGuid");
+        doReturn(Lists.newArrayList()).when(mockSubscriptionDao).listSubscriptions(mockNotificationRegistration);
+        doReturn(allTopics).when(mockTopicDao).listTopics(TEST_STUDY);
+        
+        // The first subscription succeeds, the second times out.
+        Future<Boolean> subscribed = mock(Future.class);
+        when(subscribed.get(anyLong(), any(TimeUnit.class))).thenReturn(Boolean.TRUE);
+        Future<Boolean> timedOut = mock(Future.class);
+        when(timedOut.get(anyLong(), any(TimeUnit.class))).thenThrow(new TimeoutException());
+        ExecutorService mockExecutor = mock(ExecutorService.class);
+        when(mockExecutor.submit(any(Callable.class))).thenReturn(subscribed, timedOut);
+        service.setSnsExecutorService(mockExecutor);
+        
+        List<SubscriptionStatus> statuses = service.subscribe(TEST_STUDY, "healthCode", "registrationGuid",
+                Sets.newHashSet("topicA", "topicB"));
+        
+        // A subscription that times out is reported as unchanged.
+        ImmutableMap<String,SubscriptionStatus> statusesByTopicId = Maps.uniqueIndex(statuses, SubscriptionStatus::getTopicGuid);
+        assertTrue(statusesByTopicId.get("topicA").isSubscribed());
+        assertFalse(statusesByTopicId.get("topicB").isSubscribed());
+        
+        // The change is cancelled, but not interrupted if it is already in progress.
+        verify(timedOut).cancel(false);
+    }
 }
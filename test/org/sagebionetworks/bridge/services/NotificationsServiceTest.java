@@ -6,12 +6,20 @@ import static org.sagebionetworks.bridge.TestUtils.getNotificationRegistration;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyLong;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 import static org.mockito.Mockito.verify;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -42,6 +50,7 @@ import com.amazonaws.services.sns.model.PublishResult;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.MoreExecutors;
 
 @RunWith(MockitoJUnitRunner.class)
 public class NotificationsServiceTest {
@@ -78,6 +87,7 @@ public class NotificationsServiceTest {
         service.setStudyService(mockStudyService);
         service.setNotificationRegistrationDao(mockRegistrationDao);
         service.setSnsClient(mockSnsClient);
+        service.setSnsExecutorService(MoreExecutors.newDirectExecutorService());
         
         Map<String,String> map = Maps.newHashMap();
         map.put(OS_NAME, PLATFORM_ARN);
@@ -221,6 +231,32 @@ public class NotificationsServiceTest {
         }
     }
     
+    @SuppressWarnings("unchecked")
+    @Test
+    public void sendNotificationTimeoutReported() throws Exception {
+        NotificationRegistration reg1 = getNotificationRegistration();
+        NotificationRegistration reg2 = getNotificationRegistration();
+        doReturn(Lists.newArrayList(reg1, reg2)).when(mockRegistrationDao).listRegistrations(HEALTH_CODE);
+        
+        // The first device is sent to, the second times out.
+        Future<PublishResult> sent = mock(Future.class);
+        when(sent.get(anyLong(), any(TimeUnit.class))).thenReturn(mockPublishResult);
+        Future<PublishResult> timedOut = mock(Future.class);
+        when(timedOut.get(anyLong(), any(TimeUnit.class))).thenThrow(new TimeoutException());
+        ExecutorService mockExecutor = mock(ExecutorService.class);
+        when(mockExecutor.submit(any(Callable.class))).thenReturn(sent, timedOut);
+        service.setSnsExecutorService(mockExecutor);
+        
+        NotificationMessage message = getNotificationMessage();
+        try {
+            service.sendNotificationToUser(STUDY_ID, HEALTH_CODE, message);
+            fail("Should have thrown exception.");
+        } catch(BadRequestException e) {
+            assertEquals("Error sending push notification: Timed out sending to device.", e.getMessage());
+        }
+        verify(timedOut).cancel(true);
+    }
+    
     @Test
     public void sendTransactionalSMSMessageOK() throws Exception {
         doReturn(mockPublishResult).when(mockSnsClient).publish(any());
@@ -466,6 +466,24 @@ public class ParticipantServiceTest {
         verify(accountDao).getPagedAccountSummaries(STUDY, search); 
     }
     
+    @Test
+    public void getAccountSummariesByCursor() {
+        AccountSummarySearch search = new AccountSummarySearch.Builder()
+                .withOffsetKey("1000:account-id")
+                .withPageSize(50)
+                .withEmailFilter("foo").build();
+        
+        participantService.getAccountSummariesByCursor(STUDY, search);
+        
+        verify(accountDao).getAccountSummariesByCursor(STUDY, search);
+    }
+    
+    @Test(expected = InvalidEntityException.class)
+    public void getAccountSummariesByCursorWithTooLargePageSize() {
+        AccountSummarySearch search = new AccountSummarySearch.Builder().withPageSize(251).build();
+        participantService.getAccountSummariesByCursor(STUDY, search);
+    }
+    
     @Test(expected = NullPointerException.class)
     public void getPagedAccountSummariesWithBadStudy() {
         participantService.getPagedAccountSummaries(null, AccountSummarySearch.EMPTY_SEARCH);
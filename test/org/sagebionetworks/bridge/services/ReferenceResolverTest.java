@@ -97,6 +97,8 @@ public class ReferenceResolverTest {
     @Spy
     private HashMap<String,SchemaReference> schemaReferences;
     
+    private ResolvedReferenceCache.StudyReferences studyReferences;
+    
     private ReferenceResolver resolver;
     
     private ScheduledActivity scheduledActivity;
@@ -106,8 +108,9 @@ public class ReferenceResolverTest {
     @Before
     public void before() {
         // All the dependencies are mocks or mutable maps, and can be adjusted per test
+        studyReferences = new ResolvedReferenceCache.StudyReferences();
         resolver = new ReferenceResolver(compoundActivityDefinitionService, schemaService, surveyService,
-                surveyReferences, schemaReferences, CLIENT_INFO, STUDY_ID);
+                surveyReferences, schemaReferences, studyReferences, CLIENT_INFO, STUDY_ID);
         
         scheduledActivity = ScheduledActivity.create();
         
@@ -222,6 +225,45 @@ public class ReferenceResolverTest {
         verify(schemaService, times(1)).getLatestUploadSchemaRevisionForAppVersion(STUDY_ID, SCHEMA_ID, CLIENT_INFO);
     }
     
+    @Test
+    public void referencesResolvedFromServiceAreSharedAcrossResolvers() {
+        when(surveyService.getSurveyMostRecentlyPublishedVersion(STUDY_ID, SURVEY_GUID, false)).thenReturn(SURVEY);
+        when(schemaService.getLatestUploadSchemaRevisionForAppVersion(STUDY_ID, SCHEMA_ID, CLIENT_INFO)).thenReturn(SCHEMA);
+        
+        scheduledActivity.setActivity(activityBuilder.withSurvey(UNRESOLVED_SURVEY_REF).build());
+        resolver.resolve(scheduledActivity);
+        scheduledActivity.setActivity(activityBuilder.withTask(UNRESOLVED_TASK_REF).build());
+        resolver.resolve(scheduledActivity);
+        
+        // A resolver for a later request doesn't call the services again
+        ReferenceResolver secondResolver = new ReferenceResolver(compoundActivityDefinitionService, schemaService,
+                surveyService, surveyReferences, schemaReferences, studyReferences, CLIENT_INFO, STUDY_ID);
+        
+        ScheduledActivity surveyActivity = ScheduledActivity.create();
+        surveyActivity.setActivity(new Activity.Builder().withSurvey(UNRESOLVED_SURVEY_REF).build());
+        secondResolver.resolve(surveyActivity);
+        assertEquals(RESOLVED_SURVEY_REF, surveyActivity.getActivity().getSurvey());
+        
+        ScheduledActivity taskActivity = ScheduledActivity.create();
+        taskActivity.setActivity(new Activity.Builder().withTask(UNRESOLVED_TASK_REF).build());
+        secondResolver.resolve(taskActivity);
+        assertEquals(RESOLVED_SCHEMA_REF, taskActivity.getActivity().getTask().getSchema());
+        
+        verify(surveyService, times(1)).getSurveyMostRecentlyPublishedVersion(STUDY_ID, SURVEY_GUID, false);
+        verify(schemaService, times(1)).getLatestUploadSchemaRevisionForAppVersion(STUDY_ID, SCHEMA_ID, CLIENT_INFO);
+    }
+    
+    @Test
+    public void appConfigTakesPrecedenceOverSharedReferences() {
+        studyReferences.putSchema(SCHEMA_ID, CLIENT_INFO, new SchemaReference(SCHEMA_ID, SCHEMA_REVISION+1));
+        schemaReferences.put(SCHEMA_ID, RESOLVED_SCHEMA_REF);
+        scheduledActivity.setActivity(activityBuilder.withTask(UNRESOLVED_TASK_REF).build());
+        
+        resolver.resolve(scheduledActivity);
+        
+        assertEquals(RESOLVED_SCHEMA_REF, scheduledActivity.getActivity().getTask().getSchema());
+    }
+    
     @Test
     public void compoundActivityReferenceFullyResolvedAndCached() {
         scheduledActivity.setActivity(activityBuilder.withCompoundActivity(COMPOUND_ACTIVITY_SKINNY_REF).build());
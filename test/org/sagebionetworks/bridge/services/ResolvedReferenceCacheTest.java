@@ -0,0 +1,45 @@
+package org.sagebionetworks.bridge.services;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.sagebionetworks.bridge.TestConstants.TEST_STUDY;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.CacheProvider;
+
+public class ResolvedReferenceCacheTest {
+
+    private CacheProvider mockCacheProvider;
+    private ResolvedReferenceCache cache;
+
+    @Before
+    public void before() {
+        mockCacheProvider = mock(CacheProvider.class);
+        when(mockCacheProvider.getStamp(CacheKey.resolvedReferences(TEST_STUDY))).thenReturn("stamp");
+
+        cache = new ResolvedReferenceCache();
+        cache.setCacheProvider(mockCacheProvider);
+    }
+
+    @Test
+    public void studyReferencesAreShared() {
+        ResolvedReferenceCache.StudyReferences references = cache.getStudyReferences(TEST_STUDY);
+        assertSame(references, cache.getStudyReferences(TEST_STUDY));
+    }
+
+    @Test
+    public void invalidateDiscardsStudyReferences() {
+        ResolvedReferenceCache.StudyReferences references = cache.getStudyReferences(TEST_STUDY);
+
+        cache.invalidate(TEST_STUDY);
+
+        verify(mockCacheProvider).updateStamp(CacheKey.resolvedReferences(TEST_STUDY));
+        assertNotSame(references, cache.getStudyReferences(TEST_STUDY));
+    }
+}
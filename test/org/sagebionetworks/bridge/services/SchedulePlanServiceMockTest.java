@@ -8,6 +8,7 @@ import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyBoolean;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.sagebionetworks.bridge.TestConstants.TEST_STUDY;
@@ -22,9 +23,12 @@ import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 
 import org.sagebionetworks.bridge.TestUtils;
+import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.dao.SchedulePlanDao;
 import org.sagebionetworks.bridge.dynamodb.DynamoSchedulePlan;
 import org.sagebionetworks.bridge.dynamodb.DynamoStudy;
+import org.sagebionetworks.bridge.models.ClientInfo;
 import org.sagebionetworks.bridge.exceptions.InvalidEntityException;
 import org.sagebionetworks.bridge.models.Criteria;
 import org.sagebionetworks.bridge.models.schedules.Activity;
@@ -38,6 +42,7 @@ import org.sagebionetworks.bridge.models.studies.Study;
 import org.sagebionetworks.bridge.models.surveys.Survey;
 import org.sagebionetworks.bridge.models.surveys.TestSurvey;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Sets;
 
 public class SchedulePlanServiceMockTest {
@@ -63,6 +68,7 @@ public class SchedulePlanServiceMockTest {
         service = new SchedulePlanService();
         service.setSchedulePlanDao(mockSchedulePlanDao);
         service.setSurveyService(mockSurveyService);
+        service.setCacheProvider(mock(CacheProvider.class));
         
         Survey survey1 = new TestSurvey(SchedulePlanServiceMockTest.class, false);
         survey1.setIdentifier("identifier1");
@@ -220,6 +226,29 @@ public class SchedulePlanServiceMockTest {
         }
     }
     
+    @Test
+    public void schedulePlansAreCachedUntilPlanChanges() {
+        CacheProvider mockCacheProvider = mock(CacheProvider.class);
+        when(mockCacheProvider.getStamp(CacheKey.schedulePlanList(TEST_STUDY))).thenReturn("stamp");
+        service.setCacheProvider(mockCacheProvider);
+        
+        SchedulePlan plan = getSchedulePlan();
+        when(mockSchedulePlanDao.getSchedulePlans(ClientInfo.UNKNOWN_CLIENT, TEST_STUDY))
+                .thenReturn(ImmutableList.of(plan));
+        
+        List<SchedulePlan> plans = service.getSchedulePlans(ClientInfo.UNKNOWN_CLIENT, TEST_STUDY);
+        assertEquals(ImmutableList.of(plan), plans);
+        plans = service.getSchedulePlans(ClientInfo.UNKNOWN_CLIENT, TEST_STUDY);
+        assertEquals(ImmutableList.of(plan), plans);
+        verify(mockSchedulePlanDao, times(1)).getSchedulePlans(ClientInfo.UNKNOWN_CLIENT, TEST_STUDY);
+        
+        service.deleteSchedulePlan(TEST_STUDY, plan.getGuid());
+        verify(mockCacheProvider).updateStamp(CacheKey.schedulePlanList(TEST_STUDY));
+        
+        service.getSchedulePlans(ClientInfo.UNKNOWN_CLIENT, TEST_STUDY);
+        verify(mockSchedulePlanDao, times(2)).getSchedulePlans(ClientInfo.UNKNOWN_CLIENT, TEST_STUDY);
+    }
+    
     private SchedulePlan createInvalidSchedulePlan() {
         Schedule schedule = new Schedule();
         schedule.addActivity(new Activity.Builder().withTask("DDD").build());
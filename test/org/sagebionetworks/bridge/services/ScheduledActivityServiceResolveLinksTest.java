@@ -23,6 +23,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import org.sagebionetworks.bridge.TestConstants;
+import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
 import org.sagebionetworks.bridge.models.ClientInfo;
 import org.sagebionetworks.bridge.models.appconfig.AppConfig;
@@ -113,6 +114,10 @@ public class ScheduledActivityServiceResolveLinksTest {
         scheduledActivityService.setSchemaService(mockSchemaService);
         scheduledActivityService.setSurveyService(mockSurveyService);
         scheduledActivityService.setAppConfigService(appConfigService);
+
+        ResolvedReferenceCache resolvedReferenceCache = new ResolvedReferenceCache();
+        resolvedReferenceCache.setCacheProvider(mock(CacheProvider.class));
+        scheduledActivityService.setResolvedReferenceCache(resolvedReferenceCache);
     }
 
     private void setupSchedulePlanServiceWithActivity(Activity activity) {
@@ -0,0 +1,92 @@
+package org.sagebionetworks.bridge.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.core.io.ByteArrayResource;
+
+import org.sagebionetworks.bridge.TestUtils;
+import org.sagebionetworks.bridge.dao.StudyConsentDao;
+import org.sagebionetworks.bridge.models.studies.Study;
+import org.sagebionetworks.bridge.models.subpopulations.StudyConsent;
+import org.sagebionetworks.bridge.models.subpopulations.Subpopulation;
+import org.sagebionetworks.bridge.models.subpopulations.SubpopulationGuid;
+import org.sagebionetworks.bridge.s3.S3Helper;
+
+import com.amazonaws.services.s3.AmazonS3Client;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+
+@RunWith(MockitoJUnitRunner.class)
+public class StudyConsentServiceMockTest {
+    private static final SubpopulationGuid SUBPOP_GUID = SubpopulationGuid.create("subpop-guid");
+    private static final long CREATED_ON = 1000L;
+    private static final String STORAGE_PATH = SUBPOP_GUID.getGuid() + "." + CREATED_ON;
+
+    @Mock
+    private StudyConsentDao studyConsentDao;
+    @Mock
+    private SubpopulationService subpopService;
+    @Mock
+    private AmazonS3Client s3Client;
+    @Mock
+    private S3Helper s3Helper;
+    @Mock
+    private StudyConsent studyConsent;
+
+    private StudyConsentService service;
+
+    @Before
+    public void before() throws IOException {
+        String template = IOUtils.toString(new FileInputStream("conf/study-defaults/consent-unsigned-page.xhtml"));
+
+        service = new StudyConsentService();
+        service.setStudyConsentDao(studyConsentDao);
+        service.setSubpopulationService(subpopService);
+        service.setS3Client(s3Client);
+        service.setS3Helper(s3Helper);
+        service.setConsentTemplate(new ByteArrayResource(template.getBytes()));
+
+        when(studyConsent.getSubpopulationGuid()).thenReturn(SUBPOP_GUID.getGuid());
+        when(studyConsent.getCreatedOn()).thenReturn(CREATED_ON);
+        when(studyConsent.getStoragePath()).thenReturn(STORAGE_PATH);
+        when(studyConsentDao.getConsent(SUBPOP_GUID, CREATED_ON)).thenReturn(studyConsent);
+    }
+
+    @Test
+    public void documentContentIsCached() throws Exception {
+        when(s3Helper.readS3FileAsString(any(), any())).thenReturn("<p>Document</p>");
+
+        assertEquals("<p>Document</p>", service.getConsent(SUBPOP_GUID, CREATED_ON).getDocumentContent());
+        assertEquals("<p>Document</p>", service.getConsent(SUBPOP_GUID, CREATED_ON).getDocumentContent());
+
+        verify(s3Helper).readS3FileAsString(any(), any());
+    }
+
+    @Test
+    public void publishConsentRefreshesCachedContent() throws Exception {
+        when(s3Helper.readS3FileAsString(any(), any())).thenReturn("<p>Old</p>", "<p>New</p>");
+        service.getConsent(SUBPOP_GUID, CREATED_ON);
+
+        Study study = TestUtils.getValidStudy(StudyConsentServiceMockTest.class);
+        Subpopulation subpop = Subpopulation.create();
+        subpop.setGuid(SUBPOP_GUID);
+        service.publishConsent(study, subpop, CREATED_ON);
+
+        assertEquals("<p>New</p>", service.getConsent(SUBPOP_GUID, CREATED_ON).getDocumentContent());
+        verify(s3Helper, times(2)).readS3FileAsString(any(), any());
+        verify(s3Client, times(2)).putObject(any(PutObjectRequest.class));
+        verify(subpopService).updateSubpopulation(study, subpop);
+    }
+}
@@ -10,7 +10,9 @@ import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.sagebionetworks.bridge.TestConstants.TEST_STUDY;
@@ -31,6 +33,7 @@ import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.dao.SurveyDao;
 import org.sagebionetworks.bridge.dynamodb.DynamoSchedulePlan;
 import org.sagebionetworks.bridge.dynamodb.DynamoSurvey;
@@ -83,6 +86,8 @@ public class SurveyServiceMockTest {
         service.setSchedulePlanService(mockSchedulePlanService);
         service.setSharedModuleMetadataService(mockSharedModuleMetadataService);
         service.setPublishValidator(mockSurveyPublishValidator);
+        service.setCacheProvider(mock(CacheProvider.class));
+        service.setResolvedReferenceCache(mock(ResolvedReferenceCache.class));
     }
     
     @Test
@@ -101,6 +106,48 @@ public class SurveyServiceMockTest {
         verify(mockSurveyDao).getSurveyMostRecentlyPublishedVersion(TEST_STUDY, SURVEY_GUID, false);
     }
     
+    @Test
+    public void cachedSurveyInvalidatedByPublish() {
+        GuidCreatedOnVersionHolder keys = new GuidCreatedOnVersionHolderImpl(SURVEY_GUID, 1337);
+        Survey survey = new DynamoSurvey();
+        when(mockSurveyDao.getSurvey(keys, false)).thenReturn(survey);
+        when(mockSurveyDao.getSurvey(keys, true)).thenReturn(survey);
+        when(mockSurveyDao.getSurveyMostRecentlyPublishedVersion(TEST_STUDY, SURVEY_GUID, false)).thenReturn(survey);
+        when(mockSurveyPublishValidator.supports(any())).thenReturn(true);
+        setupCacheProvider();
+        
+        // Surveys without elements are read once.
+        assertSame(survey, service.getSurvey(keys, false));
+        assertSame(survey, service.getSurvey(keys, false));
+        assertSame(survey, service.getSurveyMostRecentlyPublishedVersion(TEST_STUDY, SURVEY_GUID, false));
+        assertSame(survey, service.getSurveyMostRecentlyPublishedVersion(TEST_STUDY, SURVEY_GUID, false));
+        verify(mockSurveyDao, times(1)).getSurvey(keys, false);
+        verify(mockSurveyDao, times(1)).getSurveyMostRecentlyPublishedVersion(TEST_STUDY, SURVEY_GUID, false);
+        
+        // Publishing discards both.
+        service.publishSurvey(TEST_STUDY, keys, false);
+        service.getSurvey(keys, false);
+        service.getSurveyMostRecentlyPublishedVersion(TEST_STUDY, SURVEY_GUID, false);
+        verify(mockSurveyDao, times(2)).getSurvey(keys, false);
+        verify(mockSurveyDao, times(2)).getSurveyMostRecentlyPublishedVersion(TEST_STUDY, SURVEY_GUID, false);
+    }
+    
+    @Test
+    public void surveyWithElementsIsNotCached() {
+        GuidCreatedOnVersionHolder keys = new GuidCreatedOnVersionHolderImpl(SURVEY_GUID, 1337);
+        setupCacheProvider();
+        
+        service.getSurvey(keys, true);
+        service.getSurvey(keys, true);
+        verify(mockSurveyDao, times(2)).getSurvey(keys, true);
+    }
+    
+    private void setupCacheProvider() {
+        CacheProvider mockCacheProvider = mock(CacheProvider.class);
+        when(mockCacheProvider.getStamp(any())).thenReturn("stamp");
+        service.setCacheProvider(mockCacheProvider);
+    }
+    
     @Test
     public void publishSurvey() {
         // test inputs and outputs
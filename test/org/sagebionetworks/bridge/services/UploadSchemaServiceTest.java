@@ -12,6 +12,7 @@ import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.sagebionetworks.bridge.services.SharedModuleMetadataServiceTest.makeValidMetadata;
@@ -27,6 +28,8 @@ import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 
 import org.sagebionetworks.bridge.TestConstants;
+import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.dao.UploadSchemaDao;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
 import org.sagebionetworks.bridge.exceptions.ConcurrentModificationException;
@@ -60,6 +63,8 @@ public class UploadSchemaServiceTest {
         svc = new UploadSchemaService();
         svc.setUploadSchemaDao(dao);
         svc.setSharedModuleMetadataService(mockSharedModuleMetadataService);
+        svc.setCacheProvider(mock(CacheProvider.class));
+        svc.setResolvedReferenceCache(mock(ResolvedReferenceCache.class));
     }
 
     @Test(expected = BadRequestException.class)
@@ -502,6 +507,41 @@ public class UploadSchemaServiceTest {
         assertSame(daoOutputSchema, svcOutputSchema);
     }
 
+    @Test
+    public void getCachedByIdAndRevReadsOnce() {
+        CacheKey cacheKey = CacheKey.uploadSchema(TestConstants.TEST_STUDY, SCHEMA_ID, SCHEMA_REV);
+        CacheProvider mockCacheProvider = mock(CacheProvider.class);
+        when(mockCacheProvider.getStamp(cacheKey)).thenReturn("stamp");
+        svc.setCacheProvider(mockCacheProvider);
+
+        UploadSchema daoOutputSchema = makeSimpleSchema();
+        when(dao.getUploadSchemaByIdAndRevision(TestConstants.TEST_STUDY, SCHEMA_ID, SCHEMA_REV)).thenReturn(
+                daoOutputSchema);
+
+        assertSame(daoOutputSchema, svc.getCachedUploadSchemaByIdAndRev(TestConstants.TEST_STUDY, SCHEMA_ID,
+                SCHEMA_REV));
+        assertSame(daoOutputSchema, svc.getCachedUploadSchemaByIdAndRev(TestConstants.TEST_STUDY, SCHEMA_ID,
+                SCHEMA_REV));
+        verify(dao, times(1)).getUploadSchemaByIdAndRevision(TestConstants.TEST_STUDY, SCHEMA_ID, SCHEMA_REV);
+
+        // Deleting the revision discards the cached copy.
+        svc.deleteUploadSchemaByIdAndRevision(TestConstants.TEST_STUDY, SCHEMA_ID, SCHEMA_REV);
+        verify(mockCacheProvider).updateStamp(cacheKey);
+
+        svc.getCachedUploadSchemaByIdAndRev(TestConstants.TEST_STUDY, SCHEMA_ID, SCHEMA_REV);
+        verify(dao, times(3)).getUploadSchemaByIdAndRevision(TestConstants.TEST_STUDY, SCHEMA_ID, SCHEMA_REV);
+    }
+
+    @Test(expected = EntityNotFoundException.class)
+    public void getCachedByIdAndRevNotFound() {
+        CacheProvider mockCacheProvider = mock(CacheProvider.class);
+        when(mockCacheProvider.getStamp(any())).thenReturn("stamp");
+        svc.setCacheProvider(mockCacheProvider);
+
+        when(dao.getUploadSchemaByIdAndRevision(TestConstants.TEST_STUDY, SCHEMA_ID, SCHEMA_REV)).thenReturn(null);
+        svc.getCachedUploadSchemaByIdAndRev(TestConstants.TEST_STUDY, SCHEMA_ID, SCHEMA_REV);
+    }
+
     @Test(expected = BadRequestException.class)
     public void getLatestNullId() {
         svc.getLatestUploadSchemaRevisionForAppVersion(TestConstants.TEST_STUDY, null, ClientInfo.UNKNOWN_CLIENT);
@@ -556,6 +596,32 @@ public class UploadSchemaServiceTest {
         assertNull(retval);
     }
 
+    @Test
+    public void getLatestReadsRevisionsOnce() {
+        setupDaoForGetLatest();
+        CacheKey cacheKey = CacheKey.uploadSchemaRevisions(TestConstants.TEST_STUDY, SCHEMA_ID);
+        CacheProvider mockCacheProvider = mock(CacheProvider.class);
+        when(mockCacheProvider.getStamp(any())).thenReturn("stamp");
+        svc.setCacheProvider(mockCacheProvider);
+
+        ClientInfo newClientInfo = new ClientInfo.Builder().withOsName(OS_NAME).withAppVersion(25).build();
+        ClientInfo oldClientInfo = new ClientInfo.Builder().withOsName(OS_NAME).withAppVersion(15).build();
+        assertEquals(2, svc.getLatestUploadSchemaRevisionForAppVersion(TestConstants.TEST_STUDY, SCHEMA_ID,
+                newClientInfo).getRevision());
+        assertEquals(1, svc.getLatestUploadSchemaRevisionForAppVersion(TestConstants.TEST_STUDY, SCHEMA_ID,
+                oldClientInfo).getRevision());
+        verify(dao, times(1)).getUploadSchemaAllRevisionsById(TestConstants.TEST_STUDY, SCHEMA_ID);
+
+        // Deleting a revision discards the cached revisions.
+        when(dao.getUploadSchemaByIdAndRevision(TestConstants.TEST_STUDY, SCHEMA_ID, SCHEMA_REV)).thenReturn(
+                makeSimpleSchema());
+        svc.deleteUploadSchemaByIdAndRevision(TestConstants.TEST_STUDY, SCHEMA_ID, SCHEMA_REV);
+        verify(mockCacheProvider).updateStamp(cacheKey);
+
+        svc.getLatestUploadSchemaRevisionForAppVersion(TestConstants.TEST_STUDY, SCHEMA_ID, newClientInfo);
+        verify(dao, times(2)).getUploadSchemaAllRevisionsById(TestConstants.TEST_STUDY, SCHEMA_ID);
+    }
+
     private void setupDaoForGetLatest() {
         // Two schemas, rev 1 has min=10. Rev 2 has min=20.
         UploadSchema schemaRev1 = makeSimpleSchema();
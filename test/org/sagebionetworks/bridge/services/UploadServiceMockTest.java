@@ -18,6 +18,7 @@ import static org.sagebionetworks.bridge.BridgeConstants.API_MAXIMUM_PAGE_SIZE;
 import java.util.List;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import org.joda.time.DateTime;
 import org.junit.Before;
 import org.junit.Test;
@@ -233,8 +234,10 @@ public class UploadServiceMockTest {
         doReturn("schema-id").when(mockRecord).getSchemaId();
         doReturn(10).when(mockRecord).getSchemaRevision();
         doReturn(HealthDataRecord.ExporterStatus.SUCCEEDED).when(mockRecord).getSynapseExporterStatus();
-        // Mock UploadValidationStatus from health data record;
-        doReturn(mockRecord).when(mockHealthDataService).getRecordById("record-id");
+        doReturn("record-id").when(mockRecord).getId();
+        // Mock the batch load of health data records. There is no record for "missing-record-id".
+        doReturn(ImmutableList.of(mockRecord)).when(mockHealthDataService)
+                .getRecordsByIds(ImmutableSet.of("record-id", "missing-record-id"));
     }
     
     // Mock a successful and unsuccessful upload. The successful upload should call to get information 
@@ -271,8 +274,7 @@ public class UploadServiceMockTest {
     }
 
     private void validateUploadMocks(ForwardCursorPagedResourceList<UploadView> returned, String expectedOffsetKey) {
-        verify(mockHealthDataService).getRecordById("record-id");
-        verify(mockHealthDataService).getRecordById("missing-record-id");
+        verify(mockHealthDataService).getRecordsByIds(ImmutableSet.of("record-id", "missing-record-id"));
         verifyNoMoreInteractions(mockHealthDataService);
 
         List<? extends UploadView> uploadList = returned.getItems();
@@ -26,6 +26,7 @@ import org.sagebionetworks.bridge.dynamodb.DynamoUpload2;
 import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
 import org.sagebionetworks.bridge.exceptions.ConcurrentModificationException;
 import org.sagebionetworks.bridge.exceptions.NotFoundException;
+import org.sagebionetworks.bridge.exceptions.ServiceUnavailableException;
 import org.sagebionetworks.bridge.models.studies.StudyIdentifier;
 import org.sagebionetworks.bridge.models.upload.Upload;
 import org.sagebionetworks.bridge.models.upload.UploadStatus;
@@ -173,7 +174,37 @@ public class UploadServiceUploadCompleteMockTest {
         // execute
         svc.uploadComplete(TestConstants.TEST_STUDY, APP, upload);
 
-        // Verify upload DAO and validation.
+        // Verify upload DAO and validation. The reserved slot is given back.
+        verify(mockUploadValidationService, never()).validateUpload(any(StudyIdentifier.class), any(Upload.class));
+        verify(mockUploadValidationService).releaseCapacity(TestConstants.TEST_STUDY);
+    }
+
+    @Test
+    public void validationAtCapacity() {
+        // set up input
+        DynamoUpload2 upload = new DynamoUpload2();
+        upload.setUploadId(TEST_UPLOAD_ID);
+        upload.setStatus(UploadStatus.REQUESTED);
+
+        // mock S3
+        ObjectMetadata mockObjMetadata = mock(ObjectMetadata.class);
+        when(mockObjMetadata.getSSEAlgorithm()).thenReturn(ObjectMetadata.AES_256_SERVER_SIDE_ENCRYPTION);
+        when(mockS3Client.getObjectMetadata(TEST_BUCKET, TEST_UPLOAD_ID)).thenReturn(mockObjMetadata);
+
+        // mock validation service
+        doThrow(new ServiceUnavailableException("at capacity")).when(mockUploadValidationService)
+                .reserveCapacity(TestConstants.TEST_STUDY);
+
+        // execute
+        try {
+            svc.uploadComplete(TestConstants.TEST_STUDY, APP, upload);
+            fail("expected exception");
+        } catch (ServiceUnavailableException ex) {
+            // expected exception
+        }
+
+        // The upload is not marked complete, so the client can retry.
+        verifyZeroInteractions(mockUploadDao);
         verify(mockUploadValidationService, never()).validateUpload(any(StudyIdentifier.class), any(Upload.class));
     }
 
@@ -194,6 +225,8 @@ public class UploadServiceUploadCompleteMockTest {
 
         // Verify upload DAO and validation.
         verify(mockUploadDao).uploadComplete(APP, upload);
+        verify(mockUploadValidationService).reserveCapacity(TestConstants.TEST_STUDY);
         verify(mockUploadValidationService).validateUpload(TestConstants.TEST_STUDY, upload);
+        verify(mockUploadValidationService, never()).releaseCapacity(any(StudyIdentifier.class));
     }
 }
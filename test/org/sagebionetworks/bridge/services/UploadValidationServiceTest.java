@@ -1,48 +1,157 @@
 package org.sagebionetworks.bridge.services;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
 
+import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
 import org.sagebionetworks.bridge.TestUtils;
 import org.sagebionetworks.bridge.dynamodb.DynamoUpload2;
+import org.sagebionetworks.bridge.exceptions.ServiceUnavailableException;
 import org.sagebionetworks.bridge.models.studies.Study;
+import org.sagebionetworks.bridge.models.studies.StudyIdentifierImpl;
 import org.sagebionetworks.bridge.models.upload.Upload;
 import org.sagebionetworks.bridge.upload.UploadValidationTask;
 import org.sagebionetworks.bridge.upload.UploadValidationTaskFactory;
 
 public class UploadValidationServiceTest {
-    @Test
-    public void test() {
-        // UploadValidationService is a simple call-through to the task factory and the async thread pool. As such, our
-        // test strategy is to verify that execution flows through to these dependencies.
+    private Study study;
+    private Upload upload;
+    private UploadValidationTask mockTask;
+    private ThreadPoolExecutor mockExecutor;
+    private ArrayBlockingQueue<Runnable> queue;
+    private UploadValidationService svc;
 
+    @Before
+    public void before() {
         // inputs
-        Study study = TestUtils.getValidStudy(UploadValidationServiceTest.class);
-        Upload upload = new DynamoUpload2();
+        study = TestUtils.getValidStudy(UploadValidationServiceTest.class);
+        upload = new DynamoUpload2();
 
         // mock task
-        UploadValidationTask mockTask = mock(UploadValidationTask.class);
+        mockTask = mock(UploadValidationTask.class);
 
         // mock task factory
         UploadValidationTaskFactory mockTaskFactory = mock(UploadValidationTaskFactory.class);
         when(mockTaskFactory.newTask(study, upload)).thenReturn(mockTask);
 
-        // mock async thread pool
-        ExecutorService mockExecutor = mock(ExecutorService.class);
+        // mock validation thread pool
+        queue = new ArrayBlockingQueue<>(2);
+        mockExecutor = mock(ThreadPoolExecutor.class);
+        when(mockExecutor.getQueue()).thenReturn(queue);
+        when(mockExecutor.getActiveCount()).thenReturn(3);
 
         // set up service
-        UploadValidationService svc = new UploadValidationService();
-        svc.setAsyncExecutorService(mockExecutor);
+        svc = new UploadValidationService();
+        svc.setUploadValidationExecutor(mockExecutor);
         svc.setTaskFactory(mockTaskFactory);
+        svc.setMaxTasksPerStudy(1);
+    }
 
-        // execute
+    @Test
+    public void test() {
+        // UploadValidationService is a simple call-through to the task factory and the validation thread pool. As
+        // such, our test strategy is to verify that execution flows through to these dependencies.
+        svc.reserveCapacity(study);
         svc.validateUpload(study, upload);
+        verify(mockTask).setSubmissionStats(0, 3);
+        assertEquals(1, svc.getTaskCount(study));
+        assertEquals(1, svc.getAvailablePermits());
+
+        // Running the submitted runnable runs the task and releases the reservation.
+        ArgumentCaptor<Runnable> runnableCaptor = ArgumentCaptor.forClass(Runnable.class);
+        verify(mockExecutor).execute(runnableCaptor.capture());
+        runnableCaptor.getValue().run();
+        verify(mockTask).run();
+        assertEquals(0, svc.getTaskCount(study));
+        assertEquals(2, svc.getAvailablePermits());
+        assertFalse(svc.hasTaskCountEntry(study));
+    }
+
+    @Test
+    public void rejectedTaskReleasesReservation() {
+        doThrow(new RejectedExecutionException()).when(mockExecutor).execute(any());
+
+        svc.reserveCapacity(study);
+        try {
+            svc.validateUpload(study, upload);
+            fail("expected exception");
+        } catch (RejectedExecutionException ex) {
+            // expected exception
+        }
+        verify(mockTask, never()).run();
+        assertEquals(0, svc.getTaskCount(study));
+        assertEquals(2, svc.getAvailablePermits());
+    }
+
+    @Test
+    public void reserveCapacitySucceeds() {
+        svc.reserveCapacity(study);
+        assertEquals(1, svc.getTaskCount(study));
+        assertEquals(1, svc.getAvailablePermits());
+
+        svc.releaseCapacity(study);
+        assertFalse(svc.hasTaskCountEntry(study));
+        assertEquals(2, svc.getAvailablePermits());
+    }
+
+    @Test
+    public void reserveCapacityQueueFull() {
+        svc.setMaxTasksPerStudy(5);
+        svc.reserveCapacity(study);
+        svc.reserveCapacity(study);
+        try {
+            svc.reserveCapacity(study);
+            fail("expected exception");
+        } catch (ServiceUnavailableException ex) {
+            // expected exception
+        }
+        assertEquals(2, svc.getTaskCount(study));
+        assertEquals(0, svc.getAvailablePermits());
+    }
+
+    @Test
+    public void reserveCapacityStudyLimit() {
+        svc.reserveCapacity(study);
+        try {
+            svc.reserveCapacity(study);
+            fail("expected exception");
+        } catch (ServiceUnavailableException ex) {
+            // expected exception
+        }
+
+        // The failed reservation doesn't hold on to a queue slot.
+        assertEquals(1, svc.getTaskCount(study));
+        assertEquals(1, svc.getAvailablePermits());
+
+        // Other studies still have room.
+        svc.reserveCapacity(new StudyIdentifierImpl("other-study"));
+        assertEquals(0, svc.getAvailablePermits());
+    }
+
+    @Test
+    public void backfillLeavesHeadroom() {
+        // Queue of 2 means backfills can only take 1 slot.
+        assertTrue(svc.tryReserveBackfillCapacity(new StudyIdentifierImpl("other-study")));
+        assertFalse(svc.tryReserveBackfillCapacity(study));
+        assertFalse(svc.hasTaskCountEntry(study));
 
-        // validate
-        verify(mockExecutor).execute(mockTask);
+        // Participants can still use the rest.
+        svc.reserveCapacity(study);
+        assertEquals(0, svc.getAvailablePermits());
     }
 }
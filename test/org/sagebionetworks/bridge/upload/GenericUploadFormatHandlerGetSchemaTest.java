@@ -35,7 +35,7 @@ public class GenericUploadFormatHandlerGetSchemaTest {
     @Before
     public void setup() {
         UploadSchemaService mockSchemaService = mock(UploadSchemaService.class);
-        when(mockSchemaService.getUploadSchemaByIdAndRev(TestConstants.TEST_STUDY, SCHEMA_ID, SCHEMA_REV)).thenReturn(
+        when(mockSchemaService.getCachedUploadSchemaByIdAndRev(TestConstants.TEST_STUDY, SCHEMA_ID, SCHEMA_REV)).thenReturn(
                 DUMMY_SCHEMA);
 
         mockSurveyService = mock(SurveyService.class);
@@ -5,6 +5,7 @@ import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.same;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -63,8 +64,8 @@ public class GenericUploadFormatHandlerTest {
 
         // Mock dependencies
         mockUploadFileHelper = mock(UploadFileHelper.class);
-        when(mockUploadFileHelper.findValueForField(any(), any(), any(), any())).thenReturn(TextNode.valueOf(
-                ATTACHMENT_ID));
+        when(mockUploadFileHelper.findValueForField(any(UploadValidationContext.class), any(), any(), any()))
+                .thenReturn(TextNode.valueOf(ATTACHMENT_ID));
 
         mockSchemaService = mock(UploadSchemaService.class);
 
@@ -105,7 +106,7 @@ public class GenericUploadFormatHandlerTest {
         assertEquals(ATTACHMENT_ID, dataMap.get("sanitize____attachment.txt").textValue());
 
         ArgumentCaptor<Map> sanitizedFileMapCaptor = ArgumentCaptor.forClass(Map.class);
-        verify(mockUploadFileHelper).findValueForField(eq(UPLOAD_ID), sanitizedFileMapCaptor.capture(),
+        verify(mockUploadFileHelper).findValueForField(same(context), sanitizedFileMapCaptor.capture(),
                 eq(sanitizeAttachmentTxtField), any());
 
         Map<String, File> sanitizedFileMap = sanitizedFileMapCaptor.getValue();
@@ -129,8 +130,8 @@ public class GenericUploadFormatHandlerTest {
         mockSchemaServiceWithFields(fieldDefList);
 
         // Mock UploadFileHelper for the datafile-specific attachment.
-        when(mockUploadFileHelper.uploadJsonNodeAsAttachment(any(), any(), any())).thenReturn(TextNode.valueOf(
-                "data-file-attachment-id"));
+        when(mockUploadFileHelper.uploadJsonNodeAsAttachment(any(UploadValidationContext.class), any(), any()))
+                .thenReturn(TextNode.valueOf("data-file-attachment-id"));
 
         // Setup inputs.
         String recordJsonText = "{\n" +
@@ -161,11 +162,11 @@ public class GenericUploadFormatHandlerTest {
         assertEquals(ATTACHMENT_ID, dataMap.get("sanitize____attachment.txt").textValue());
 
         // Verify calls to UploadFileHelper.
-        verify(mockUploadFileHelper).uploadJsonNodeAsAttachment(TextNode.valueOf("bar is an attachment"), UPLOAD_ID,
+        verify(mockUploadFileHelper).uploadJsonNodeAsAttachment(context, TextNode.valueOf("bar is an attachment"),
                 "bar");
 
         ArgumentCaptor<Map> sanitizedFileMapCaptor = ArgumentCaptor.forClass(Map.class);
-        verify(mockUploadFileHelper).findValueForField(eq(UPLOAD_ID), sanitizedFileMapCaptor.capture(),
+        verify(mockUploadFileHelper).findValueForField(same(context), sanitizedFileMapCaptor.capture(),
                 eq(sanitizeAttachmentTxtField), any());
 
         Map<String, File> sanitizedFileMap = sanitizedFileMapCaptor.getValue();
@@ -191,7 +192,8 @@ public class GenericUploadFormatHandlerTest {
         mockSchemaServiceWithFields(fieldDefList);
 
         // Upload file helper should just return null for this test.
-        when(mockUploadFileHelper.findValueForField(any(), any(), any(), any())).thenReturn(null);
+        when(mockUploadFileHelper.findValueForField(any(UploadValidationContext.class), any(), any(), any()))
+                .thenReturn(null);
 
         // Setup inputs.
         String recordJsonText = "{\n" +
@@ -216,8 +218,8 @@ public class GenericUploadFormatHandlerTest {
         assertEquals(0, dataMap.size());
 
         // Since we skipped the data file (too large), we asked the file helper (which didn't find any results).
-        verify(mockUploadFileHelper).findValueForField(eq(UPLOAD_ID), any(), eq(fooFieldDef), any());
-        verify(mockUploadFileHelper).findValueForField(eq(UPLOAD_ID), any(), eq(barFieldDef), any());
+        verify(mockUploadFileHelper).findValueForField(same(context), any(), eq(fooFieldDef), any());
+        verify(mockUploadFileHelper).findValueForField(same(context), any(), eq(barFieldDef), any());
 
         // We don't call mockUploadFileHelper for any other field.
         verifyNoMoreInteractions(mockUploadFileHelper);
@@ -230,7 +232,7 @@ public class GenericUploadFormatHandlerTest {
         schema.setRevision(SCHEMA_REV);
         schema.setFieldDefinitions(fieldDefList);
 
-        when(mockSchemaService.getUploadSchemaByIdAndRev(TestConstants.TEST_STUDY, SCHEMA_ID, SCHEMA_REV)).thenReturn(
+        when(mockSchemaService.getCachedUploadSchemaByIdAndRev(TestConstants.TEST_STUDY, SCHEMA_ID, SCHEMA_REV)).thenReturn(
                 schema);
     }
 
@@ -5,6 +5,7 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.same;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -131,8 +132,8 @@ public class IosSchemaValidationHandler2Test {
 
         // mock upload schema service
         UploadSchemaService mockSchemaService = mock(UploadSchemaService.class);
-        when(mockSchemaService.getUploadSchemaByIdAndRev(study, "test-survey", 1)).thenReturn(surveySchema);
-        when(mockSchemaService.getUploadSchemaByIdAndRev(study, "non-survey", 1)).thenReturn(nonSurveySchema);
+        when(mockSchemaService.getCachedUploadSchemaByIdAndRev(study, "test-survey", 1)).thenReturn(surveySchema);
+        when(mockSchemaService.getCachedUploadSchemaByIdAndRev(study, "non-survey", 1)).thenReturn(nonSurveySchema);
 
         // mock upload file helper
         mockUploadFileHelper = mock(UploadFileHelper.class);
@@ -325,7 +326,7 @@ public class IosSchemaValidationHandler2Test {
         assertEquals("blob", inlineJsonBlobNode.get(2).textValue());
 
         ArgumentCaptor<JsonNode> blobNodeCaptor = ArgumentCaptor.forClass(JsonNode.class);
-        verify(mockUploadFileHelper).uploadJsonNodeAsAttachment(blobNodeCaptor.capture(), eq(TEST_UPLOAD_ID),
+        verify(mockUploadFileHelper).uploadJsonNodeAsAttachment(same(context), blobNodeCaptor.capture(),
                 eq("baz"));
 
         JsonNode blobNode = blobNodeCaptor.getValue();
@@ -344,7 +345,7 @@ public class IosSchemaValidationHandler2Test {
         // filename sanitization.
 
         // Mock Upload File Helper
-        when(mockUploadFileHelper.findValueForField(eq(TEST_UPLOAD_ID), any(), any(), any())).thenReturn(
+        when(mockUploadFileHelper.findValueForField(same(context), any(), any(), any())).thenReturn(
                 TextNode.valueOf("dummy-attachment-id"));
 
         // fill in context with JSON data
@@ -379,7 +380,7 @@ public class IosSchemaValidationHandler2Test {
         // Verify call to Upload File Helper
         ArgumentCaptor<Map> sanizitedFileMapCaptor = ArgumentCaptor.forClass(Map.class);
         ArgumentCaptor<UploadFieldDefinition> fieldDefCaptor = ArgumentCaptor.forClass(UploadFieldDefinition.class);
-        verify(mockUploadFileHelper).findValueForField(eq(TEST_UPLOAD_ID), sanizitedFileMapCaptor.capture(),
+        verify(mockUploadFileHelper).findValueForField(same(context), sanizitedFileMapCaptor.capture(),
                 fieldDefCaptor.capture(), any());
 
         Map<String, File> sanitizedFileMap = sanizitedFileMapCaptor.getValue();
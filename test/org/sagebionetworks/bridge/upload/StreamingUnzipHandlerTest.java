@@ -0,0 +1,148 @@
+package org.sagebionetworks.bridge.upload;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import com.amazonaws.services.s3.AmazonS3Client;
+import com.amazonaws.services.s3.model.S3Object;
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.ByteStreams;
+import org.junit.Test;
+
+import org.sagebionetworks.bridge.TestConstants;
+import org.sagebionetworks.bridge.dynamodb.DynamoUpload2;
+import org.sagebionetworks.bridge.file.InMemoryFileHelper;
+import org.sagebionetworks.bridge.services.UploadArchiveService;
+
+@SuppressWarnings("unchecked")
+public class StreamingUnzipHandlerTest {
+    private static final byte[] ENCRYPTED_CONTENT = "encrypted test data".getBytes(Charsets.UTF_8);
+    private static final byte[] DECRYPTED_CONTENT = "decrypted test data".getBytes(Charsets.UTF_8);
+
+    @Test
+    public void test() throws Exception {
+        // Set up File Helper and temp dir.
+        InMemoryFileHelper inMemoryFileHelper = new InMemoryFileHelper();
+        File tmpDir = inMemoryFileHelper.createTempDir();
+
+        // inputs
+        DynamoUpload2 upload2 = new DynamoUpload2();
+        upload2.setUploadId("test-upload-id");
+
+        UploadValidationContext ctx = new UploadValidationContext();
+        ctx.setStudy(TestConstants.TEST_STUDY);
+        ctx.setTempDir(tmpDir);
+        ctx.setUpload(upload2);
+
+        // mock S3 client
+        S3Object s3Object = new S3Object();
+        s3Object.setObjectContent(new ByteArrayInputStream(ENCRYPTED_CONTENT));
+        AmazonS3Client mockS3Client = mock(AmazonS3Client.class);
+        when(mockS3Client.getObject(TestConstants.UPLOAD_BUCKET, "test-upload-id")).thenReturn(s3Object);
+
+        // mock UploadArchiveService. Decrypt verifies the S3 stream is passed through, and unzip verifies the
+        // decrypted stream is passed through.
+        Map<String, byte[]> mockUnzippedDataMap = ImmutableMap.of(
+                "foo", "foo data".getBytes(Charsets.UTF_8),
+                "bar", "bar data".getBytes(Charsets.UTF_8));
+
+        UploadArchiveService mockSvc = mock(UploadArchiveService.class);
+        doAnswer(invocation -> {
+            InputStream encryptedStream = invocation.getArgumentAt(1, InputStream.class);
+            assertArrayEquals(ENCRYPTED_CONTENT, ByteStreams.toByteArray(encryptedStream));
+            return new ByteArrayInputStream(DECRYPTED_CONTENT);
+        }).when(mockSvc).decrypt(eq(TestConstants.TEST_STUDY_IDENTIFIER), any(InputStream.class));
+        doAnswer(invocation -> {
+            InputStream decryptedStream = invocation.getArgumentAt(0, InputStream.class);
+            assertArrayEquals(DECRYPTED_CONTENT, ByteStreams.toByteArray(decryptedStream));
+
+            Function<String, OutputStream> entryNameToOutputStream = invocation.getArgumentAt(1,
+                    Function.class);
+            BiConsumer<String, OutputStream> outputStreamFinalizer = invocation.getArgumentAt(2,
+                    BiConsumer.class);
+            for (Map.Entry<String, byte[]> oneUnzippedDataEntry : mockUnzippedDataMap.entrySet()) {
+                OutputStream unzipOutputStream = entryNameToOutputStream.apply(oneUnzippedDataEntry.getKey());
+                unzipOutputStream.write(oneUnzippedDataEntry.getValue());
+                outputStreamFinalizer.accept(oneUnzippedDataEntry.getKey(), unzipOutputStream);
+            }
+            return null;
+        }).when(mockSvc).unzip(any(), any(), any());
+
+        // set up test handler
+        StreamingUnzipHandler handler = new StreamingUnzipHandler();
+        handler.setFileHelper(inMemoryFileHelper);
+        handler.setS3Client(mockS3Client);
+        handler.setUploadArchiveService(mockSvc);
+
+        // execute and validate
+        handler.handle(ctx);
+        Map<String, File> unzippedFileMap = ctx.getUnzippedDataFileMap();
+        assertEquals(mockUnzippedDataMap.size(), unzippedFileMap.size());
+        for (String oneUnzippedFileName : mockUnzippedDataMap.keySet()) {
+            File unzippedFile = unzippedFileMap.get(oneUnzippedFileName);
+            assertArrayEquals(mockUnzippedDataMap.get(oneUnzippedFileName),
+                    inMemoryFileHelper.getBytes(unzippedFile));
+        }
+
+        // No intermediate files
+        assertNull(ctx.getDataFile());
+        assertNull(ctx.getDecryptedDataFile());
+    }
+
+    @Test
+    public void drainsStreamsAfterUnzip() throws Exception {
+        InMemoryFileHelper inMemoryFileHelper = new InMemoryFileHelper();
+
+        DynamoUpload2 upload2 = new DynamoUpload2();
+        upload2.setUploadId("test-upload-id");
+
+        UploadValidationContext ctx = new UploadValidationContext();
+        ctx.setStudy(TestConstants.TEST_STUDY);
+        ctx.setTempDir(inMemoryFileHelper.createTempDir());
+        ctx.setUpload(upload2);
+
+        // mock S3 client
+        ByteArrayInputStream encryptedStream = new ByteArrayInputStream(ENCRYPTED_CONTENT);
+        S3Object s3Object = new S3Object();
+        s3Object.setObjectContent(encryptedStream);
+        AmazonS3Client mockS3Client = mock(AmazonS3Client.class);
+        when(mockS3Client.getObject(TestConstants.UPLOAD_BUCKET, "test-upload-id")).thenReturn(s3Object);
+
+        // Decrypt and unzip each stop partway through their streams, like unzip does after the last entry.
+        ByteArrayInputStream decryptedStream = new ByteArrayInputStream(DECRYPTED_CONTENT);
+        UploadArchiveService mockSvc = mock(UploadArchiveService.class);
+        doAnswer(invocation -> {
+            invocation.getArgumentAt(1, InputStream.class).read(new byte[4]);
+            return decryptedStream;
+        }).when(mockSvc).decrypt(eq(TestConstants.TEST_STUDY_IDENTIFIER), any(InputStream.class));
+        doAnswer(invocation -> {
+            invocation.getArgumentAt(0, InputStream.class).read(new byte[4]);
+            return null;
+        }).when(mockSvc).unzip(any(), any(), any());
+
+        StreamingUnzipHandler handler = new StreamingUnzipHandler();
+        handler.setFileHelper(inMemoryFileHelper);
+        handler.setS3Client(mockS3Client);
+        handler.setUploadArchiveService(mockSvc);
+
+        // execute and validate that both streams were read to the end
+        handler.handle(ctx);
+        assertEquals(0, encryptedStream.available());
+        assertEquals(0, decryptedStream.available());
+    }
+}
@@ -4,6 +4,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 import static org.sagebionetworks.bridge.TestConstants.TEST_STUDY;
 
@@ -68,7 +69,7 @@ public class StrictValidationHandlerTest {
 
         // mock schema service
         UploadSchemaService mockSchemaService = mock(UploadSchemaService.class);
-        when(mockSchemaService.getUploadSchemaByIdAndRev(TEST_STUDY, "test-schema", 1)).thenReturn(
+        when(mockSchemaService.getCachedUploadSchemaByIdAndRev(TEST_STUDY, "test-schema", 1)).thenReturn(
                 testSchema);
         handler.setUploadSchemaService(mockSchemaService);
 
@@ -414,4 +415,36 @@ public class StrictValidationHandlerTest {
         // No additional fields, data, or errors.
         test(null, null, null, null, UploadValidationStrictness.REPORT);
     }
+
+    @Test
+    public void usesSchemaFromContext() throws Exception {
+        UploadSchema schema = UploadSchema.create();
+        schema.setSchemaId("test-schema");
+        schema.setRevision(1);
+        schema.setFieldDefinitions(ImmutableList.of(new UploadFieldDefinition.Builder().withName("string")
+                .withType(UploadFieldType.STRING).build()));
+        context.setUploadSchema(schema);
+
+        UploadSchemaService mockSchemaService = mock(UploadSchemaService.class);
+        handler.setUploadSchemaService(mockSchemaService);
+
+        DynamoStudy testStudy = new DynamoStudy();
+        testStudy.setUploadValidationStrictness(UploadValidationStrictness.STRICT);
+        StudyService mockStudyService = mock(StudyService.class);
+        when(mockStudyService.getStudy(TEST_STUDY)).thenReturn(testStudy);
+        handler.setStudyService(mockStudyService);
+
+        ObjectNode jsonDataNode = BridgeObjectMapper.get().createObjectNode();
+        jsonDataNode.put("string", "This is a string");
+        HealthDataRecord record = HealthDataRecord.create();
+        record.setData(jsonDataNode);
+        record.setSchemaId("test-schema");
+        record.setSchemaRevision(1);
+        context.setHealthDataRecord(record);
+
+        // The schema resolved by the upload format handler is reused rather than fetched again.
+        handler.handle(context);
+        assertTrue(context.getMessageList().isEmpty());
+        verifyZeroInteractions(mockSchemaService);
+    }
 }
@@ -3,7 +3,8 @@ package org.sagebionetworks.bridge.upload;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
-import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.Set;
@@ -11,13 +12,19 @@ import java.util.Set;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Sets;
 
+import org.joda.time.DateTimeUtils;
+import org.junit.After;
+import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.sagebionetworks.bridge.TestConstants;
+import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.CacheProvider;
+import org.sagebionetworks.bridge.cache.VersionedLocalCache;
 import org.sagebionetworks.bridge.dao.AccountDao;
-import org.sagebionetworks.bridge.models.accounts.Account;
+import org.sagebionetworks.bridge.models.accounts.AccountRecordAttributes;
 import org.sagebionetworks.bridge.models.accounts.SharingScope;
 import org.sagebionetworks.bridge.models.healthdata.HealthDataRecord;
 
@@ -26,19 +33,37 @@ public class TranscribeConsentHandlerTest {
     private static final String TEST_HEALTHCODE = "test-healthcode";
     private static final String TEST_EXTERNAL_ID = "test-external-id";
     private static final Set<String> TEST_USER_GROUPS = ImmutableSet.of("test-group1","test-group2");
+    private static final long MOCK_NOW_MILLIS = 1500000000000L;
+    private static final CacheKey ATTRIBUTES_KEY = CacheKey.accountRecordAttributes(
+            TestConstants.TEST_STUDY_IDENTIFIER, TEST_HEALTHCODE);
 
     @Mock
     private AccountDao mockAccountDao;
     
     @Mock
-    private Account mockAccount;
+    private CacheProvider mockCacheProvider;
+    
+    private TranscribeConsentHandler handler;
+    
+    @Before
+    public void before() {
+        DateTimeUtils.setCurrentMillisFixed(MOCK_NOW_MILLIS);
+        when(mockCacheProvider.getStamp(ATTRIBUTES_KEY)).thenReturn("stamp");
+        
+        handler = new TranscribeConsentHandler();
+        handler.setAccountDao(mockAccountDao);
+        handler.setCacheProvider(mockCacheProvider);
+    }
+    
+    @After
+    public void after() {
+        DateTimeUtils.setCurrentMillisSystem();
+    }
     
     @Test
     public void test() {
-        when(mockAccount.getExternalId()).thenReturn(TEST_EXTERNAL_ID);
-        when(mockAccount.getSharingScope()).thenReturn(SharingScope.SPONSORS_AND_PARTNERS);
-        when(mockAccount.getDataGroups()).thenReturn(TEST_USER_GROUPS);
-        when(mockAccountDao.getAccount(any())).thenReturn(mockAccount);
+        mockAttributes(new AccountRecordAttributes(SharingScope.SPONSORS_AND_PARTNERS, TEST_EXTERNAL_ID,
+                TEST_USER_GROUPS));
         
         HealthDataRecord record = HealthDataRecord.create();
         HealthDataRecord outputRecord = setupContextAndRunHandler(record);
@@ -64,8 +89,7 @@ public class TranscribeConsentHandlerTest {
 
     @Test
     public void emptyStringSetConvertedCorrectly() {
-        when(mockAccount.getDataGroups()).thenReturn(ImmutableSet.of());
-        when(mockAccountDao.getAccount(any())).thenReturn(mockAccount);
+        mockAttributes(new AccountRecordAttributes(SharingScope.NO_SHARING, null, ImmutableSet.of()));
 
         HealthDataRecord record = HealthDataRecord.create();
         HealthDataRecord outputRecord = setupContextAndRunHandler(record);
@@ -73,10 +97,49 @@ public class TranscribeConsentHandlerTest {
         assertNull(outputRecord.getUserDataGroups());
     }
     
+    @Test
+    public void attributesAreSharedAcrossUploads() {
+        mockAttributes(new AccountRecordAttributes(SharingScope.SPONSORS_AND_PARTNERS, TEST_EXTERNAL_ID,
+                TEST_USER_GROUPS));
+        
+        setupContextAndRunHandler(HealthDataRecord.create());
+        HealthDataRecord outputRecord = setupContextAndRunHandler(HealthDataRecord.create());
+        
+        assertEquals(TEST_EXTERNAL_ID, outputRecord.getUserExternalId());
+        verify(mockAccountDao, times(1)).getAccountRecordAttributes(TestConstants.TEST_STUDY, TEST_HEALTHCODE);
+    }
+    
+    @Test
+    public void attributesAreReloadedAfterAccountUpdate() {
+        mockAttributes(new AccountRecordAttributes(SharingScope.SPONSORS_AND_PARTNERS, TEST_EXTERNAL_ID,
+                TEST_USER_GROUPS));
+        setupContextAndRunHandler(HealthDataRecord.create());
+        
+        // The participant withdraws, which replaces the stamp. Once the cached copy is revalidated, the new
+        // sharing scope is used.
+        mockAttributes(new AccountRecordAttributes(SharingScope.NO_SHARING, TEST_EXTERNAL_ID, TEST_USER_GROUPS));
+        when(mockCacheProvider.getStamp(ATTRIBUTES_KEY)).thenReturn("new-stamp");
+        DateTimeUtils.setCurrentMillisFixed(MOCK_NOW_MILLIS + VersionedLocalCache.DEFAULT_REVALIDATE_MILLIS);
+        
+        HealthDataRecord outputRecord = setupContextAndRunHandler(HealthDataRecord.create());
+        assertEquals(SharingScope.NO_SHARING, outputRecord.getUserSharingScope());
+        verify(mockAccountDao, times(2)).getAccountRecordAttributes(TestConstants.TEST_STUDY, TEST_HEALTHCODE);
+    }
+    
+    @Test
+    public void missingAccountIsNotCached() {
+        setupContextAndRunHandler(HealthDataRecord.create());
+        setupContextAndRunHandler(HealthDataRecord.create());
+        
+        verify(mockAccountDao, times(2)).getAccountRecordAttributes(TestConstants.TEST_STUDY, TEST_HEALTHCODE);
+    }
+    
+    private void mockAttributes(AccountRecordAttributes attributes) {
+        when(mockAccountDao.getAccountRecordAttributes(TestConstants.TEST_STUDY, TEST_HEALTHCODE))
+                .thenReturn(attributes);
+    }
+    
     private HealthDataRecord setupContextAndRunHandler(HealthDataRecord record) {
-        TranscribeConsentHandler handler = new TranscribeConsentHandler();
-        handler.setAccountDao(mockAccountDao);
-
         // set up context - handler expects Health Code and RecordBuilder
         UploadValidationContext context = new UploadValidationContext();
         context.setStudy(TestConstants.TEST_STUDY);
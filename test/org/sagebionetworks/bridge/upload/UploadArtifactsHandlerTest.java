@@ -1,11 +1,15 @@
 package org.sagebionetworks.bridge.upload;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 import com.fasterxml.jackson.databind.JsonNode;
@@ -13,6 +17,7 @@ import com.fasterxml.jackson.databind.JsonNode;
 import org.joda.time.LocalDate;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 
 import org.sagebionetworks.bridge.TestConstants;
 import org.sagebionetworks.bridge.dynamodb.DynamoUpload2;
@@ -33,8 +38,10 @@ public class UploadArtifactsHandlerTest {
                 0, HealthDataRecord.class).getId());
 
         // set up handler
+        UploadFileHelper mockUploadFileHelper = mock(UploadFileHelper.class);
         UploadArtifactsHandler handler = new UploadArtifactsHandler();
         handler.setHealthDataService(mockHealthDataService);
+        handler.setUploadFileHelper(mockUploadFileHelper);
 
         // Make record. Attachments are handled earlier in the call chain, and the data JSON node just contains the S3
         // filename of the attachment.
@@ -58,9 +65,12 @@ public class UploadArtifactsHandlerTest {
         // execute
         handler.handle(context);
 
-        // Validate result. Record ID equal to upload ID is the most important. The rest are just copied.
+        // Validate result. Record ID equal to upload ID is the most important. The rest are just copied. Attachment
+        // writes must finish before the record is created.
         ArgumentCaptor<HealthDataRecord> createdRecordCaptor = ArgumentCaptor.forClass(HealthDataRecord.class);
-        verify(mockHealthDataService).createOrUpdateRecord(createdRecordCaptor.capture());
+        InOrder inOrder = inOrder(mockUploadFileHelper, mockHealthDataService);
+        inOrder.verify(mockUploadFileHelper).awaitAttachmentWrites(context);
+        inOrder.verify(mockHealthDataService).createOrUpdateRecord(createdRecordCaptor.capture());
 
         HealthDataRecord createdRecord = createdRecordCaptor.getValue();
         assertEquals(TEST_UPLOAD_ID, createdRecord.getId());
@@ -73,6 +83,34 @@ public class UploadArtifactsHandlerTest {
         assertTrue(context.getMessageList().isEmpty());
     }
 
+    @Test
+    public void attachmentWriteFailureSkipsRecord() throws Exception {
+        HealthDataService mockHealthDataService = mock(HealthDataService.class);
+        UploadFileHelper mockUploadFileHelper = mock(UploadFileHelper.class);
+        UploadArtifactsHandler handler = new UploadArtifactsHandler();
+        handler.setHealthDataService(mockHealthDataService);
+        handler.setUploadFileHelper(mockUploadFileHelper);
+
+        DynamoUpload2 upload = new DynamoUpload2();
+        upload.setUploadId(TEST_UPLOAD_ID);
+
+        UploadValidationContext context = new UploadValidationContext();
+        context.setHealthDataRecord(createValidRecord(BridgeObjectMapper.get().createObjectNode()));
+        context.setUpload(upload);
+
+        UploadValidationException writeException = new UploadValidationException("test exception");
+        doThrow(writeException).when(mockUploadFileHelper).awaitAttachmentWrites(context);
+
+        try {
+            handler.handle(context);
+            fail("expected exception");
+        } catch (UploadValidationException ex) {
+            assertSame(writeException, ex);
+        }
+        verifyZeroInteractions(mockHealthDataService);
+        assertNull(context.getRecordId());
+    }
+
     // creates a record that has all the valid values filled in, with the data JsonNode specified
     private static HealthDataRecord createValidRecord(JsonNode dataNode) {
         // none of these values matter (except data, which is specified), so just fill in whatever
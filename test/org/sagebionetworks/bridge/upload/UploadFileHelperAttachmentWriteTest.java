@@ -0,0 +1,156 @@
+package org.sagebionetworks.bridge.upload;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import com.amazonaws.services.s3.transfer.TransferManager;
+import com.amazonaws.services.s3.transfer.Upload;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.MoreExecutors;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.sagebionetworks.bridge.dynamodb.DynamoUpload2;
+import org.sagebionetworks.bridge.file.InMemoryFileHelper;
+import org.sagebionetworks.bridge.models.upload.UploadFieldDefinition;
+import org.sagebionetworks.bridge.models.upload.UploadFieldType;
+import org.sagebionetworks.bridge.s3.S3Helper;
+
+public class UploadFileHelperAttachmentWriteTest {
+    private static final String FIELD_NAME = "attachment.txt";
+    private static final String UPLOAD_ID = "upload-id";
+    private static final String EXPECTED_ATTACHMENT_NAME = UPLOAD_ID + '-' + FIELD_NAME;
+    private static final UploadFieldDefinition FIELD_DEF = new UploadFieldDefinition.Builder().withName(FIELD_NAME)
+            .withType(UploadFieldType.ATTACHMENT_V2).build();
+
+    private UploadValidationContext context;
+    private InMemoryFileHelper inMemoryFileHelper;
+    private S3Helper mockS3Helper;
+    private TransferManager mockTransferManager;
+    private File tmpDir;
+    private UploadFileHelper uploadFileHelper;
+
+    @Before
+    public void before() {
+        inMemoryFileHelper = new InMemoryFileHelper();
+        tmpDir = inMemoryFileHelper.createTempDir();
+
+        // Mock dependencies.
+        mockS3Helper = mock(S3Helper.class);
+        mockTransferManager = mock(TransferManager.class);
+
+        // Create UploadFileHelper. Use a direct executor, so that writes are done by the time they're submitted.
+        uploadFileHelper = new UploadFileHelper();
+        uploadFileHelper.setFileHelper(inMemoryFileHelper);
+        uploadFileHelper.setS3Helper(mockS3Helper);
+        uploadFileHelper.setAttachmentTransferManager(mockTransferManager);
+        uploadFileHelper.setAttachmentUploadExecutor(MoreExecutors.newDirectExecutorService());
+
+        // Only need upload ID from upload.
+        DynamoUpload2 upload = new DynamoUpload2();
+        upload.setUploadId(UPLOAD_ID);
+
+        context = new UploadValidationContext();
+        context.setUpload(upload);
+    }
+
+    @Test
+    public void attachmentFileAddedToContext() throws Exception {
+        File attachmentFile = makeFileWithContent(FIELD_NAME, "dummy content");
+        Map<String, File> fileMap = ImmutableMap.of(FIELD_NAME, attachmentFile);
+
+        JsonNode result = uploadFileHelper.findValueForField(context, fileMap, FIELD_DEF, new HashMap<>());
+        assertEquals(EXPECTED_ATTACHMENT_NAME, result.textValue());
+        assertEquals(1, context.getAttachmentWriteList().size());
+
+        uploadFileHelper.awaitAttachmentWrites(context);
+        verify(mockS3Helper).writeFileToS3(UploadFileHelper.ATTACHMENT_BUCKET, EXPECTED_ATTACHMENT_NAME,
+                attachmentFile);
+        verifyZeroInteractions(mockTransferManager);
+    }
+
+    @Test
+    public void largeAttachmentFileUsesMultipartUpload() throws Exception {
+        uploadFileHelper.setMultipartUploadThreshold(10);
+
+        File attachmentFile = makeFileWithContent(FIELD_NAME, "content longer than the threshold");
+        Map<String, File> fileMap = ImmutableMap.of(FIELD_NAME, attachmentFile);
+
+        Upload mockUpload = mock(Upload.class);
+        when(mockTransferManager.upload(UploadFileHelper.ATTACHMENT_BUCKET, EXPECTED_ATTACHMENT_NAME,
+                attachmentFile)).thenReturn(mockUpload);
+
+        uploadFileHelper.findValueForField(context, fileMap, FIELD_DEF, new HashMap<>());
+        uploadFileHelper.awaitAttachmentWrites(context);
+
+        verify(mockUpload).waitForCompletion();
+        verifyZeroInteractions(mockS3Helper);
+    }
+
+    @Test
+    public void writeErrorThrownByAwait() throws Exception {
+        doThrow(IOException.class).when(mockS3Helper).writeBytesToS3(any(), any(), any(byte[].class));
+
+        // The write fails in the background, so we still get the attachment ID back.
+        JsonNode result = uploadFileHelper.uploadJsonNodeAsAttachment(context, TextNode.valueOf("dummy content"),
+                FIELD_NAME);
+        assertEquals(EXPECTED_ATTACHMENT_NAME, result.textValue());
+
+        try {
+            uploadFileHelper.awaitAttachmentWrites(context);
+            fail("expected exception");
+        } catch (UploadValidationException ex) {
+            assertTrue(ex.getMessage().contains("fieldName=" + FIELD_NAME));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void waitsForOldestWriteAtPerUploadLimit() throws Exception {
+        // Fill the context with pending writes. The oldest one is the one we wait for.
+        List<Future<?>> pendingWriteList = new ArrayList<>();
+        for (int i = 0; i < UploadFileHelper.MAX_CONCURRENT_ATTACHMENT_WRITES_PER_UPLOAD; i++) {
+            Future<?> mockPendingWrite = mock(Future.class);
+            when(mockPendingWrite.isDone()).thenReturn(false);
+            pendingWriteList.add(mockPendingWrite);
+            context.addAttachmentWrite(mockPendingWrite);
+        }
+
+        ExecutorService mockExecutor = mock(ExecutorService.class);
+        when(mockExecutor.submit(any(Callable.class))).thenReturn(mock(Future.class));
+        uploadFileHelper.setAttachmentUploadExecutor(mockExecutor);
+
+        uploadFileHelper.uploadJsonNodeAsAttachment(context, TextNode.valueOf("dummy content"), FIELD_NAME);
+
+        verify(pendingWriteList.get(0)).get();
+        verify(mockExecutor).submit(any(Callable.class));
+        assertEquals(UploadFileHelper.MAX_CONCURRENT_ATTACHMENT_WRITES_PER_UPLOAD + 1,
+                context.getAttachmentWriteList().size());
+    }
+
+    private File makeFileWithContent(String name, String content) {
+        File file = inMemoryFileHelper.newFile(tmpDir, name);
+        inMemoryFileHelper.writeBytes(file, content.getBytes(Charsets.UTF_8));
+        return file;
+    }
+}
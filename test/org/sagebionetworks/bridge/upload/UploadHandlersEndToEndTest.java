@@ -22,6 +22,7 @@ import com.google.common.base.Charsets;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.MoreExecutors;
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeUtils;
 import org.joda.time.LocalDate;
@@ -32,6 +33,7 @@ import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 
 import org.sagebionetworks.bridge.TestConstants;
+import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.dao.AccountDao;
 import org.sagebionetworks.bridge.dao.UploadDao;
 import org.sagebionetworks.bridge.dynamodb.DynamoStudy;
@@ -41,7 +43,7 @@ import org.sagebionetworks.bridge.file.InMemoryFileHelper;
 import org.sagebionetworks.bridge.json.BridgeObjectMapper;
 import org.sagebionetworks.bridge.time.DateUtils;
 import org.sagebionetworks.bridge.models.GuidCreatedOnVersionHolderImpl;
-import org.sagebionetworks.bridge.models.accounts.Account;
+import org.sagebionetworks.bridge.models.accounts.AccountRecordAttributes;
 import org.sagebionetworks.bridge.models.accounts.SharingScope;
 import org.sagebionetworks.bridge.models.healthdata.HealthDataRecord;
 import org.sagebionetworks.bridge.models.surveys.Survey;
@@ -174,6 +176,7 @@ public class UploadHandlersEndToEndTest {
         UploadFileHelper uploadFileHelper = new UploadFileHelper();
         uploadFileHelper.setFileHelper(inMemoryFileHelper);
         uploadFileHelper.setS3Helper(mockS3UploadHelper);
+        uploadFileHelper.setAttachmentUploadExecutor(MoreExecutors.newDirectExecutorService());
 
         // set up S3DownloadHandler - mock S3 Helper
         // "S3" returns file unencrypted for simplicity of testing
@@ -210,7 +213,7 @@ public class UploadHandlersEndToEndTest {
 
         // mock schema service
         UploadSchemaService mockUploadSchemaService = mock(UploadSchemaService.class);
-        when(mockUploadSchemaService.getUploadSchemaByIdAndRev(TestConstants.TEST_STUDY, schema.getSchemaId(),
+        when(mockUploadSchemaService.getCachedUploadSchemaByIdAndRev(TestConstants.TEST_STUDY, schema.getSchemaId(),
                 schema.getRevision())).thenReturn(schema);
 
         // mock survey service
@@ -248,16 +251,15 @@ public class UploadHandlersEndToEndTest {
         strictValidationHandler.setStudyService(mockStudyService);
 
         // set up TranscribeConsentHandler
-        Account account = Account.create();
-        account.setDataGroups(ImmutableSet.of("parkinson","test_user"));
-        account.setExternalId(EXTERNAL_ID);
-        account.setSharingScope(SharingScope.SPONSORS_AND_PARTNERS);
+        AccountRecordAttributes attributes = new AccountRecordAttributes(SharingScope.SPONSORS_AND_PARTNERS,
+                EXTERNAL_ID, ImmutableSet.of("parkinson","test_user"));
 
         AccountDao mockAccountDao = mock(AccountDao.class);
-        when(mockAccountDao.getAccount(any())).thenReturn(account);
+        when(mockAccountDao.getAccountRecordAttributes(TestConstants.TEST_STUDY, HEALTH_CODE)).thenReturn(attributes);
 
         TranscribeConsentHandler transcribeConsentHandler = new TranscribeConsentHandler();
         transcribeConsentHandler.setAccountDao(mockAccountDao);
+        transcribeConsentHandler.setCacheProvider(mock(CacheProvider.class));
 
         // mock HealthDataService should return empty list for getRecordsByHealthcodeCreatedOnSchemaId(), so dedupe
         // logic doesn't crash
@@ -267,6 +269,7 @@ public class UploadHandlersEndToEndTest {
         // set up UploadArtifactsHandler
         UploadArtifactsHandler uploadArtifactsHandler = new UploadArtifactsHandler();
         uploadArtifactsHandler.setHealthDataService(mockHealthDataService);
+        uploadArtifactsHandler.setUploadFileHelper(uploadFileHelper);
 
         // set up task factory
         List<UploadValidationHandler> handlerList = ImmutableList.of(s3DownloadHandler, decryptHandler, unzipHandler,
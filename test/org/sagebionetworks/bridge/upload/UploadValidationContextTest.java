@@ -8,6 +8,7 @@ import static org.mockito.Mockito.mock;
 
 import java.io.File;
 import java.util.Map;
+import java.util.concurrent.Future;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.google.common.collect.ImmutableMap;
@@ -19,6 +20,7 @@ import org.sagebionetworks.bridge.json.BridgeObjectMapper;
 import org.sagebionetworks.bridge.models.healthdata.HealthDataRecord;
 import org.sagebionetworks.bridge.models.studies.Study;
 import org.sagebionetworks.bridge.models.upload.Upload;
+import org.sagebionetworks.bridge.models.upload.UploadSchema;
 
 public class UploadValidationContextTest {
     private static final String HEALTH_CODE = "health-code";
@@ -48,6 +50,7 @@ public class UploadValidationContextTest {
         Map<String, File> unzippedDataFileMap = ImmutableMap.<String, File>builder().put("foo", mock(File.class))
                 .put("bar", mock(File.class)).put("baz", mock(File.class)).build();
         JsonNode infoJsonNode = BridgeObjectMapper.get().createObjectNode();
+        UploadSchema schema = UploadSchema.create();
         HealthDataRecord record = HealthDataRecord.create();
 
         // create original
@@ -62,6 +65,7 @@ public class UploadValidationContextTest {
         original.setDecryptedDataFile(decryptedDataFile);
         original.setUnzippedDataFileMap(unzippedDataFileMap);
         original.setInfoJsonNode(infoJsonNode);
+        original.setUploadSchema(schema);
         original.setHealthDataRecord(record);
         original.setRecordId("test-record");
 
@@ -76,6 +80,7 @@ public class UploadValidationContextTest {
         assertSame(decryptedDataFile, copy.getDecryptedDataFile());
         assertEquals(unzippedDataFileMap, copy.getUnzippedDataFileMap());
         assertSame(infoJsonNode, copy.getInfoJsonNode());
+        assertSame(schema, copy.getUploadSchema());
         assertSame(record, copy.getHealthDataRecord());
         assertEquals("test-record", copy.getRecordId());
 
@@ -98,5 +103,11 @@ public class UploadValidationContextTest {
         assertEquals(2, original.getMessageList().size());
         assertEquals("common message", original.getMessageList().get(0));
         assertEquals("original message", original.getMessageList().get(1));
+
+        // attachment writes are shared, so they're waited on no matter which copy started them
+        Future<?> attachmentWrite = mock(Future.class);
+        copy.addAttachmentWrite(attachmentWrite);
+        assertEquals(1, original.getAttachmentWriteList().size());
+        assertSame(attachmentWrite, original.getAttachmentWriteList().get(0));
     }
 }